@@ -0,0 +1,64 @@
+package com.smartstay.hotelbooking.availability;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+
+// Position of the last room on a page of availability results, in (price, hotel, room) order
+@Getter
+public class AvailabilityCursor {
+
+    public static final Comparator<IndexedRoom> ORDER = Comparator
+            .comparingLong(IndexedRoom::getPriceMinorUnits)
+            .thenComparingLong(IndexedRoom::getHotelId)
+            .thenComparingLong(IndexedRoom::getRoomId);
+
+    private final BigDecimal pricePerNight;
+    private final long priceMinorUnits;
+    private final Long hotelId;
+    private final Long roomId;
+
+    public AvailabilityCursor(BigDecimal pricePerNight, Long hotelId, Long roomId) {
+        this.pricePerNight = pricePerNight;
+        this.priceMinorUnits = IndexedRoom.toMinorUnits(pricePerNight);
+        this.hotelId = hotelId;
+        this.roomId = roomId;
+    }
+
+    public static AvailabilityCursor after(IndexedRoom room) {
+        return new AvailabilityCursor(room.getPricePerNight(), room.getHotelId(), room.getRoomId());
+    }
+
+    // True when the room sorts strictly after this cursor
+    public boolean precedes(IndexedRoom room) {
+        if (room.getPriceMinorUnits() != priceMinorUnits) {
+            return room.getPriceMinorUnits() > priceMinorUnits;
+        }
+        if (room.getHotelId().longValue() != hotelId) {
+            return room.getHotelId() > hotelId;
+        }
+        return room.getRoomId() > roomId;
+    }
+
+    public String encode() {
+        String raw = pricePerNight.toPlainString() + "|" + hotelId + "|" + roomId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AvailabilityCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new AvailabilityCursor(new BigDecimal(parts[0]), Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
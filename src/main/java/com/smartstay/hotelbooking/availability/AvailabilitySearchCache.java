@@ -0,0 +1,192 @@
+package com.smartstay.hotelbooking.availability;
+
+import com.smartstay.hotelbooking.dto.response.AvailableRoomPage;
+import com.smartstay.hotelbooking.event.BookingChangedEvent;
+import com.smartstay.hotelbooking.event.HotelChangedEvent;
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
+import com.smartstay.hotelbooking.event.RoomHoldChangedEvent;
+import com.smartstay.hotelbooking.event.RoomTypeChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class AvailabilitySearchCache {
+
+    @Value("${app.availability.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.availability.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.availability.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Bumped on every invalidation so a search that raced with a booking is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    // Access-ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<SearchKey, CachedPage> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public AvailableRoomPage get(String city, LocalDate checkInDate, LocalDate checkOutDate, int guests,
+            String roomType, long amenityMask, String cursor, int size, Supplier<AvailableRoomPage> search) {
+        if (!enabled) {
+            return search.get();
+        }
+
+        SearchKey key = new SearchKey(normalize(city), checkInDate, checkOutDate, guests, normalize(roomType),
+                amenityMask, cursor == null ? "" : cursor, size);
+        long now = System.nanoTime();
+
+        synchronized (entries) {
+            CachedPage cached = entries.get(key);
+            if (cached != null && now < cached.getExpiresAt()) {
+                hits.incrementAndGet();
+                return cached.getPage();
+            }
+            if (cached != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        long startGeneration = generation.get();
+        AvailableRoomPage page = search.get();
+
+        synchronized (entries) {
+            if (generation.get() == startGeneration) {
+                entries.put(key, new CachedPage(page, now + ttlSeconds * 1_000_000_000L));
+                if (entries.size() > maxEntries) {
+                    Iterator<SearchKey> eldest = entries.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        return page;
+    }
+
+    // Runs after the availability structures have applied the change
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onBookingChanged(BookingChangedEvent event) {
+        invalidate(event.getCity(), event.getCheckInDate(), event.getCheckOutDate());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onRoomHoldChanged(RoomHoldChangedEvent event) {
+        invalidate(event.getCity(), event.getCheckInDate(), event.getCheckOutDate());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onRoomChanged(RoomChangedEvent event) {
+        clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onHotelChanged(HotelChangedEvent event) {
+        clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onRoomTypeChanged(RoomTypeChangedEvent event) {
+        clear();
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    // Drops cached searches in the city whose stay overlaps the changed nights
+    private void invalidate(String eventCity, LocalDate checkInDate, LocalDate checkOutDate) {
+        String city = normalize(eventCity);
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Iterator<SearchKey> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                SearchKey key = keys.next();
+                boolean sameCity = key.getCity() == null || key.getCity().equals(city);
+                boolean overlaps = key.getCheckInDate().isBefore(checkOutDate)
+                        && key.getCheckOutDate().isAfter(checkInDate);
+                if (sameCity && overlaps) {
+                    keys.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class SearchKey {
+        private final String city;
+        private final LocalDate checkInDate;
+        private final LocalDate checkOutDate;
+        private final int guests;
+        private final String roomType;
+        private final long amenityMask;
+        private final String cursor;
+        private final int size;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedPage {
+        private final AvailableRoomPage page;
+        private final long expiresAt;
+    }
+}
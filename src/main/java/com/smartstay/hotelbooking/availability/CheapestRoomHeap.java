@@ -0,0 +1,118 @@
+package com.smartstay.hotelbooking.availability;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps the k cheapest rooms offered to it, ordered by (price, hotel, room) on primitive longs.
+// Stored as a max-heap so the most expensive kept room is the one compared against and evicted.
+public class CheapestRoomHeap {
+
+    private final int capacity;
+    private final long[] prices;
+    private final long[] hotelIds;
+    private final long[] roomIds;
+    private final IndexedRoom[] rooms;
+    private int size;
+
+    public CheapestRoomHeap(int capacity) {
+        this.capacity = capacity;
+        this.prices = new long[capacity];
+        this.hotelIds = new long[capacity];
+        this.roomIds = new long[capacity];
+        this.rooms = new IndexedRoom[capacity];
+    }
+
+    public void offer(long price, IndexedRoom room) {
+        if (capacity == 0) {
+            return;
+        }
+        long hotelId = room.getHotelId();
+        long roomId = room.getRoomId();
+        if (size < capacity) {
+            set(size, price, hotelId, roomId, room);
+            siftUp(size++);
+        } else if (isBefore(price, hotelId, roomId, 0)) {
+            set(0, price, hotelId, roomId, room);
+            siftDown(0);
+        }
+    }
+
+    // Rooms kept, cheapest first; empties the heap
+    public List<IndexedRoom> drainSorted() {
+        IndexedRoom[] sorted = new IndexedRoom[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = rooms[0];
+            size--;
+            if (size > 0) {
+                move(size, 0);
+                siftDown(0);
+            }
+            rooms[size] = null;
+        }
+        return new ArrayList<>(List.of(sorted));
+    }
+
+    private boolean isBefore(long price, long hotelId, long roomId, int slot) {
+        if (price != prices[slot]) {
+            return price < prices[slot];
+        }
+        if (hotelId != hotelIds[slot]) {
+            return hotelId < hotelIds[slot];
+        }
+        return roomId < roomIds[slot];
+    }
+
+    private boolean isBefore(int slot, int other) {
+        return isBefore(prices[slot], hotelIds[slot], roomIds[slot], other);
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!isBefore(parent, slot)) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int largest = slot;
+            int left = 2 * slot + 1;
+            int right = left + 1;
+            if (left < size && isBefore(largest, left)) {
+                largest = left;
+            }
+            if (right < size && isBefore(largest, right)) {
+                largest = right;
+            }
+            if (largest == slot) {
+                return;
+            }
+            swap(slot, largest);
+            slot = largest;
+        }
+    }
+
+    private void set(int slot, long price, long hotelId, long roomId, IndexedRoom room) {
+        prices[slot] = price;
+        hotelIds[slot] = hotelId;
+        roomIds[slot] = roomId;
+        rooms[slot] = room;
+    }
+
+    private void move(int from, int to) {
+        set(to, prices[from], hotelIds[from], roomIds[from], rooms[from]);
+    }
+
+    private void swap(int slot, int other) {
+        long price = prices[slot];
+        long hotelId = hotelIds[slot];
+        long roomId = roomIds[slot];
+        IndexedRoom room = rooms[slot];
+        move(other, slot);
+        set(other, price, hotelId, roomId, room);
+    }
+}
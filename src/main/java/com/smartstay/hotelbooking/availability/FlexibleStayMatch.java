@@ -0,0 +1,16 @@
+package com.smartstay.hotelbooking.availability;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class FlexibleStayMatch {
+
+    private final IndexedRoom room;
+
+    private final List<LocalDate> checkInDates;
+}
@@ -0,0 +1,116 @@
+package com.smartstay.hotelbooking.availability;
+
+import com.smartstay.hotelbooking.model.entity.Hotel;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.repository.projection.AvailableRoomView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class IndexedRoom {
+
+    private final Long roomId;
+    private final String roomNumber;
+    private final Integer capacity;
+    private final BigDecimal pricePerNight;
+
+    // pricePerNight in cents, so ordering and totals stay on primitive arithmetic
+    private final long priceMinorUnits;
+    private final String description;
+    private final Long hotelId;
+    private final String hotelName;
+    private final String hotelCity;
+    private final boolean hotelActive;
+    private final Long roomTypeId;
+    private final String roomTypeName;
+    private final long amenityMask;
+
+    // Bit i is set when the night starting i days after the index origin is sold
+    private final BitSet bookedNights;
+
+    public static IndexedRoom from(Room room, BitSet bookedNights) {
+        Hotel hotel = room.getHotel();
+        return new IndexedRoom(
+                room.getId(),
+                room.getRoomNumber(),
+                room.getCapacity(),
+                room.getPricePerNight(),
+                toMinorUnits(room.getPricePerNight()),
+                room.getDescription(),
+                hotel.getId(),
+                hotel.getName(),
+                hotel.getCity(),
+                hotel.getStatus() == Hotel.HotelStatus.ACTIVE,
+                room.getRoomType().getId(),
+                room.getRoomType().getName(),
+                room.getRoomType().getAmenityMask(),
+                bookedNights);
+    }
+
+    public static IndexedRoom from(AvailableRoomView view) {
+        return new IndexedRoom(
+                view.getRoomId(),
+                view.getRoomNumber(),
+                view.getCapacity(),
+                view.getPricePerNight(),
+                toMinorUnits(view.getPricePerNight()),
+                view.getDescription(),
+                view.getHotelId(),
+                view.getHotelName(),
+                view.getHotelCity(),
+                true,
+                view.getRoomTypeId(),
+                view.getRoomTypeName(),
+                view.getAmenityMask(),
+                new BitSet());
+    }
+
+    public IndexedRoom withBookedNights(BitSet nights) {
+        return new IndexedRoom(roomId, roomNumber, capacity, pricePerNight, priceMinorUnits, description, hotelId,
+                hotelName, hotelCity, hotelActive, roomTypeId, roomTypeName, amenityMask, nights);
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long amount) {
+        return BigDecimal.valueOf(amount, 2);
+    }
+
+    // True when the room type has every amenity set in requiredMask
+    public boolean hasAmenities(long requiredMask) {
+        return (amenityMask & requiredMask) == requiredMask;
+    }
+
+    // True when none of the nights in [fromNight, toNight) is sold
+    public boolean isFree(int fromNight, int toNight) {
+        int next = bookedNights.nextSetBit(Math.max(fromNight, 0));
+        return next < 0 || next >= toNight;
+    }
+
+    // Night offsets s in [fromNight, toNight - stayNights] such that nights s .. s + stayNights - 1 are all free
+    public List<Integer> freeStarts(int fromNight, int toNight, int stayNights) {
+        List<Integer> starts = new ArrayList<>();
+        int start = Math.max(fromNight, 0);
+        while (start + stayNights <= toNight) {
+            int booked = bookedNights.nextSetBit(start);
+            int gapEnd = booked < 0 ? toNight : Math.min(booked, toNight);
+            for (int night = start; night + stayNights <= gapEnd; night++) {
+                starts.add(night);
+            }
+            if (booked < 0) {
+                break;
+            }
+            start = booked + 1;
+        }
+        return starts;
+    }
+}
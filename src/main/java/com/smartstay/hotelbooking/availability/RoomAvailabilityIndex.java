@@ -0,0 +1,350 @@
+package com.smartstay.hotelbooking.availability;
+
+import com.smartstay.hotelbooking.booking.RoomHold;
+import com.smartstay.hotelbooking.booking.RoomHoldRegistry;
+import com.smartstay.hotelbooking.dto.response.HotelAvailabilitySummary;
+import com.smartstay.hotelbooking.event.BookingChangedEvent;
+import com.smartstay.hotelbooking.event.HotelChangedEvent;
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
+import com.smartstay.hotelbooking.event.RoomTypeChangedEvent;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.projection.BookedStay;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+@Component
+public class RoomAvailabilityIndex {
+
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final RoomHoldRegistry holdRegistry;
+
+    @Value("${app.availability.index.enabled:true}")
+    private boolean enabled;
+
+    private final Map<Long, IndexedRoom> rooms = new ConcurrentHashMap<>();
+    // Room ids per hotel, kept in step with rooms so hotel-scoped lookups skip every other hotel
+    private final Map<Long, Set<Long>> roomIdsByHotel = new ConcurrentHashMap<>();
+    private volatile LocalDate origin = LocalDate.now();
+    private volatile boolean ready;
+
+    // Reloads, whole or for some rooms, run one at a time under reloadLock. Booking changes committed while one is
+    // reading would be lost when its result is installed, so they are also recorded and replayed on top of it;
+    // applying a change twice is harmless, since each night ends up as the last change touching it left it.
+    // The queue is guarded by this.
+    private final Object reloadLock = new Object();
+    private boolean reloading;
+    private final List<BookingChangedEvent> changesDuringReload = new ArrayList<>();
+
+    @Autowired
+    public RoomAvailabilityIndex(RoomRepository roomRepository, BookingRepository bookingRepository,
+            RoomHoldRegistry holdRegistry) {
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.holdRegistry = holdRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (reloadLock) {
+            startReload();
+            LocalDate newOrigin = LocalDate.now();
+
+            Map<Long, BitSet> nightsByRoom = new HashMap<>();
+            for (BookedStay stay : bookingRepository.findActiveStaysEndingAfter(newOrigin)) {
+                BitSet nights = nightsByRoom.computeIfAbsent(stay.getRoomId(), id -> new BitSet());
+                markNights(nights, newOrigin, stay.getCheckInDate(), stay.getCheckOutDate(), true);
+            }
+
+            Map<Long, IndexedRoom> snapshot = new HashMap<>();
+            for (Room room : roomRepository.findAllWithHotelAndRoomType()) {
+                BitSet nights = nightsByRoom.getOrDefault(room.getId(), new BitSet());
+                snapshot.put(room.getId(), IndexedRoom.from(room, nights));
+            }
+
+            synchronized (this) {
+                origin = newOrigin;
+                rooms.clear();
+                roomIdsByHotel.clear();
+                snapshot.values().forEach(this::put);
+                ready = true;
+                finishReload();
+            }
+        }
+    }
+
+    private synchronized void startReload() {
+        reloading = true;
+        changesDuringReload.clear();
+    }
+
+    // Called under this once the reload's result is installed
+    private void finishReload() {
+        changesDuringReload.forEach(this::applyChange);
+        changesDuringReload.clear();
+        reloading = false;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Returns at most limit available rooms sorted after the cursor, keeping only that many in memory.
+    // Rooms are ranked on the total stay price in cents, which orders them the same as the nightly price.
+    public List<IndexedRoom> findAvailableRooms(String city, LocalDate checkInDate, LocalDate checkOutDate,
+            int guests, String roomType, long amenityMask, AvailabilityCursor cursor, int limit) {
+        int fromNight = nightOffset(checkInDate);
+        int toNight = nightOffset(checkOutDate);
+        long nights = toNight - fromNight;
+        boolean anyCity = city == null || city.isEmpty();
+        boolean anyRoomType = roomType == null || roomType.isEmpty();
+
+        CheapestRoomHeap page = new CheapestRoomHeap(limit);
+        for (IndexedRoom indexed : rooms.values()) {
+            IndexedRoom room = withHolds(indexed);
+            if (cursor != null && !cursor.precedes(room)) {
+                continue;
+            }
+            if (!room.isHotelActive() || room.getCapacity() < guests || !room.hasAmenities(amenityMask)) {
+                continue;
+            }
+            if (!anyCity && !room.getHotelCity().equalsIgnoreCase(city)) {
+                continue;
+            }
+            if (!anyRoomType && !room.getRoomTypeName().equalsIgnoreCase(roomType)) {
+                continue;
+            }
+            if (room.isFree(fromNight, toNight)) {
+                page.offer(room.getPriceMinorUnits() * nights, room);
+            }
+        }
+        return page.drainSorted();
+    }
+
+    // One pass over each candidate room's nights in the window yields every check-in date that fits the stay
+    public List<FlexibleStayMatch> findFlexibleStays(String city, LocalDate windowStart, LocalDate windowEnd,
+            int stayNights, int guests, String roomType, long amenityMask, int limit) {
+        int fromNight = nightOffset(windowStart);
+        int toNight = nightOffset(windowEnd);
+        boolean anyCity = city == null || city.isEmpty();
+        boolean anyRoomType = roomType == null || roomType.isEmpty();
+
+        Comparator<FlexibleStayMatch> order =
+                Comparator.comparing(FlexibleStayMatch::getRoom, AvailabilityCursor.ORDER);
+        PriorityQueue<FlexibleStayMatch> page = new PriorityQueue<>(limit + 1, order.reversed());
+        for (IndexedRoom indexed : rooms.values()) {
+            IndexedRoom room = withHolds(indexed);
+            if (!room.isHotelActive() || room.getCapacity() < guests || !room.hasAmenities(amenityMask)) {
+                continue;
+            }
+            if (!anyCity && !room.getHotelCity().equalsIgnoreCase(city)) {
+                continue;
+            }
+            if (!anyRoomType && !room.getRoomTypeName().equalsIgnoreCase(roomType)) {
+                continue;
+            }
+            List<Integer> starts = room.freeStarts(fromNight, toNight, stayNights);
+            if (starts.isEmpty()) {
+                continue;
+            }
+            List<LocalDate> checkInDates = new ArrayList<>(starts.size());
+            for (int start : starts) {
+                checkInDates.add(origin.plusDays(start));
+            }
+            page.offer(new FlexibleStayMatch(room, checkInDates));
+            if (page.size() > limit) {
+                page.poll();
+            }
+        }
+
+        List<FlexibleStayMatch> matches = new ArrayList<>(page);
+        matches.sort(order);
+        return matches;
+    }
+
+    // Free rooms and their lowest nightly price for each of the given hotels that has any
+    public Map<Long, HotelAvailabilitySummary> summarizeHotels(Set<Long> hotelIds, LocalDate checkInDate,
+            LocalDate checkOutDate, int guests) {
+        int fromNight = nightOffset(checkInDate);
+        int toNight = nightOffset(checkOutDate);
+
+        Map<Long, HotelAvailabilitySummary> summaries = new HashMap<>();
+        for (Long hotelId : hotelIds) {
+            for (Long roomId : roomIdsByHotel.getOrDefault(hotelId, Set.of())) {
+                IndexedRoom indexed = rooms.get(roomId);
+                // Holds are only applied to rooms that pass the cheap checks
+                if (indexed == null || !indexed.isHotelActive() || indexed.getCapacity() < guests) {
+                    continue;
+                }
+                IndexedRoom room = withHolds(indexed);
+                if (!room.isFree(fromNight, toNight)) {
+                    continue;
+                }
+                HotelAvailabilitySummary summary = summaries.computeIfAbsent(hotelId,
+                        id -> new HotelAvailabilitySummary(id, 0, room.getPricePerNight()));
+                summary.setAvailableRooms(summary.getAvailableRooms() + 1);
+                if (room.getPricePerNight().compareTo(summary.getLowestPricePerNight()) < 0) {
+                    summary.setLowestPricePerNight(room.getPricePerNight());
+                }
+            }
+        }
+        return summaries;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookingChanged(BookingChangedEvent event) {
+        synchronized (this) {
+            if (reloading) {
+                changesDuringReload.add(event);
+            }
+        }
+        applyChange(event);
+    }
+
+    private void applyChange(BookingChangedEvent event) {
+        LocalDate currentOrigin = origin;
+        rooms.computeIfPresent(event.getRoomId(), (id, room) -> {
+            BitSet nights = (BitSet) room.getBookedNights().clone();
+            markNights(nights, currentOrigin, event.getCheckInDate(), event.getCheckOutDate(), event.isActive());
+            return room.withBookedNights(nights);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRoomChanged(RoomChangedEvent event) {
+        Long roomId = event.getRoomId();
+        replaceRooms(room -> room.getRoomId().equals(roomId),
+                () -> roomRepository.findByIdWithHotelAndRoomType(roomId).map(List::of).orElse(List.of()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onHotelChanged(HotelChangedEvent event) {
+        Long hotelId = event.getHotelId();
+        replaceRooms(room -> room.getHotelId().equals(hotelId),
+                () -> roomRepository.findByHotelIdWithHotelAndRoomType(hotelId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRoomTypeChanged(RoomTypeChangedEvent event) {
+        Long roomTypeId = event.getRoomTypeId();
+        replaceRooms(room -> room.getRoomTypeId().equals(roomTypeId),
+                () -> roomRepository.findByRoomTypeIdWithHotelAndRoomType(roomTypeId));
+    }
+
+    // Re-reads the given rooms and their stays, dropping indexed rooms in scope that no longer exist. Waits for
+    // a rebuild in progress, so a change arriving during the first one is not lost
+    private void replaceRooms(Predicate<IndexedRoom> scope, Supplier<List<Room>> currentRooms) {
+        synchronized (reloadLock) {
+            if (!ready) {
+                return;
+            }
+            startReload();
+            LocalDate currentOrigin = origin;
+            List<Room> current = currentRooms.get();
+            Map<Long, IndexedRoom> fresh = new HashMap<>();
+            if (!current.isEmpty()) {
+                Map<Long, BitSet> nightsByRoom = new HashMap<>();
+                List<Long> roomIds = current.stream().map(Room::getId).toList();
+                for (BookedStay stay : bookingRepository.findActiveStaysForRoomsEndingAfter(roomIds,
+                        currentOrigin)) {
+                    BitSet nights = nightsByRoom.computeIfAbsent(stay.getRoomId(), id -> new BitSet());
+                    markNights(nights, currentOrigin, stay.getCheckInDate(), stay.getCheckOutDate(), true);
+                }
+                for (Room room : current) {
+                    fresh.put(room.getId(),
+                            IndexedRoom.from(room, nightsByRoom.getOrDefault(room.getId(), new BitSet())));
+                }
+            }
+
+            synchronized (this) {
+                List<IndexedRoom> removed = rooms.values().stream()
+                        .filter(room -> scope.test(room) && !fresh.containsKey(room.getRoomId()))
+                        .toList();
+                removed.forEach(this::remove);
+                fresh.values().forEach(this::put);
+                finishReload();
+            }
+        }
+    }
+
+    private void put(IndexedRoom room) {
+        IndexedRoom previous = rooms.put(room.getRoomId(), room);
+        if (previous != null && !previous.getHotelId().equals(room.getHotelId())) {
+            removeFromHotel(previous);
+        }
+        roomIdsByHotel.compute(room.getHotelId(), (id, roomIds) -> {
+            Set<Long> ids = roomIds != null ? roomIds : ConcurrentHashMap.newKeySet();
+            ids.add(room.getRoomId());
+            return ids;
+        });
+    }
+
+    private void remove(IndexedRoom room) {
+        rooms.remove(room.getRoomId());
+        removeFromHotel(room);
+    }
+
+    private void removeFromHotel(IndexedRoom room) {
+        roomIdsByHotel.computeIfPresent(room.getHotelId(), (id, roomIds) -> {
+            roomIds.remove(room.getRoomId());
+            return roomIds.isEmpty() ? null : roomIds;
+        });
+    }
+
+    // Nights held by a checkout in progress count as booked for searches; most rooms have no hold and are
+    // returned as they are
+    private IndexedRoom withHolds(IndexedRoom room) {
+        List<RoomHold> holds = holdRegistry.activeHolds(room.getRoomId(), null);
+        if (holds.isEmpty()) {
+            return room;
+        }
+        BitSet nights = (BitSet) room.getBookedNights().clone();
+        for (RoomHold hold : holds) {
+            markNights(nights, origin, hold.getCheckInDate(), hold.getCheckOutDate(), true);
+        }
+        return room.withBookedNights(nights);
+    }
+
+    private int nightOffset(LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(origin, date);
+    }
+
+    // Nights before the origin are in the past and are never searched, so they are clipped
+    private static void markNights(BitSet nights, LocalDate origin, LocalDate checkInDate,
+            LocalDate checkOutDate, boolean booked) {
+        int from = (int) Math.max(ChronoUnit.DAYS.between(origin, checkInDate), 0);
+        int to = (int) ChronoUnit.DAYS.between(origin, checkOutDate);
+        if (to > from) {
+            nights.set(from, to, booked);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.smartstay.hotelbooking.availability;
+
+import com.smartstay.hotelbooking.event.BookingChangedEvent;
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.projection.BookedStay;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class RoomStayIntervalIndex {
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Long, RoomStayIntervals> intervalsByRoom = new ConcurrentHashMap<>();
+    private volatile LocalDate origin = LocalDate.now();
+    private volatile boolean ready;
+
+    // Reloads run one at a time under reloadLock. Booking changes committed while one is reading would be lost
+    // when its result is installed, so they are also recorded and replayed on top of it; applying a change twice
+    // is harmless, since each one sets or removes a single booking's stay. The queue is guarded by this.
+    private final Object reloadLock = new Object();
+    private boolean reloading;
+    private final List<BookingChangedEvent> changesDuringReload = new ArrayList<>();
+
+    @Autowired
+    public RoomStayIntervalIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (reloadLock) {
+            startReload();
+            LocalDate newOrigin = LocalDate.now();
+            Map<Long, RoomStayIntervals> snapshot =
+                    loadStays(bookingRepository.findActiveStaysEndingAfter(newOrigin));
+
+            synchronized (this) {
+                origin = newOrigin;
+                intervalsByRoom.clear();
+                intervalsByRoom.putAll(snapshot);
+                ready = true;
+                finishReload();
+            }
+        }
+    }
+
+    // Only ranges ending after the origin can be answered, older stays are not loaded
+    public boolean canAnswer(LocalDate checkInDate, LocalDate checkOutDate) {
+        return ready && checkOutDate.isAfter(origin);
+    }
+
+    public boolean overlaps(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        return intervalsByRoom.getOrDefault(roomId, RoomStayIntervals.EMPTY).overlaps(checkInDate, checkOutDate);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookingChanged(BookingChangedEvent event) {
+        synchronized (this) {
+            if (reloading) {
+                changesDuringReload.add(event);
+            }
+        }
+        if (ready) {
+            applyChange(event);
+        }
+    }
+
+    private void applyChange(BookingChangedEvent event) {
+        intervalsByRoom.compute(event.getRoomId(), (roomId, current) -> {
+            RoomStayIntervals intervals = current != null ? current : RoomStayIntervals.EMPTY;
+            if (event.isActive() && event.getCheckOutDate().isAfter(origin)) {
+                intervals = intervals.with(event.getBookingId(), event.getCheckInDate(), event.getCheckOutDate());
+            } else {
+                intervals = intervals.without(event.getBookingId());
+            }
+            return intervals.isEmpty() ? null : intervals;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRoomChanged(RoomChangedEvent event) {
+        Long roomId = event.getRoomId();
+        // Checked under the lock, so a change arriving during the first rebuild waits for it rather than being lost
+        synchronized (reloadLock) {
+            if (!ready) {
+                return;
+            }
+            startReload();
+            RoomStayIntervals intervals = loadStays(bookingRepository.findActiveStaysForRoomsEndingAfter(
+                    List.of(roomId), origin)).get(roomId);
+
+            synchronized (this) {
+                if (intervals == null) {
+                    intervalsByRoom.remove(roomId);
+                } else {
+                    intervalsByRoom.put(roomId, intervals);
+                }
+                finishReload();
+            }
+        }
+    }
+
+    private synchronized void startReload() {
+        reloading = true;
+        changesDuringReload.clear();
+    }
+
+    // Called under this once the reload's result is installed
+    private void finishReload() {
+        changesDuringReload.forEach(this::applyChange);
+        changesDuringReload.clear();
+        reloading = false;
+    }
+
+    // Compares the in-memory stays with the bookings table and optionally reloads the index
+    public Map<String, Object> checkConsistency(boolean repair) {
+        synchronized (reloadLock) {
+            return compareWithTable(repair);
+        }
+    }
+
+    private Map<String, Object> compareWithTable(boolean repair) {
+        LocalDate checkedOrigin = origin;
+        Map<Long, RoomStayIntervals> expected = loadStays(bookingRepository.findActiveStaysEndingAfter(checkedOrigin));
+
+        Set<Long> roomIds = new HashSet<>(expected.keySet());
+        roomIds.addAll(intervalsByRoom.keySet());
+
+        List<Long> inconsistentRooms = new ArrayList<>();
+        int missingStays = 0;
+        int unexpectedStays = 0;
+        for (Long roomId : roomIds) {
+            Set<RoomStayIntervals.Stay> inTable = new HashSet<>(
+                    expected.getOrDefault(roomId, RoomStayIntervals.EMPTY).stays());
+            Set<RoomStayIntervals.Stay> inMemory = new HashSet<>(
+                    intervalsByRoom.getOrDefault(roomId, RoomStayIntervals.EMPTY).stays());
+            if (inTable.equals(inMemory)) {
+                continue;
+            }
+            inconsistentRooms.add(roomId);
+            for (RoomStayIntervals.Stay stay : inTable) {
+                if (!inMemory.contains(stay)) {
+                    missingStays++;
+                }
+            }
+            for (RoomStayIntervals.Stay stay : inMemory) {
+                if (!inTable.contains(stay)) {
+                    unexpectedStays++;
+                }
+            }
+        }
+
+        if (repair && !inconsistentRooms.isEmpty()) {
+            rebuild();
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("origin", checkedOrigin);
+        report.put("roomsChecked", roomIds.size());
+        report.put("consistent", inconsistentRooms.isEmpty());
+        report.put("inconsistentRooms", inconsistentRooms);
+        report.put("missingStays", missingStays);
+        report.put("unexpectedStays", unexpectedStays);
+        report.put("repaired", repair && !inconsistentRooms.isEmpty());
+        return report;
+    }
+
+    private static Map<Long, RoomStayIntervals> loadStays(List<BookedStay> bookedStays) {
+        Map<Long, List<RoomStayIntervals.Stay>> staysByRoom = new HashMap<>();
+        for (BookedStay stay : bookedStays) {
+            staysByRoom.computeIfAbsent(stay.getRoomId(), id -> new ArrayList<>())
+                    .add(new RoomStayIntervals.Stay(stay.getBookingId(), stay.getCheckInDate().toEpochDay(),
+                            stay.getCheckOutDate().toEpochDay()));
+        }
+
+        Map<Long, RoomStayIntervals> intervals = new HashMap<>();
+        staysByRoom.forEach((roomId, stays) -> intervals.put(roomId, RoomStayIntervals.of(stays)));
+        return intervals;
+    }
+}
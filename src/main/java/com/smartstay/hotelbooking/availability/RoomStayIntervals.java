@@ -0,0 +1,105 @@
+package com.smartstay.hotelbooking.availability;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Immutable, start-sorted stays of one room; maxEnds[i] is the latest check-out among stays 0..i
+public class RoomStayIntervals {
+
+    public static final RoomStayIntervals EMPTY = new RoomStayIntervals(new long[0], new long[0], new long[0]);
+
+    private final long[] bookingIds;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+
+    private RoomStayIntervals(long[] bookingIds, long[] starts, long[] ends) {
+        this.bookingIds = bookingIds;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new long[starts.length];
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            maxEnd = Math.max(maxEnd, ends[i]);
+            maxEnds[i] = maxEnd;
+        }
+    }
+
+    public static RoomStayIntervals of(List<Stay> stays) {
+        List<Stay> sorted = new ArrayList<>(stays);
+        sorted.sort(Comparator.comparingLong(Stay::getStart).thenComparingLong(Stay::getBookingId));
+        long[] bookingIds = new long[sorted.size()];
+        long[] starts = new long[sorted.size()];
+        long[] ends = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            Stay stay = sorted.get(i);
+            bookingIds[i] = stay.getBookingId();
+            starts[i] = stay.getStart();
+            ends[i] = stay.getEnd();
+        }
+        return new RoomStayIntervals(bookingIds, starts, ends);
+    }
+
+    // O(log n): the last stay starting before check-out decides, through the running maximum of check-outs
+    public boolean overlaps(LocalDate checkInDate, LocalDate checkOutDate) {
+        int last = lastStartBefore(checkOutDate.toEpochDay());
+        return last >= 0 && maxEnds[last] > checkInDate.toEpochDay();
+    }
+
+    public RoomStayIntervals with(long bookingId, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Stay> stays = withoutBooking(bookingId);
+        stays.add(new Stay(bookingId, checkInDate.toEpochDay(), checkOutDate.toEpochDay()));
+        return of(stays);
+    }
+
+    public RoomStayIntervals without(long bookingId) {
+        List<Stay> stays = withoutBooking(bookingId);
+        return stays.size() == starts.length ? this : of(stays);
+    }
+
+    public List<Stay> stays() {
+        List<Stay> stays = new ArrayList<>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            stays.add(new Stay(bookingIds[i], starts[i], ends[i]));
+        }
+        return stays;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    private List<Stay> withoutBooking(long bookingId) {
+        List<Stay> stays = stays();
+        stays.removeIf(stay -> stay.getBookingId() == bookingId);
+        return stays;
+    }
+
+    private int lastStartBefore(long day) {
+        int index = Arrays.binarySearch(starts, day);
+        if (index < 0) {
+            return -index - 2;
+        }
+        // Skip stays starting exactly on the day, they begin after the requested range
+        while (index >= 0 && starts[index] >= day) {
+            index--;
+        }
+        return index;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static class Stay {
+        private final long bookingId;
+        private final long start;
+        private final long end;
+    }
+}
@@ -0,0 +1,261 @@
+package com.smartstay.hotelbooking.availability;
+
+import com.smartstay.hotelbooking.event.HotelChangedEvent;
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
+import com.smartstay.hotelbooking.event.RoomTypeChangedEvent;
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.RoomTypeInventory;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.RoomTypeInventoryRepository;
+import com.smartstay.hotelbooking.repository.projection.BookedStay;
+import com.smartstay.hotelbooking.repository.projection.BookingStayDetail;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Per-hotel, per-room-type, per-night count of sold rooms; booking writes adjust it in their own transaction.
+// Those writes share a lock until their transaction completes and a rebuild takes it exclusively, so a rebuild
+// never reads the bookings between another transaction's booking change and its ledger change. Like the room
+// locks, this covers writes made by this instance only.
+@Component
+public class RoomTypeInventoryLedger {
+
+    private final RoomTypeInventoryRepository inventoryRepository;
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+
+    @Value("${app.inventory.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Value("${app.booking.lock-timeout-ms:5000}")
+    private long lockTimeoutMillis;
+
+    // Fair, so a stream of bookings cannot keep a rebuild waiting forever
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock(true);
+
+    @Autowired
+    public RoomTypeInventoryLedger(RoomTypeInventoryRepository inventoryRepository,
+            RoomRepository roomRepository,
+            BookingRepository bookingRepository) {
+        this.inventoryRepository = inventoryRepository;
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Booking booking) {
+        joinWriters();
+        Long hotelId = booking.getRoom().getHotel().getId();
+        Long roomTypeId = booking.getRoom().getRoomType().getId();
+        for (LocalDate night = booking.getCheckInDate(); night.isBefore(booking.getCheckOutDate());
+                night = night.plusDays(1)) {
+            addSold(hotelId, roomTypeId, night, 1);
+        }
+    }
+
+    // Group bookings share room types and nights, so each night row is updated once with the summed count
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserveAll(List<Booking> bookings) {
+        joinWriters();
+        Map<NightKey, Integer> sold = new HashMap<>();
+        for (Booking booking : bookings) {
+            TypeKey type = new TypeKey(booking.getRoom().getHotel().getId(), booking.getRoom().getRoomType().getId());
+            for (LocalDate night = booking.getCheckInDate(); night.isBefore(booking.getCheckOutDate());
+                    night = night.plusDays(1)) {
+                sold.merge(new NightKey(type, night), 1, Integer::sum);
+            }
+        }
+        sold.forEach((key, count) -> addSold(key.type.hotelId, key.type.roomTypeId, key.night, count));
+    }
+
+    // Bulk counterpart of release for stays that left an occupying status together
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseStays(List<BookingStayDetail> stays) {
+        joinWriters();
+        Map<NightKey, Integer> released = new HashMap<>();
+        for (BookingStayDetail stay : stays) {
+            TypeKey type = new TypeKey(stay.getHotelId(), stay.getRoomTypeId());
+            for (LocalDate night = stay.getCheckInDate(); night.isBefore(stay.getCheckOutDate());
+                    night = night.plusDays(1)) {
+                released.merge(new NightKey(type, night), 1, Integer::sum);
+            }
+        }
+        released.forEach((key, count) ->
+                inventoryRepository.addSold(key.type.hotelId, key.type.roomTypeId, key.night, -count));
+    }
+
+    private void addSold(Long hotelId, Long roomTypeId, LocalDate night, int count) {
+        if (inventoryRepository.addSold(hotelId, roomTypeId, night, count) == 0) {
+            // First sale of this night: open the row, then retry the increment against it
+            inventoryRepository.insertNight(hotelId, roomTypeId, night);
+            inventoryRepository.addSold(hotelId, roomTypeId, night, count);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Booking booking) {
+        joinWriters();
+        Long hotelId = booking.getRoom().getHotel().getId();
+        Long roomTypeId = booking.getRoom().getRoomType().getId();
+        for (LocalDate night = booking.getCheckInDate(); night.isBefore(booking.getCheckOutDate());
+                night = night.plusDays(1)) {
+            inventoryRepository.addSold(hotelId, roomTypeId, night, -1);
+        }
+    }
+
+    // Applies a status change: only moves into or out of a room-occupying status touch the ledger
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(Booking booking, Booking.BookingStatus previousStatus) {
+        boolean wasOccupying = previousStatus.occupiesRoom();
+        boolean occupies = booking.getBookingStatus().occupiesRoom();
+        if (!wasOccupying && occupies) {
+            reserve(booking);
+        } else if (wasOccupying && !occupies) {
+            release(booking);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onRoomChanged(RoomChangedEvent event) {
+        // Status changes and booking edits leave every room count as it was
+        if (!event.isPlacementChanged()) {
+            return;
+        }
+        if (event.getHotelId() != null) {
+            refreshCapacities(event.getHotelId(), event.getRoomTypeId());
+        }
+        if (event.getPreviousHotelId() != null) {
+            refreshCapacities(event.getPreviousHotelId(), event.getPreviousRoomTypeId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onHotelChanged(HotelChangedEvent event) {
+        refreshCapacities(event.getHotelId(), null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onRoomTypeChanged(RoomTypeChangedEvent event) {
+        refreshCapacities(null, event.getRoomTypeId());
+    }
+
+    private void refreshCapacities(Long hotelId, Long roomTypeId) {
+        joinWriters();
+        inventoryRepository.refreshCapacities(LocalDate.now(),
+                hotelId == null, hotelId == null ? 0L : hotelId,
+                roomTypeId == null, roomTypeId == null ? 0L : roomTypeId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    // Recomputes every night from today on from the bookings table; returns the number of ledger rows written
+    @Transactional
+    public int rebuild() {
+        holdUntilCompletion(rebuildLock.writeLock(), "Room inventory is busy with bookings, please retry");
+        LocalDate today = LocalDate.now();
+
+        Map<Long, Room> roomsById = new HashMap<>();
+        Map<TypeKey, Integer> capacities = new HashMap<>();
+        for (Room room : roomRepository.findAllWithHotelAndRoomType()) {
+            roomsById.put(room.getId(), room);
+            capacities.merge(new TypeKey(room.getHotel().getId(), room.getRoomType().getId()), 1, Integer::sum);
+        }
+
+        Map<NightKey, RoomTypeInventory> nights = new HashMap<>();
+        for (BookedStay stay : bookingRepository.findActiveStaysEndingAfter(today)) {
+            Room room = roomsById.get(stay.getRoomId());
+            if (room == null) {
+                continue;
+            }
+            TypeKey type = new TypeKey(room.getHotel().getId(), room.getRoomType().getId());
+            LocalDate from = stay.getCheckInDate().isBefore(today) ? today : stay.getCheckInDate();
+            for (LocalDate night = from; night.isBefore(stay.getCheckOutDate()); night = night.plusDays(1)) {
+                RoomTypeInventory row = nights.computeIfAbsent(new NightKey(type, night), key ->
+                        new RoomTypeInventory(room.getHotel(), room.getRoomType(), key.night,
+                                capacities.get(type), 0));
+                row.setSold(row.getSold() + 1);
+            }
+        }
+
+        inventoryRepository.deleteFrom(today);
+        inventoryRepository.flush();
+        List<RoomTypeInventory> rows = new ArrayList<>(nights.values());
+        inventoryRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    // The shared side is taken once per transaction; nested transactions write under their outer one's hold
+    private void joinWriters() {
+        if (TransactionSynchronizationManager.hasResource(rebuildLock)) {
+            return;
+        }
+        holdUntilCompletion(rebuildLock.readLock(), "Room inventory is being rebuilt, please retry");
+    }
+
+    private void holdUntilCompletion(Lock lock, String busyMessage) {
+        if (TransactionSynchronizationManager.hasResource(rebuildLock)) {
+            // A write lock cannot be taken over a read lock this thread already holds
+            throw new IllegalStateException("Room inventory cannot be rebuilt inside a booking write");
+        }
+        try {
+            if (!lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(busyMessage);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the room inventory");
+        }
+
+        TransactionSynchronizationManager.bindResource(rebuildLock, lock);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(rebuildLock);
+                lock.unlock();
+            }
+        });
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class TypeKey {
+        private final Long hotelId;
+        private final Long roomTypeId;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class NightKey {
+        private final TypeKey type;
+        private final LocalDate night;
+    }
+}
@@ -0,0 +1,189 @@
+package com.smartstay.hotelbooking.booking;
+
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.service.BookingService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Accepts bookings without holding a request thread or connection for the write. Requests are partitioned by
+// hotel into bounded queues; one writer per partition drains whatever has queued up and commits it as a single
+// batch. A full queue is refused rather than waited on. Queued requests live in memory only and are lost if
+// the instance stops before they are written.
+@Slf4j
+@Component
+public class AsyncBookingPipeline {
+
+    private final BookingService bookingService;
+    private final RoomRepository roomRepository;
+    private final int maxBatchSize;
+    private final long retentionMillis;
+
+    private final List<BlockingQueue<QueuedBookingRequest>> partitions;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final Map<String, QueuedBookingRequest> requests = new ConcurrentHashMap<>();
+    // A room's hotel only decides the partition, so a stale entry costs ordering, never correctness
+    private final Map<Long, Long> hotelIdsByRoom = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurgeMillis = new AtomicLong(System.currentTimeMillis());
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedRequests = new AtomicLong();
+    private final AtomicLong writerFailures = new AtomicLong();
+
+    public AsyncBookingPipeline(BookingService bookingService, RoomRepository roomRepository,
+            @Value("${app.booking.async.partitions:4}") int partitionCount,
+            @Value("${app.booking.async.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.booking.async.max-batch:50}") int maxBatchSize,
+            @Value("${app.booking.async.status-retention-seconds:600}") long retentionSeconds) {
+        this.bookingService = bookingService;
+        this.roomRepository = roomRepository;
+        this.maxBatchSize = maxBatchSize;
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(retentionSeconds);
+
+        List<BlockingQueue<QueuedBookingRequest>> queues = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            BlockingQueue<QueuedBookingRequest> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            Thread writer = new Thread(() -> drain(queue), "booking-writer-" + i);
+            writer.setDaemon(true);
+            writers.add(writer);
+            writer.start();
+        }
+        this.partitions = List.copyOf(queues);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writers.forEach(Thread::interrupt);
+    }
+
+    public QueuedBookingRequest submit(Long userId, String username, Long roomId, LocalDate checkInDate,
+            LocalDate checkOutDate, int adults, int children, String specialRequests) {
+        Long hotelId = hotelIdsByRoom.computeIfAbsent(roomId, id -> roomRepository.findHotelIdById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + id)));
+        QueuedBookingRequest request = new QueuedBookingRequest(userId, username, hotelId, roomId, checkInDate,
+                checkOutDate, adults, children, specialRequests);
+
+        requests.put(request.getId(), request);
+        if (!partitions.get(Math.floorMod(hotelId.hashCode(), partitions.size())).offer(request)) {
+            requests.remove(request.getId());
+            refused.incrementAndGet();
+            throw new RejectedExecutionException("Booking queue is full, please retry shortly");
+        }
+        accepted.incrementAndGet();
+        purgeCompleted();
+        return request;
+    }
+
+    public Optional<QueuedBookingRequest> find(String requestId) {
+        return Optional.ofNullable(requests.get(requestId));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        List<Integer> depths = new ArrayList<>(partitions.size());
+        for (BlockingQueue<QueuedBookingRequest> queue : partitions) {
+            depths.add(queue.size());
+        }
+        stats.put("queueDepths", depths);
+        stats.put("accepted", accepted.get());
+        stats.put("refused", refused.get());
+        stats.put("batches", batches.get());
+        stats.put("writerFailures", writerFailures.get());
+        long batchCount = batches.get();
+        stats.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) batchedRequests.get() / batchCount);
+        stats.put("trackedRequests", requests.size());
+        return stats;
+    }
+
+    private void drain(BlockingQueue<QueuedBookingRequest> queue) {
+        List<QueuedBookingRequest> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                QueuedBookingRequest first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Whatever piled up while the previous batch was written goes out with this one
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                // The writer outlives a failed batch; otherwise its partition would stop draining for good
+                writerFailures.incrementAndGet();
+                log.error("Booking writer failed on a batch of {} requests", batch.size(), e);
+                abandon(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<QueuedBookingRequest> batch) {
+        batches.incrementAndGet();
+        batchedRequests.addAndGet(batch.size());
+        try {
+            bookingService.processQueuedBookings(batch);
+        } catch (RuntimeException e) {
+            // One bad request must not sink its neighbours: retry the rest one transaction at a time
+            for (QueuedBookingRequest request : batch) {
+                if (!request.isDone()) {
+                    writeAlone(request);
+                }
+            }
+        }
+    }
+
+    private void writeAlone(QueuedBookingRequest request) {
+        try {
+            request.confirm(bookingService.processBookingRequest(request.getUserId(), request.getRoomId(),
+                    request.getCheckInDate(), request.getCheckOutDate(), request.getAdults(),
+                    request.getChildren(), request.getSpecialRequests()));
+        } catch (RuntimeException e) {
+            request.reject(e.getMessage());
+        }
+    }
+
+    // Whether these were written is unknown, so the guest is told to look before booking again
+    private void abandon(List<QueuedBookingRequest> batch) {
+        for (QueuedBookingRequest request : batch) {
+            if (!request.isDone()) {
+                request.reject("Booking could not be processed, check your bookings before retrying");
+            }
+        }
+    }
+
+    // Finished requests stay visible at their status URL for the retention period
+    private void purgeCompleted() {
+        long now = System.currentTimeMillis();
+        long last = lastPurgeMillis.get();
+        if (now - last < TimeUnit.MINUTES.toMillis(1) || !lastPurgeMillis.compareAndSet(last, now)) {
+            return;
+        }
+        requests.values().removeIf(request -> request.isDone()
+                && now - request.getCompletedAtMillis() > retentionMillis);
+    }
+}
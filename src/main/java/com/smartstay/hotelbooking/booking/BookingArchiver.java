@@ -0,0 +1,107 @@
+package com.smartstay.hotelbooking.booking;
+
+import com.smartstay.hotelbooking.repository.ArchivedBookingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps the bookings table to recent and upcoming stays. Finished stays older than the retention window are
+// copied with their payment into bookings_archive and deleted from the hot tables, a chunk per transaction,
+// so availability checks and hotel scans only ever see the hot rows.
+@Component
+public class BookingArchiver {
+
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.booking.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.booking.archive.after-months:12}")
+    private int afterMonths;
+
+    @Value("${app.booking.archive.chunk-size:500}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalArchived = new AtomicLong();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public BookingArchiver(ArchivedBookingRepository archivedBookingRepository,
+            PlatformTransactionManager transactionManager) {
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${app.booking.archive.cron:0 45 1 * * *}")
+    public void scheduledRun() {
+        if (enabled && !running.get()) {
+            run();
+        }
+    }
+
+    public Map<String, Object> run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A booking archive run is already in progress");
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDate cutoff = LocalDate.now().minusMonths(afterMonths);
+            int archived = 0;
+            int chunks = 0;
+            while (true) {
+                Integer moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+                if (moved == null || moved == 0) {
+                    break;
+                }
+                archived += moved;
+                chunks++;
+            }
+            totalArchived.addAndGet(archived);
+
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("ranAt", LocalDateTime.now());
+            metrics.put("cutoff", cutoff);
+            metrics.put("archived", archived);
+            metrics.put("chunks", chunks);
+            metrics.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            lastRun = metrics;
+            return metrics;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("afterMonths", afterMonths);
+        stats.put("running", running.get());
+        stats.put("totalArchived", totalArchived.get());
+        stats.put("archivedRows", archivedBookingRepository.count());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    private int archiveChunk(LocalDate cutoff) {
+        List<Long> ids = archivedBookingRepository.lockArchivableIds(cutoff, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedBookingRepository.copyToArchive(ids, LocalDateTime.now());
+        archivedBookingRepository.deleteHotPayments(ids);
+        archivedBookingRepository.deleteHotBookings(ids);
+        return ids.size();
+    }
+}
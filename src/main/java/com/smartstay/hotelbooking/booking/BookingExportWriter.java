@@ -0,0 +1,176 @@
+package com.smartstay.hotelbooking.booking;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartstay.hotelbooking.repository.projection.BookingSummaryView;
+import com.smartstay.hotelbooking.service.BookingService;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+// Writes a hotel's bookings straight from the database cursor to the response, one row at a time, so an
+// export holds a single row in memory however long the date range is
+@Component
+public class BookingExportWriter {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "id,bookingReference,checkInDate,checkOutDate,adults,children," +
+            "totalPrice,status,specialRequests,createdAt,roomId,roomNumber,roomType,hotelId,hotelName," +
+            "paymentId,paymentAmount,paymentMethod,paymentStatus,paymentDate,reviewRating";
+
+    private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+
+    public BookingExportWriter(BookingService bookingService, ObjectMapper objectMapper) {
+        this.bookingService = bookingService;
+        this.objectMapper = objectMapper;
+    }
+
+    public void write(Long hotelId, LocalDate startDate, LocalDate endDate, Format format, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                bookingService.exportByHotelAndDateRange(hotelId, startDate, endDate,
+                        booking -> writeCsvRow(writer, booking));
+            } else {
+                // The generator must not close the response stream after each row
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                bookingService.exportByHotelAndDateRange(hotelId, startDate, endDate,
+                        booking -> writeJsonLine(generator, writer, booking));
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    public void writeError(String message, OutputStream out) throws IOException {
+        objectMapper.writeValue(out, Map.of("error", message));
+    }
+
+    private void writeCsvRow(Writer writer, BookingSummaryView booking) {
+        try {
+            StringBuilder row = new StringBuilder(256);
+            csv(row, booking.getId());
+            csv(row, booking.getBookingReference());
+            csv(row, booking.getCheckInDate());
+            csv(row, booking.getCheckOutDate());
+            csv(row, booking.getAdults());
+            csv(row, booking.getChildren());
+            csv(row, booking.getTotalPrice());
+            csv(row, booking.getBookingStatus());
+            csv(row, booking.getSpecialRequests());
+            csv(row, booking.getCreatedAt());
+            csv(row, booking.getRoomId());
+            csv(row, booking.getRoomNumber());
+            csv(row, booking.getRoomTypeName());
+            csv(row, booking.getHotelId());
+            csv(row, booking.getHotelName());
+            csv(row, booking.getPaymentId());
+            csv(row, booking.getPaymentAmount());
+            csv(row, booking.getPaymentMethod());
+            csv(row, booking.getPaymentStatus());
+            csv(row, booking.getPaymentDate());
+            csv(row, booking.getReviewRating());
+            row.setCharAt(row.length() - 1, '\n');
+            writer.append(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeJsonLine(JsonGenerator generator, Writer writer, BookingSummaryView booking) {
+        try {
+            generator.writeStartObject();
+            json(generator, "id", booking.getId());
+            json(generator, "bookingReference", booking.getBookingReference());
+            json(generator, "checkInDate", booking.getCheckInDate());
+            json(generator, "checkOutDate", booking.getCheckOutDate());
+            json(generator, "adults", booking.getAdults());
+            json(generator, "children", booking.getChildren());
+            json(generator, "totalPrice", booking.getTotalPrice());
+            json(generator, "status", booking.getBookingStatus());
+            json(generator, "specialRequests", booking.getSpecialRequests());
+            json(generator, "createdAt", booking.getCreatedAt());
+            json(generator, "roomId", booking.getRoomId());
+            json(generator, "roomNumber", booking.getRoomNumber());
+            json(generator, "roomType", booking.getRoomTypeName());
+            json(generator, "hotelId", booking.getHotelId());
+            json(generator, "hotelName", booking.getHotelName());
+            json(generator, "paymentId", booking.getPaymentId());
+            json(generator, "paymentAmount", booking.getPaymentAmount());
+            json(generator, "paymentMethod", booking.getPaymentMethod());
+            json(generator, "paymentStatus", booking.getPaymentStatus());
+            json(generator, "paymentDate", booking.getPaymentDate());
+            json(generator, "reviewRating", booking.getReviewRating());
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void csv(StringBuilder row, Object value) {
+        if (value != null) {
+            String text = value.toString();
+            // Quote only fields that need it, doubling embedded quotes
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                    || text.indexOf('\r') >= 0) {
+                row.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                row.append(text);
+            }
+        }
+        row.append(',');
+    }
+
+    private static void json(JsonGenerator generator, String field, Object value) throws IOException {
+        generator.writeFieldName(field);
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof BigDecimal decimal) {
+            generator.writeNumber(decimal);
+        } else if (value instanceof Long number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Integer number) {
+            generator.writeNumber(number);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.smartstay.hotelbooking.booking;
+
+import com.smartstay.hotelbooking.availability.RoomTypeInventoryLedger;
+import com.smartstay.hotelbooking.event.BookingChangedEvent;
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.projection.BookingStayDetail;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+// Moves bookings whose dates have passed to their final status with set-based UPDATEs: CONFIRMED stays whose
+// check-in day is over become NO_SHOW, CHECKED_IN stays whose check-out day is over become CHECKED_OUT.
+// Each chunk commits on its own, so a long backlog never holds one big transaction. Rows are re-checked under
+// a lock before the update, so runs on several instances or next to admin edits change each booking once.
+@Component
+public class BookingLifecycleEngine {
+
+    private final BookingRepository bookingRepository;
+    private final RoomTypeInventoryLedger inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.booking.lifecycle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.booking.lifecycle.chunk-size:500}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalNoShows = new AtomicLong();
+    private final AtomicLong totalCheckedOut = new AtomicLong();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public BookingLifecycleEngine(BookingRepository bookingRepository, RoomTypeInventoryLedger inventoryLedger,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${app.booking.lifecycle.cron:0 15 0 * * *}")
+    public void scheduledRun() {
+        if (enabled && !running.get()) {
+            run();
+        }
+    }
+
+    public Map<String, Object> run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A booking lifecycle run is already in progress");
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDate today = LocalDate.now();
+            PageRequest chunk = PageRequest.of(0, chunkSize);
+
+            Totals noShows = transition(Booking.BookingStatus.CONFIRMED, Booking.BookingStatus.NO_SHOW,
+                    afterId -> bookingRepository.findStaysCheckingInBefore(Booking.BookingStatus.CONFIRMED,
+                            today, afterId, chunk));
+            Totals checkedOut = transition(Booking.BookingStatus.CHECKED_IN, Booking.BookingStatus.CHECKED_OUT,
+                    afterId -> bookingRepository.findStaysCheckingOutBefore(Booking.BookingStatus.CHECKED_IN,
+                            today, afterId, chunk));
+
+            runs.incrementAndGet();
+            totalNoShows.addAndGet(noShows.updated);
+            totalCheckedOut.addAndGet(checkedOut.updated);
+
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("ranAt", LocalDateTime.now());
+            metrics.put("businessDate", today);
+            metrics.put("noShows", noShows.updated);
+            metrics.put("checkedOut", checkedOut.updated);
+            metrics.put("scanned", noShows.scanned + checkedOut.scanned);
+            metrics.put("chunks", noShows.chunks + checkedOut.chunks);
+            metrics.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            lastRun = metrics;
+            return metrics;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running.get());
+        stats.put("chunkSize", chunkSize);
+        stats.put("runs", runs.get());
+        stats.put("totalNoShows", totalNoShows.get());
+        stats.put("totalCheckedOut", totalCheckedOut.get());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    private Totals transition(Booking.BookingStatus from, Booking.BookingStatus to,
+            LongFunction<List<BookingStayDetail>> nextChunk) {
+        Totals totals = new Totals(0, 0, 0);
+        long afterId = 0;
+        while (true) {
+            long cursor = afterId;
+            List<BookingStayDetail> candidates = transactionTemplate.execute(status -> {
+                List<BookingStayDetail> scanned = nextChunk.apply(cursor);
+                if (!scanned.isEmpty()) {
+                    totals.updated += applyChunk(scanned, from, to);
+                }
+                return scanned;
+            });
+            if (candidates == null || candidates.isEmpty()) {
+                return totals;
+            }
+            totals.chunks++;
+            totals.scanned += candidates.size();
+            afterId = candidates.get(candidates.size() - 1).getBookingId();
+        }
+    }
+
+    private int applyChunk(List<BookingStayDetail> candidates, Booking.BookingStatus from,
+            Booking.BookingStatus to) {
+        Set<Long> locked = new HashSet<>(bookingRepository.lockIdsInStatus(
+                candidates.stream().map(BookingStayDetail::getBookingId).toList(), from.name()));
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        List<BookingStayDetail> changed = candidates.stream()
+                .filter(stay -> locked.contains(stay.getBookingId()))
+                .toList();
+        bookingRepository.updateStatuses(locked, to, LocalDateTime.now());
+
+        // Only a move out of an occupying status frees nights; the listeners apply it after the chunk commits
+        if (from.occupiesRoom() && !to.occupiesRoom()) {
+            inventoryLedger.releaseStays(changed);
+            for (BookingStayDetail stay : changed) {
+                eventPublisher.publishEvent(new BookingChangedEvent(stay.getBookingId(), stay.getRoomId(),
+                        stay.getCity(), stay.getCheckInDate(), stay.getCheckOutDate(), false));
+            }
+        }
+        return changed.size();
+    }
+
+    @AllArgsConstructor
+    private static final class Totals {
+        private int updated;
+        private int scanned;
+        private int chunks;
+    }
+}
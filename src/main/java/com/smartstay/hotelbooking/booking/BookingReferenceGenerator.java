@@ -0,0 +1,18 @@
+package com.smartstay.hotelbooking.booking;
+
+// Produces "BK" + digits booking references; the scheme is picked with app.booking.reference.scheme
+public interface BookingReferenceGenerator {
+
+    String PREFIX = "BK";
+
+    String nextReference();
+
+    // Appends value zero-padded to width digits; String.format would cost more than drawing the number
+    static StringBuilder padded(StringBuilder target, long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            target.append('0');
+        }
+        return target.append(digits);
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartstay.hotelbooking.booking;
+
+import com.smartstay.hotelbooking.model.entity.Booking;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// A booking accepted by the async pipeline; it also carries the outcome shown at its status URL
+@Getter
+public class QueuedBookingRequest {
+
+    public enum Status {
+        QUEUED, CONFIRMED, REJECTED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long userId;
+    private final String username;
+    private final Long hotelId;
+    private final Long roomId;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final int adults;
+    private final int children;
+    private final String specialRequests;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Long bookingId;
+    private volatile String bookingReference;
+    private volatile String error;
+    private volatile long completedAtMillis;
+
+    public QueuedBookingRequest(Long userId, String username, Long hotelId, Long roomId, LocalDate checkInDate,
+            LocalDate checkOutDate, int adults, int children, String specialRequests) {
+        this.userId = userId;
+        this.username = username;
+        this.hotelId = hotelId;
+        this.roomId = roomId;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.adults = adults;
+        this.children = children;
+        this.specialRequests = specialRequests;
+    }
+
+    public boolean isDone() {
+        return status != Status.QUEUED;
+    }
+
+    public void confirm(Booking booking) {
+        bookingId = booking.getId();
+        bookingReference = booking.getBookingReference();
+        complete(Status.CONFIRMED);
+    }
+
+    public void reject(String reason) {
+        error = reason;
+        complete(Status.REJECTED);
+    }
+
+    private void complete(Status outcome) {
+        completedAtMillis = System.currentTimeMillis();
+        // Written last so a reader that sees the outcome also sees its details
+        status = outcome;
+    }
+}
@@ -0,0 +1,42 @@
+package com.smartstay.hotelbooking.booking;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// "BK" + 7 random digits + a Luhn check digit, the same "BK" + 8 digits as before, and a mistyped reference can
+// be told apart offline. Needs no coordination between instances and asks the database nothing: a draw that is
+// already in use fails the unique constraint on booking_reference and the booking is retried with a fresh draw.
+// Archived references are not covered by that constraint, so prefer the sequence scheme where they must never
+// come back.
+@Component
+@ConditionalOnProperty(name = "app.booking.reference.scheme", havingValue = "random")
+public class RandomBookingReferenceGenerator implements BookingReferenceGenerator {
+
+    private static final int RANDOM_DIGITS = 7;
+    private static final int RANDOM_LIMIT = 10_000_000;
+
+    @Override
+    public String nextReference() {
+        int body = ThreadLocalRandom.current().nextInt(RANDOM_LIMIT);
+        StringBuilder reference = BookingReferenceGenerator.padded(new StringBuilder(PREFIX), body, RANDOM_DIGITS);
+        return reference.append(luhnCheckDigit(reference, PREFIX.length())).toString();
+    }
+
+    private static int luhnCheckDigit(CharSequence digits, int from) {
+        int sum = 0;
+        // Double every second digit counting from the right, starting with the rightmost payload digit
+        for (int i = digits.length() - 1, position = 0; i >= from; i--, position++) {
+            int digit = digits.charAt(i) - '0';
+            if (position % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
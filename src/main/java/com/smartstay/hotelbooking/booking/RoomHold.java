@@ -0,0 +1,27 @@
+package com.smartstay.hotelbooking.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class RoomHold {
+
+    private final String id;
+    private final Long roomId;
+    private final Long userId;
+    private final String city;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final long expiresAtMillis;
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    public boolean overlaps(LocalDate otherCheckIn, LocalDate otherCheckOut) {
+        return checkInDate.isBefore(otherCheckOut) && checkOutDate.isAfter(otherCheckIn);
+    }
+}
@@ -0,0 +1,212 @@
+package com.smartstay.hotelbooking.booking;
+
+import com.smartstay.hotelbooking.event.RoomHoldChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Short-lived room reservations kept in memory for this instance. Reads are lock-free: each room maps to an
+// immutable list that is swapped on change. A hashed timing wheel drops expired holds, so expiry costs
+// one slot per tick instead of a scan of every hold; lookups also ignore holds past their deadline.
+// Each user may keep only a bounded number of holds, so one client cannot take a hotel off sale.
+@Component
+public class RoomHoldRegistry {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final int maxPerUser;
+
+    private final Map<String, RoomHold> holdsById = new ConcurrentHashMap<>();
+    private final Map<Long, List<RoomHold>> holdsByRoom = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> holdCountByUser = new ConcurrentHashMap<>();
+
+    private final List<ConcurrentLinkedQueue<WheelEntry>> wheel;
+    private final long startMillis = System.currentTimeMillis();
+    private volatile long processedTick;
+    private final ScheduledExecutorService ticker;
+
+    public RoomHoldRegistry(ApplicationEventPublisher eventPublisher,
+            @Value("${app.booking.hold.ttl-seconds:600}") long ttlSeconds,
+            @Value("${app.booking.hold.tick-ms:1000}") long tickMillis,
+            @Value("${app.booking.hold.wheel-slots:1024}") int wheelSlots,
+            @Value("${app.booking.hold.max-per-user:5}") int maxPerUser) {
+        this.eventPublisher = eventPublisher;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.tickMillis = tickMillis;
+        this.maxPerUser = maxPerUser;
+
+        // A power of two lets the slot be picked with a mask
+        int size = Integer.highestOneBit(Math.max(wheelSlots - 1, 1)) << 1;
+        List<ConcurrentLinkedQueue<WheelEntry>> slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new ConcurrentLinkedQueue<>());
+        }
+        this.wheel = List.copyOf(slots);
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    // Places the hold unless another live hold overlaps it; the check and the insert are atomic per room.
+    // Throws once the user already has the maximum number of holds
+    public Optional<RoomHold> tryHold(Long roomId, Long userId, String city, LocalDate checkInDate,
+            LocalDate checkOutDate) {
+        reserveUserSlot(userId);
+        long now = System.currentTimeMillis();
+        RoomHold hold = new RoomHold(UUID.randomUUID().toString(), roomId, userId, city, checkInDate,
+                checkOutDate, now + ttlMillis);
+        boolean[] placed = new boolean[1];
+        holdsByRoom.compute(roomId, (id, current) -> {
+            List<RoomHold> live = new ArrayList<>();
+            if (current != null) {
+                for (RoomHold existing : current) {
+                    if (!existing.isExpired(now)) {
+                        if (existing.overlaps(checkInDate, checkOutDate)) {
+                            return current;
+                        }
+                        live.add(existing);
+                    }
+                }
+            }
+            live.add(hold);
+            placed[0] = true;
+            return List.copyOf(live);
+        });
+        if (!placed[0]) {
+            releaseUserSlot(userId);
+            return Optional.empty();
+        }
+
+        holdsById.put(hold.getId(), hold);
+        schedule(hold);
+        publish(hold);
+        return Optional.of(hold);
+    }
+
+    public Optional<RoomHold> find(String holdId) {
+        RoomHold hold = holdsById.get(holdId);
+        return hold == null || hold.isExpired(System.currentTimeMillis()) ? Optional.empty() : Optional.of(hold);
+    }
+
+    public boolean release(String holdId) {
+        RoomHold hold = holdsById.remove(holdId);
+        if (hold == null) {
+            return false;
+        }
+        holdsByRoom.computeIfPresent(hold.getRoomId(), (id, current) -> {
+            List<RoomHold> rest = current.stream().filter(h -> h != hold).toList();
+            return rest.isEmpty() ? null : rest;
+        });
+        releaseUserSlot(hold.getUserId());
+        publish(hold);
+        return true;
+    }
+
+    // Live holds on the room, optionally ignoring the given user's own holds
+    public List<RoomHold> activeHolds(Long roomId, Long exceptUserId) {
+        List<RoomHold> current = holdsByRoom.get(roomId);
+        if (current == null) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        List<RoomHold> live = new ArrayList<>(current.size());
+        for (RoomHold hold : current) {
+            if (!hold.isExpired(now) && !hold.getUserId().equals(exceptUserId)) {
+                live.add(hold);
+            }
+        }
+        return live;
+    }
+
+    public boolean isHeld(Long roomId, LocalDate checkInDate, LocalDate checkOutDate, Long exceptUserId) {
+        for (RoomHold hold : activeHolds(roomId, exceptUserId)) {
+            if (hold.overlaps(checkInDate, checkOutDate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return holdsById.size();
+    }
+
+    // The count is taken before the room is touched, so concurrent holds by one user cannot overshoot the cap
+    private void reserveUserSlot(Long userId) {
+        boolean[] reserved = new boolean[1];
+        holdCountByUser.compute(userId, (id, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxPerUser) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        if (!reserved[0]) {
+            throw new IllegalStateException("You already hold the maximum of " + maxPerUser + " rooms");
+        }
+    }
+
+    private void releaseUserSlot(Long userId) {
+        holdCountByUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void schedule(RoomHold hold) {
+        long deadlineTick = (hold.getExpiresAtMillis() - startMillis + tickMillis - 1) / tickMillis;
+        // A slot that has already been swept is only visited again a full turn later
+        deadlineTick = Math.max(deadlineTick, processedTick + 1);
+        wheel.get((int) (deadlineTick & (wheel.size() - 1))).add(new WheelEntry(hold, deadlineTick));
+    }
+
+    // Sweeps every slot between the last processed tick and now, catching up after a stalled run
+    private void advance() {
+        long currentTick = (System.currentTimeMillis() - startMillis) / tickMillis;
+        for (long tick = processedTick + 1; tick <= currentTick; tick++) {
+            Iterator<WheelEntry> entries = wheel.get((int) (tick & (wheel.size() - 1))).iterator();
+            while (entries.hasNext()) {
+                WheelEntry entry = entries.next();
+                if (entry.deadlineTick <= tick) {
+                    entries.remove();
+                    release(entry.hold.getId());
+                }
+            }
+            processedTick = tick;
+        }
+    }
+
+    private void publish(RoomHold hold) {
+        eventPublisher.publishEvent(new RoomHoldChangedEvent(hold.getRoomId(), hold.getCity(),
+                hold.getCheckInDate(), hold.getCheckOutDate()));
+    }
+
+    @RequiredArgsConstructor
+    private static final class WheelEntry {
+        private final RoomHold hold;
+        private final long deadlineTick;
+    }
+}
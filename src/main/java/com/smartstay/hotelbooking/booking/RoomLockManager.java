@@ -0,0 +1,85 @@
+package com.smartstay.hotelbooking.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Serializes booking writes per room inside this instance with a fixed pool of striped locks.
+// Locks are held until the surrounding transaction completes; the Room row lock covers other instances.
+@Component
+public class RoomLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    public RoomLockManager(@Value("${app.booking.lock-stripes:256}") int stripeCount,
+            @Value("${app.booking.lock-timeout-ms:5000}") long timeoutMillis) {
+        // A power of two lets the stripe be picked with a mask
+        int size = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void lockRoom(Long roomId) {
+        lockStripes(stripesOf(List.of(roomId)));
+    }
+
+    // Stripes are taken in ascending order, so two multi-room bookings cannot deadlock each other
+    public void lockRooms(Collection<Long> roomIds) {
+        lockStripes(stripesOf(roomIds));
+    }
+
+    private void lockStripes(TreeSet<Integer> indexes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Room locks must be taken inside a transaction");
+        }
+
+        TreeSet<Integer> held = new TreeSet<>();
+        try {
+            for (int index : indexes) {
+                if (!stripes[index].tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new IllegalStateException("Room is busy with another booking, please retry");
+                }
+                held.add(index);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unlock(held);
+            throw new IllegalStateException("Interrupted while waiting for a room lock");
+        } catch (RuntimeException e) {
+            unlock(held);
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlock(held);
+            }
+        });
+    }
+
+    private void unlock(TreeSet<Integer> held) {
+        for (int index : held.descendingSet()) {
+            stripes[index].unlock();
+        }
+    }
+
+    private TreeSet<Integer> stripesOf(Collection<Long> roomIds) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Long roomId : roomIds) {
+            indexes.add(Long.hashCode(roomId * 0x9E3779B97F4A7C15L) & (stripes.length - 1));
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,70 @@
+package com.smartstay.hotelbooking.booking;
+
+import com.smartstay.hotelbooking.repository.ArchivedBookingRepository;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// "BK" + node digit + 7-digit sequence, the same "BK" + 8 digits as before. Each running instance needs its own
+// app.booking.reference.node-id (0 suits a single instance); within an instance the counter is lock-free, so
+// references never collide. A node runs out after 10^7 references, at which point every booking fails until it
+// is given an unused node id.
+@Component
+@ConditionalOnProperty(name = "app.booking.reference.scheme", havingValue = "sequence", matchIfMissing = true)
+public class SequenceBookingReferenceGenerator implements BookingReferenceGenerator {
+
+    private static final int SEQUENCE_DIGITS = 7;
+    private static final long SEQUENCE_LIMIT = 10_000_000L;
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final String nodePrefix;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean seeded;
+
+    public SequenceBookingReferenceGenerator(BookingRepository bookingRepository,
+            ArchivedBookingRepository archivedBookingRepository,
+            @Value("${app.booking.reference.node-id:0}") String nodeId) {
+        if (!nodeId.matches("\\d")) {
+            throw new IllegalArgumentException("app.booking.reference.node-id must be a single digit that no "
+                    + "other running instance uses (or use app.booking.reference.scheme=random)");
+        }
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.nodePrefix = PREFIX + nodeId;
+    }
+
+    @Override
+    public String nextReference() {
+        if (!seeded) {
+            seed();
+        }
+        long next = sequence.getAndIncrement();
+        if (next >= SEQUENCE_LIMIT) {
+            throw new IllegalStateException("Booking reference sequence exhausted for " + nodePrefix);
+        }
+        return BookingReferenceGenerator.padded(new StringBuilder(nodePrefix), next, SEQUENCE_DIGITS).toString();
+    }
+
+    // Continues after the highest reference ever issued under this prefix. Archived bookings count too, since
+    // their rows have left the bookings table but their references must never be reissued. Seeded on first use
+    // rather than at startup so references written by seed data are seen too.
+    private synchronized void seed() {
+        if (seeded) {
+            return;
+        }
+        int length = nodePrefix.length() + SEQUENCE_DIGITS;
+        long next = Math.max(
+                following(bookingRepository.findMaxBookingReference(nodePrefix, length)),
+                following(archivedBookingRepository.findMaxBookingReference(nodePrefix, length)));
+        sequence.set(next);
+        seeded = true;
+    }
+
+    private long following(String maxReference) {
+        return maxReference == null ? 0 : Long.parseLong(maxReference.substring(nodePrefix.length())) + 1;
+    }
+}
@@ -82,6 +82,8 @@ public class DataLoader implements CommandLineRunner {
         hotel1.setCountry("USA");
         hotel1.setPostalCode("10001");
         hotel1.setStarRating(5);
+        hotel1.setLatitude(40.7506);
+        hotel1.setLongitude(-73.9971);
         hotel1.setAmenities("Pool, Spa, Gym, Restaurant, Bar, Wi-Fi, Room Service, Concierge");
         hotel1.setCheckInTime(LocalTime.of(14, 0));
         hotel1.setCheckOutTime(LocalTime.of(11, 0));
@@ -97,6 +99,8 @@ public class DataLoader implements CommandLineRunner {
         hotel2.setCountry("USA");
         hotel2.setPostalCode("60601");
         hotel2.setStarRating(3);
+        hotel2.setLatitude(41.8864);
+        hotel2.setLongitude(-87.6186);
         hotel2.setAmenities("Wi-Fi, Breakfast, Business Center, Parking");
         hotel2.setCheckInTime(LocalTime.of(15, 0));
         hotel2.setCheckOutTime(LocalTime.of(12, 0));
@@ -0,0 +1,148 @@
+package com.smartstay.hotelbooking.controller;
+
+import com.smartstay.hotelbooking.availability.AvailabilitySearchCache;
+import com.smartstay.hotelbooking.availability.RoomStayIntervalIndex;
+import com.smartstay.hotelbooking.availability.RoomTypeInventoryLedger;
+import com.smartstay.hotelbooking.booking.AsyncBookingPipeline;
+import com.smartstay.hotelbooking.booking.BookingArchiver;
+import com.smartstay.hotelbooking.booking.BookingLifecycleEngine;
+import com.smartstay.hotelbooking.payment.PaymentGatewayClient;
+import com.smartstay.hotelbooking.payment.PaymentReconciler;
+import com.smartstay.hotelbooking.revenue.DailyRevenueLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    private final AvailabilitySearchCache availabilitySearchCache;
+    private final RoomStayIntervalIndex roomStayIntervalIndex;
+    private final RoomTypeInventoryLedger roomTypeInventoryLedger;
+    private final AsyncBookingPipeline asyncBookingPipeline;
+    private final BookingLifecycleEngine bookingLifecycleEngine;
+    private final BookingArchiver bookingArchiver;
+    private final DailyRevenueLedger dailyRevenueLedger;
+    private final PaymentGatewayClient paymentGatewayClient;
+    private final PaymentReconciler paymentReconciler;
+
+    @Autowired
+    public AdminController(AvailabilitySearchCache availabilitySearchCache,
+            RoomStayIntervalIndex roomStayIntervalIndex,
+            RoomTypeInventoryLedger roomTypeInventoryLedger,
+            AsyncBookingPipeline asyncBookingPipeline,
+            BookingLifecycleEngine bookingLifecycleEngine,
+            BookingArchiver bookingArchiver,
+            DailyRevenueLedger dailyRevenueLedger,
+            PaymentGatewayClient paymentGatewayClient,
+            PaymentReconciler paymentReconciler) {
+        this.availabilitySearchCache = availabilitySearchCache;
+        this.roomStayIntervalIndex = roomStayIntervalIndex;
+        this.roomTypeInventoryLedger = roomTypeInventoryLedger;
+        this.asyncBookingPipeline = asyncBookingPipeline;
+        this.bookingLifecycleEngine = bookingLifecycleEngine;
+        this.bookingArchiver = bookingArchiver;
+        this.dailyRevenueLedger = dailyRevenueLedger;
+        this.paymentGatewayClient = paymentGatewayClient;
+        this.paymentReconciler = paymentReconciler;
+    }
+
+    @GetMapping("/availability/cache")
+    public ResponseEntity<?> getAvailabilityCacheStats() {
+        return ResponseEntity.ok(availabilitySearchCache.getStats());
+    }
+
+    @DeleteMapping("/availability/cache")
+    public ResponseEntity<?> clearAvailabilityCache() {
+        availabilitySearchCache.clear();
+        return ResponseEntity.ok(Map.of("message", "Availability search cache cleared"));
+    }
+
+    @GetMapping("/availability/consistency")
+    public ResponseEntity<?> checkStayIndexConsistency(@RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(roomStayIntervalIndex.checkConsistency(repair));
+    }
+
+    @PostMapping("/inventory/rebuild")
+    public ResponseEntity<?> rebuildRoomTypeInventory() {
+        int rows = roomTypeInventoryLedger.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Room type inventory rebuilt", "rows", rows));
+    }
+
+    @GetMapping("/bookings/pipeline")
+    public ResponseEntity<?> getBookingPipelineStats() {
+        return ResponseEntity.ok(asyncBookingPipeline.getStats());
+    }
+
+    @GetMapping("/bookings/lifecycle")
+    public ResponseEntity<?> getBookingLifecycleStats() {
+        return ResponseEntity.ok(bookingLifecycleEngine.getStats());
+    }
+
+    @PostMapping("/bookings/lifecycle/run")
+    public ResponseEntity<?> runBookingLifecycle() {
+        try {
+            return ResponseEntity.ok(bookingLifecycleEngine.run());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/bookings/archive")
+    public ResponseEntity<?> getBookingArchiveStats() {
+        return ResponseEntity.ok(bookingArchiver.getStats());
+    }
+
+    @PostMapping("/bookings/archive/run")
+    public ResponseEntity<?> runBookingArchive() {
+        try {
+            return ResponseEntity.ok(bookingArchiver.run());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/revenue")
+    public ResponseEntity<?> getDailyRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long hotelId) {
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "End date must not be before start date"));
+        }
+        return ResponseEntity.ok(dailyRevenueLedger.getRevenue(startDate, endDate, hotelId));
+    }
+
+    @PostMapping("/revenue/rebuild")
+    public ResponseEntity<?> rebuildDailyRevenue() {
+        int rows = dailyRevenueLedger.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Daily revenue rebuilt", "rows", rows));
+    }
+
+    @GetMapping("/payments/gateway")
+    public ResponseEntity<?> getPaymentGatewayStats() {
+        return ResponseEntity.ok(paymentGatewayClient.getStats());
+    }
+
+    @GetMapping("/payments/reconciliation")
+    public ResponseEntity<?> getPaymentReconciliationStats() {
+        return ResponseEntity.ok(paymentReconciler.getStats());
+    }
+
+    @PostMapping("/payments/reconciliation/run")
+    public ResponseEntity<?> runPaymentReconciliation() {
+        try {
+            return ResponseEntity.ok(paymentReconciler.run());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
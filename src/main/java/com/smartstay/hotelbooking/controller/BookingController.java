@@ -1,45 +1,83 @@
 package com.smartstay.hotelbooking.controller;
 
+import com.smartstay.hotelbooking.booking.AsyncBookingPipeline;
+import com.smartstay.hotelbooking.booking.BookingExportWriter;
+import com.smartstay.hotelbooking.booking.QueuedBookingRequest;
+import com.smartstay.hotelbooking.booking.RoomHold;
+import com.smartstay.hotelbooking.dto.request.GroupBookingRequest;
+import com.smartstay.hotelbooking.dto.response.RoomHoldResponse;
+import com.smartstay.hotelbooking.idempotency.IdempotentRequestHandler;
+import com.smartstay.hotelbooking.model.entity.ArchivedBooking;
 import com.smartstay.hotelbooking.model.entity.Booking;
 import com.smartstay.hotelbooking.model.entity.Room;
 import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.payment.PaymentGatewayException;
+import com.smartstay.hotelbooking.repository.projection.BookingSummaryView;
 import com.smartstay.hotelbooking.service.BookingService;
 import com.smartstay.hotelbooking.service.RoomService;
 import com.smartstay.hotelbooking.service.UserService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
 import java.security.Principal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingController {
 
+    private static final Set<String> BOOKING_SORT_FIELDS = Set.of("checkInDate", "checkOutDate", "createdAt",
+            "totalPrice", "bookingStatus", "bookingReference");
+
     private final BookingService bookingService;
     private final UserService userService;
     private final RoomService roomService;
+    private final IdempotentRequestHandler idempotentRequestHandler;
+    private final AsyncBookingPipeline asyncBookingPipeline;
+    private final BookingExportWriter bookingExportWriter;
+
+    @Value("${app.booking.async.enabled:true}")
+    private boolean asyncEnabled;
 
     @Autowired
-    public BookingController(BookingService bookingService, UserService userService, RoomService roomService) {
+    public BookingController(BookingService bookingService, UserService userService, RoomService roomService,
+            IdempotentRequestHandler idempotentRequestHandler, AsyncBookingPipeline asyncBookingPipeline,
+            BookingExportWriter bookingExportWriter) {
         this.bookingService = bookingService;
         this.userService = userService;
         this.roomService = roomService;
+        this.idempotentRequestHandler = idempotentRequestHandler;
+        this.asyncBookingPipeline = asyncBookingPipeline;
+        this.bookingExportWriter = bookingExportWriter;
     }
 
     @GetMapping
@@ -50,33 +88,57 @@ public class BookingController {
             @RequestParam(defaultValue = "desc") String sortDir,
             @RequestParam(required = false) String status) {
 
-        // Get current user
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String currentUsername = authentication.getName();
+        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
 
-        User currentUser = userService.findByUsername(currentUsername)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-
-        // Get user's bookings
-        Page<Booking> bookings = bookingService.findByUser(currentUser, pageable);
-
-        // Filter by status if provided
+        if (!BOOKING_SORT_FIELDS.contains(sortBy)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Cannot sort bookings by: " + sortBy));
+        }
+        Booking.BookingStatus bookingStatus = null;
         if (status != null && !status.isEmpty()) {
             try {
-                Booking.BookingStatus bookingStatus = Booking.BookingStatus.valueOf(status.toUpperCase());
-                List<Booking> filteredBookings = bookingService.findByUserIdAndStatus(currentUser.getId(),
-                        bookingStatus);
-
-                return ResponseEntity.ok(mapBookingsToResponse(filteredBookings));
+                bookingStatus = Booking.BookingStatus.valueOf(status.toUpperCase());
             } catch (IllegalArgumentException e) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Invalid booking status: " + status));
             }
         }
 
-        return ResponseEntity.ok(mapBookingsToResponse(bookings.getContent()));
+        // The id breaks ties so rows with equal sort values do not shift between pages
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy).and(Sort.by(direction, "id")));
+
+        // One query for the rows and one for the total, whatever the page size
+        Page<BookingSummaryView> bookings = bookingService.findSummariesByUsername(currentUsername, bookingStatus,
+                pageable);
+
+        List<Map<String, Object>> response = new ArrayList<>(bookings.getNumberOfElements());
+        for (BookingSummaryView booking : bookings.getContent()) {
+            response.add(mapBookingSummaryToResponse(booking));
+        }
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(bookings.getTotalElements()))
+                .body(response);
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<?> getCurrentUserBookingHistory(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        User currentUser = userService.findByUsername(currentUsername)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        Pageable pageable = PageRequest.of(page, size,
+                Sort.by(Sort.Direction.DESC, "checkOutDate").and(Sort.by(Sort.Direction.DESC, "id")));
+        Page<ArchivedBooking> archived = bookingService.findArchivedByUser(currentUser.getId(), pageable);
+
+        List<Map<String, Object>> response = new ArrayList<>(archived.getNumberOfElements());
+        for (ArchivedBooking booking : archived.getContent()) {
+            response.add(mapArchivedBookingToResponse(booking));
+        }
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(archived.getTotalElements()))
+                .body(response);
     }
 
     @GetMapping("/{id}")
@@ -101,7 +163,19 @@ public class BookingController {
     }
 
     @PostMapping
-    public ResponseEntity<?> createBooking(@RequestBody Map<String, Object> bookingRequest, Principal principal) {
+    public ResponseEntity<?> createBooking(@RequestBody Map<String, Object> bookingRequest,
+            @RequestHeader(value = IdempotentRequestHandler.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
+            Principal principal) {
+        // "Prefer: respond-async" queues the booking and answers 202 with a status URL
+        boolean async = asyncEnabled && prefer != null && prefer.contains("respond-async");
+        // A retry with the same key gets the first response back instead of booking again
+        return idempotentRequestHandler.handle(async ? "booking-async" : "booking", principal.getName(),
+                idempotencyKey, bookingRequest, () -> processBooking(bookingRequest, principal, async));
+    }
+
+    private ResponseEntity<?> processBooking(Map<String, Object> bookingRequest, Principal principal,
+            boolean async) {
         try {
             // Get current user
             User currentUser = userService.findByUsername(principal.getName())
@@ -119,18 +193,115 @@ public class BookingController {
                     ? bookingRequest.get("specialRequests").toString()
                     : "";
 
+            if (async) {
+                QueuedBookingRequest queued = asyncBookingPipeline.submit(currentUser.getId(),
+                        currentUser.getUsername(), roomId, checkInDate, checkOutDate, adults, children,
+                        specialRequests);
+                return ResponseEntity.accepted()
+                        .location(statusUri(queued))
+                        .body(mapQueuedRequestToResponse(queued));
+            }
+
             // Create booking
             Booking booking = bookingService.processBookingRequest(
                     currentUser.getId(), roomId, checkInDate, checkOutDate, adults, children, specialRequests);
 
             return new ResponseEntity<>(mapBookingToResponse(booking), HttpStatus.CREATED);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", e.getMessage()));
         } catch (EntityNotFoundException | IllegalStateException | IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    @GetMapping("/requests/{requestId}")
+    public ResponseEntity<?> getQueuedBookingStatus(@PathVariable String requestId, Principal principal) {
+        return asyncBookingPipeline.find(requestId)
+                .filter(queued -> queued.getUsername().equals(principal.getName()))
+                .<ResponseEntity<?>>map(queued -> ResponseEntity.ok(mapQueuedRequestToResponse(queued)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/group")
+    public ResponseEntity<?> createGroupBooking(@Valid @RequestBody GroupBookingRequest groupRequest,
+            @RequestHeader(value = IdempotentRequestHandler.HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+        return idempotentRequestHandler.handle("booking-group", principal.getName(), idempotencyKey, groupRequest,
+                () -> processGroupBooking(groupRequest, principal));
+    }
+
+    private ResponseEntity<?> processGroupBooking(GroupBookingRequest groupRequest, Principal principal) {
+        try {
+            User currentUser = userService.findByUsername(principal.getName())
+                    .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+            List<Booking> bookings = bookingService.processGroupBookingRequest(
+                    currentUser.getId(), groupRequest.getRooms(), groupRequest.getSpecialRequests());
+
+            return new ResponseEntity<>(mapBookingsToResponse(bookings), HttpStatus.CREATED);
+        } catch (EntityNotFoundException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<?> holdRoom(@RequestBody Map<String, Object> holdRequest, Principal principal) {
+        try {
+            User currentUser = userService.findByUsername(principal.getName())
+                    .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+            Long roomId = Long.parseLong(holdRequest.get("roomId").toString());
+            LocalDate checkInDate = LocalDate.parse(holdRequest.get("checkInDate").toString());
+            LocalDate checkOutDate = LocalDate.parse(holdRequest.get("checkOutDate").toString());
+
+            RoomHold hold = bookingService.holdRoom(currentUser.getId(), roomId, checkInDate, checkOutDate);
+
+            return new ResponseEntity<>(mapHoldToResponse(hold), HttpStatus.CREATED);
+        } catch (EntityNotFoundException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<?> confirmHold(@PathVariable String holdId,
+            @RequestBody Map<String, Object> bookingRequest, Principal principal) {
+        try {
+            User currentUser = userService.findByUsername(principal.getName())
+                    .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+            int adults = Integer.parseInt(bookingRequest.get("adults").toString());
+            int children = bookingRequest.containsKey("children")
+                    ? Integer.parseInt(bookingRequest.get("children").toString())
+                    : 0;
+            String specialRequests = bookingRequest.containsKey("specialRequests")
+                    ? bookingRequest.get("specialRequests").toString()
+                    : "";
+
+            Booking booking = bookingService.confirmHold(currentUser.getId(), holdId, adults, children,
+                    specialRequests);
+
+            return new ResponseEntity<>(mapBookingToResponse(booking), HttpStatus.CREATED);
+        } catch (EntityNotFoundException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<?> releaseHold(@PathVariable String holdId, Principal principal) {
+        User currentUser = userService.findByUsername(principal.getName())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        try {
+            bookingService.releaseHold(currentUser.getId(), holdId);
+            return ResponseEntity.noContent().build();
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PostMapping("/{id}/cancel")
-    public ResponseEntity<?> cancelBooking(@PathVariable Long id, Principal principal) {
+    public CompletableFuture<ResponseEntity<?>> cancelBooking(@PathVariable Long id, Principal principal) {
         try {
             Booking booking = bookingService.findById(id)
                     .orElseThrow(() -> new EntityNotFoundException("Booking not found with id: " + id));
@@ -144,17 +315,34 @@ public class BookingController {
                     .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
 
             if (!isAdmin && !booking.getUser().getId().equals(currentUser.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("error", "You are not authorized to cancel this booking"));
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "You are not authorized to cancel this booking")));
             }
 
-            // Cancel the booking
-            Booking cancelledBooking = bookingService.cancelBooking(id);
-
-            return ResponseEntity.ok(mapBookingToResponse(cancelledBooking));
+            // Cancel the booking, refunding it first if it was paid
+            return bookingService.cancelBooking(id)
+                    .<ResponseEntity<?>>thenApply(cancelled -> ResponseEntity.ok(mapBookingToResponse(cancelled)))
+                    .exceptionally(this::mapRefundFailure);
         } catch (EntityNotFoundException | IllegalStateException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+    }
+
+    // Same answers as a refund through the payment endpoints: busy gateway 503, unknown outcome 502
+    private ResponseEntity<?> mapRefundFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", cause.getMessage()));
+        }
+        if (cause instanceof PaymentGatewayException) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(Map.of("error", cause.getMessage()));
         }
+        if (cause instanceof EntityNotFoundException || cause instanceof IllegalStateException) {
+            return ResponseEntity.badRequest().body(Map.of("error", cause.getMessage()));
+        }
+        throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
     }
 
     @GetMapping("/reference/{reference}")
@@ -189,6 +377,41 @@ public class BookingController {
         return ResponseEntity.ok(mapBookingsToResponse(bookings));
     }
 
+    // Streams straight from a database cursor, so memory stays flat for year-long ranges of busy hotels
+    @GetMapping("/hotel/{hotelId}/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByHotel(
+            @PathVariable Long hotelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        BookingExportWriter.Format exportFormat;
+        try {
+            exportFormat = BookingExportWriter.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return exportError("Unsupported export format: " + format);
+        }
+        if (endDate.isBefore(startDate)) {
+            return exportError("End date must not be before start date");
+        }
+
+        StreamingResponseBody body = out -> bookingExportWriter.write(hotelId, startDate, endDate, exportFormat, out);
+        String filename = "bookings-hotel-" + hotelId + "-" + startDate + "-" + endDate + "."
+                + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, exportFormat.getContentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // A streaming endpoint cannot return a plain body, so errors are written through the stream instead
+    private ResponseEntity<StreamingResponseBody> exportError(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> bookingExportWriter.writeError(message, out));
+    }
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateBookingStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate) {
@@ -218,6 +441,125 @@ public class BookingController {
         return response;
     }
 
+    private URI statusUri(QueuedBookingRequest queued) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/bookings/requests/{requestId}")
+                .buildAndExpand(queued.getId())
+                .toUri();
+    }
+
+    private Map<String, Object> mapQueuedRequestToResponse(QueuedBookingRequest queued) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("requestId", queued.getId());
+        response.put("status", queued.getStatus().name());
+        response.put("statusUrl", statusUri(queued).toString());
+        response.put("bookingId", queued.getBookingId());
+        response.put("bookingReference", queued.getBookingReference());
+        response.put("error", queued.getError());
+        return response;
+    }
+
+    private RoomHoldResponse mapHoldToResponse(RoomHold hold) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(hold.getExpiresAtMillis()),
+                ZoneId.systemDefault());
+        return new RoomHoldResponse(hold.getId(), hold.getRoomId(), hold.getCheckInDate(), hold.getCheckOutDate(),
+                expiresAt);
+    }
+
+    private Map<String, Object> mapArchivedBookingToResponse(ArchivedBooking booking) {
+        Map<String, Object> bookingMap = new HashMap<>();
+        bookingMap.put("id", booking.getId());
+        bookingMap.put("bookingReference", booking.getBookingReference());
+        bookingMap.put("checkInDate", booking.getCheckInDate());
+        bookingMap.put("checkOutDate", booking.getCheckOutDate());
+        bookingMap.put("adults", booking.getAdults());
+        bookingMap.put("children", booking.getChildren());
+        bookingMap.put("totalPrice", booking.getTotalPrice());
+        bookingMap.put("status", booking.getBookingStatus().name());
+        bookingMap.put("specialRequests", booking.getSpecialRequests());
+        bookingMap.put("createdAt", booking.getCreatedAt());
+        bookingMap.put("archivedAt", booking.getArchivedAt());
+
+        Map<String, Object> roomMap = new HashMap<>();
+        roomMap.put("id", booking.getRoomId());
+        roomMap.put("roomNumber", booking.getRoomNumber());
+
+        Map<String, Object> hotelMap = new HashMap<>();
+        hotelMap.put("id", booking.getHotelId());
+        hotelMap.put("name", booking.getHotelName());
+        hotelMap.put("city", booking.getHotelCity());
+
+        roomMap.put("hotel", hotelMap);
+        bookingMap.put("room", roomMap);
+
+        if (booking.getPaymentId() != null) {
+            Map<String, Object> paymentMap = new HashMap<>();
+            paymentMap.put("id", booking.getPaymentId());
+            paymentMap.put("amount", booking.getPaymentAmount());
+            paymentMap.put("paymentMethod", booking.getPaymentMethod());
+            paymentMap.put("status", booking.getPaymentStatus().name());
+            paymentMap.put("paymentDate", booking.getPaymentDate());
+
+            bookingMap.put("payment", paymentMap);
+        }
+
+        return bookingMap;
+    }
+
+    // Same shape as mapBookingToResponse, built from the flat projection
+    private Map<String, Object> mapBookingSummaryToResponse(BookingSummaryView booking) {
+        Map<String, Object> bookingMap = new HashMap<>();
+        bookingMap.put("id", booking.getId());
+        bookingMap.put("bookingReference", booking.getBookingReference());
+        bookingMap.put("checkInDate", booking.getCheckInDate());
+        bookingMap.put("checkOutDate", booking.getCheckOutDate());
+        bookingMap.put("adults", booking.getAdults());
+        bookingMap.put("children", booking.getChildren());
+        bookingMap.put("totalPrice", booking.getTotalPrice());
+        bookingMap.put("status", booking.getBookingStatus().name());
+        bookingMap.put("specialRequests", booking.getSpecialRequests());
+        bookingMap.put("createdAt", booking.getCreatedAt());
+
+        Map<String, Object> roomMap = new HashMap<>();
+        roomMap.put("id", booking.getRoomId());
+        roomMap.put("roomNumber", booking.getRoomNumber());
+        roomMap.put("roomType", booking.getRoomTypeName());
+        roomMap.put("pricePerNight", booking.getPricePerNight());
+
+        Map<String, Object> hotelMap = new HashMap<>();
+        hotelMap.put("id", booking.getHotelId());
+        hotelMap.put("name", booking.getHotelName());
+        hotelMap.put("address", booking.getHotelAddress());
+        hotelMap.put("city", booking.getHotelCity());
+        hotelMap.put("country", booking.getHotelCountry());
+
+        roomMap.put("hotel", hotelMap);
+        bookingMap.put("room", roomMap);
+
+        if (booking.getPaymentId() != null) {
+            Map<String, Object> paymentMap = new HashMap<>();
+            paymentMap.put("id", booking.getPaymentId());
+            paymentMap.put("amount", booking.getPaymentAmount());
+            paymentMap.put("paymentMethod", booking.getPaymentMethod());
+            paymentMap.put("status", booking.getPaymentStatus().name());
+            paymentMap.put("paymentDate", booking.getPaymentDate());
+
+            bookingMap.put("payment", paymentMap);
+        }
+
+        if (booking.getReviewId() != null) {
+            Map<String, Object> reviewMap = new HashMap<>();
+            reviewMap.put("id", booking.getReviewId());
+            reviewMap.put("rating", booking.getReviewRating());
+            reviewMap.put("comment", booking.getReviewComment());
+            reviewMap.put("datePosted", booking.getReviewDatePosted());
+
+            bookingMap.put("review", reviewMap);
+        }
+
+        return bookingMap;
+    }
+
     private Map<String, Object> mapBookingToResponse(Booking booking) {
         Map<String, Object> bookingMap = new HashMap<>();
         bookingMap.put("id", booking.getId());
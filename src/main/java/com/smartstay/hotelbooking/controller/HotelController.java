@@ -1,13 +1,17 @@
 package com.smartstay.hotelbooking.controller;
 
+import com.smartstay.hotelbooking.dto.response.NearbyHotelResponse;
+import com.smartstay.hotelbooking.dto.response.RoomTypeInventoryResponse;
 import com.smartstay.hotelbooking.model.entity.Hotel;
 import com.smartstay.hotelbooking.model.entity.Review;
 import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.service.AvailabilityService;
 import com.smartstay.hotelbooking.service.HotelService;
 import com.smartstay.hotelbooking.service.ReviewService;
 import com.smartstay.hotelbooking.service.RoomService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -15,8 +19,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,12 +35,27 @@ public class HotelController {
     private final HotelService hotelService;
     private final RoomService roomService;
     private final ReviewService reviewService;
+    private final AvailabilityService availabilityService;
+
+    @Value("${app.geo.max-radius-km:200}")
+    private double geoMaxRadiusKm;
+
+    @Value("${app.geo.max-results:100}")
+    private int geoMaxResults;
+
+    @Value("${app.availability.calendar.default-days:30}")
+    private int inventoryDefaultDays;
+
+    @Value("${app.availability.calendar.max-days:365}")
+    private int inventoryMaxDays;
 
     @Autowired
-    public HotelController(HotelService hotelService, RoomService roomService, ReviewService reviewService) {
+    public HotelController(HotelService hotelService, RoomService roomService, ReviewService reviewService,
+            AvailabilityService availabilityService) {
         this.hotelService = hotelService;
         this.roomService = roomService;
         this.reviewService = reviewService;
+        this.availabilityService = availabilityService;
     }
 
     @GetMapping
@@ -44,6 +65,8 @@ public class HotelController {
             @RequestParam(required = false) String city,
             @RequestParam(required = false) String country,
             @RequestParam(required = false) Integer starRating,
+            @RequestParam(required = false) String amenities,
+            @RequestParam(required = false) String q,
             @RequestParam(defaultValue = "name") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir) {
 
@@ -52,7 +75,14 @@ public class HotelController {
 
         Page<Hotel> hotels;
 
-        if (city != null && !city.isEmpty()) {
+        if (q != null && !q.isBlank()) {
+            // Full-text search is ordered by relevance; the other filters narrow it
+            hotels = hotelService.searchByText(q, amenities, city, country, starRating,
+                    PageRequest.of(page, size));
+        } else if (amenities != null && !amenities.isEmpty()) {
+            // Amenities are matched on the stored mask; city, country and star rating (as a minimum) narrow it
+            hotels = hotelService.findByAmenities(amenities, city, country, starRating, pageable);
+        } else if (city != null && !city.isEmpty()) {
             if (starRating != null) {
                 hotels = hotelService.findByCityAndMinimumRating(city, starRating, pageable);
             } else {
@@ -69,6 +99,64 @@ public class HotelController {
         return ResponseEntity.ok(hotels);
     }
 
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getNearbyHotels(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOutDate,
+            @RequestParam(defaultValue = "1") int adults,
+            @RequestParam(defaultValue = "0") int children,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        if (!isLatitude(latitude) || !isLongitude(longitude)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Coordinates are out of range"));
+        }
+        if (radiusKm <= 0 || radiusKm > geoMaxRadiusKm) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Radius must be greater than 0 and at most " + geoMaxRadiusKm + " km"));
+        }
+        ResponseEntity<?> invalid = validateGeoSearch(checkInDate, checkOutDate, limit);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        List<NearbyHotelResponse> hotels = hotelService.findNearby(latitude, longitude, radiusKm,
+                checkInDate, checkOutDate, adults + children, limit);
+        return ResponseEntity.ok(Map.of("content", hotels, "numberOfElements", hotels.size()));
+    }
+
+    @GetMapping("/within-bounds")
+    public ResponseEntity<?> getHotelsWithinBounds(
+            @RequestParam double minLatitude,
+            @RequestParam double minLongitude,
+            @RequestParam double maxLatitude,
+            @RequestParam double maxLongitude,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOutDate,
+            @RequestParam(defaultValue = "1") int adults,
+            @RequestParam(defaultValue = "0") int children,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        if (!isLatitude(minLatitude) || !isLatitude(maxLatitude)
+                || !isLongitude(minLongitude) || !isLongitude(maxLongitude)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Coordinates are out of range"));
+        }
+        if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Minimum coordinates must not exceed maximum coordinates"));
+        }
+        ResponseEntity<?> invalid = validateGeoSearch(checkInDate, checkOutDate, limit);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        List<NearbyHotelResponse> hotels = hotelService.findWithinBounds(minLatitude, minLongitude,
+                maxLatitude, maxLongitude, checkInDate, checkOutDate, adults + children, limit);
+        return ResponseEntity.ok(Map.of("content", hotels, "numberOfElements", hotels.size()));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getHotelById(@PathVariable Long id) {
         Hotel hotel = hotelService.findById(id)
@@ -87,6 +175,8 @@ public class HotelController {
         response.put("country", hotel.getCountry());
         response.put("postalCode", hotel.getPostalCode());
         response.put("starRating", hotel.getStarRating());
+        response.put("latitude", hotel.getLatitude());
+        response.put("longitude", hotel.getLongitude());
         response.put("amenities", hotel.getAmenities());
         response.put("checkInTime", hotel.getCheckInTime());
         response.put("checkOutTime", hotel.getCheckOutTime());
@@ -121,6 +211,34 @@ public class HotelController {
         return ResponseEntity.ok(rooms);
     }
 
+    @GetMapping("/{id}/inventory")
+    public ResponseEntity<?> getRoomTypeInventory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) Integer days) {
+
+        hotelService.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Hotel not found with id: " + id));
+
+        LocalDate start = startDate != null ? startDate : LocalDate.now();
+        int horizon = days != null ? days : inventoryDefaultDays;
+        if (horizon < 1 || horizon > inventoryMaxDays) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Days must be between 1 and " + inventoryMaxDays));
+        }
+
+        // Rooms left per room type and night, read from the inventory ledger
+        List<RoomTypeInventoryResponse> inventory = availabilityService.getRoomTypeInventory(id, start, horizon);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("hotelId", id);
+        response.put("startDate", start);
+        response.put("days", horizon);
+        response.put("roomTypes", inventory);
+
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}/reviews")
     public ResponseEntity<?> getHotelReviews(
             @PathVariable Long id,
@@ -188,6 +306,8 @@ public class HotelController {
         hotel.setCountry(hotelDetails.getCountry());
         hotel.setPostalCode(hotelDetails.getPostalCode());
         hotel.setStarRating(hotelDetails.getStarRating());
+        hotel.setLatitude(hotelDetails.getLatitude());
+        hotel.setLongitude(hotelDetails.getLongitude());
         hotel.setAmenities(hotelDetails.getAmenities());
         hotel.setCheckInTime(hotelDetails.getCheckInTime());
         hotel.setCheckOutTime(hotelDetails.getCheckOutTime());
@@ -207,4 +327,34 @@ public class HotelController {
 
         return ResponseEntity.ok(Map.of("message", "Hotel deleted successfully"));
     }
-}
\ No newline at end of file
+
+    // Stay dates are optional but go together; with them only hotels with a free room are returned
+    private ResponseEntity<?> validateGeoSearch(LocalDate checkInDate, LocalDate checkOutDate, int limit) {
+        if ((checkInDate == null) != (checkOutDate == null)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Check-in and check-out dates must be given together"));
+        }
+        if (checkInDate != null) {
+            if (checkInDate.isBefore(LocalDate.now())) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Check-in date cannot be in the past"));
+            }
+            if (!checkOutDate.isAfter(checkInDate)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Check-out date must be after check-in date"));
+            }
+        }
+        if (limit < 1 || limit > geoMaxResults) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Limit must be between 1 and " + geoMaxResults));
+        }
+        return null;
+    }
+
+    private static boolean isLatitude(double value) {
+        return value >= -90 && value <= 90;
+    }
+
+    private static boolean isLongitude(double value) {
+        return value >= -180 && value <= 180;
+    }
+}
@@ -1,13 +1,25 @@
 package com.smartstay.hotelbooking.controller;
 
+import com.smartstay.hotelbooking.idempotency.IdempotentRequestHandler;
 import com.smartstay.hotelbooking.model.entity.Booking;
 import com.smartstay.hotelbooking.model.entity.Payment;
 import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.payment.PaymentGatewayException;
+import com.smartstay.hotelbooking.repository.projection.PaymentDailyTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentHotelTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentMethodTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentReportLine;
+import com.smartstay.hotelbooking.repository.projection.PaymentTotal;
 import com.smartstay.hotelbooking.service.BookingService;
 import com.smartstay.hotelbooking.service.PaymentService;
 import com.smartstay.hotelbooking.service.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,10 +29,13 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -29,12 +44,15 @@ public class PaymentController {
     private final PaymentService paymentService;
     private final BookingService bookingService;
     private final UserService userService;
+    private final IdempotentRequestHandler idempotentRequestHandler;
 
     @Autowired
-    public PaymentController(PaymentService paymentService, BookingService bookingService, UserService userService) {
+    public PaymentController(PaymentService paymentService, BookingService bookingService, UserService userService,
+            IdempotentRequestHandler idempotentRequestHandler) {
         this.paymentService = paymentService;
         this.bookingService = bookingService;
         this.userService = userService;
+        this.idempotentRequestHandler = idempotentRequestHandler;
     }
 
     @GetMapping("/{id}")
@@ -80,8 +98,17 @@ public class PaymentController {
         return ResponseEntity.ok(mapPaymentToResponse(payment));
     }
 
+    // Answers asynchronously: the request thread is released while the gateway is called
     @PostMapping("/process")
-    public ResponseEntity<?> processPayment(@RequestBody Map<String, Object> paymentRequest) {
+    public CompletableFuture<ResponseEntity<?>> processPayment(@RequestBody Map<String, Object> paymentRequest,
+            @RequestHeader(value = IdempotentRequestHandler.HEADER, required = false) String idempotencyKey) {
+        // A retry with the same key gets the first response back instead of charging again
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return idempotentRequestHandler.handleAsync("payment", username, idempotencyKey, paymentRequest,
+                () -> doProcessPayment(paymentRequest));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> doProcessPayment(Map<String, Object> paymentRequest) {
         try {
             // Extract booking ID
             Long bookingId = Long.parseLong(paymentRequest.get("bookingId").toString());
@@ -96,8 +123,8 @@ public class PaymentController {
                     .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
 
             if (!isAdmin && !booking.getUser().getUsername().equals(currentUsername)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("error", "You are not authorized to process payment for this booking"));
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "You are not authorized to process payment for this booking")));
             }
 
             // Extract payment details
@@ -115,26 +142,45 @@ public class PaymentController {
             String cvv = paymentRequest.containsKey("cvv") ? paymentRequest.get("cvv").toString() : null;
 
             // Process payment
-            Payment payment = paymentService.processPayment(
-                    bookingId, paymentMethod, cardNumber, cardHolderName, expiryMonth, expiryYear, cvv);
-
-            return ResponseEntity.ok(mapPaymentToResponse(payment));
+            return paymentService.processPayment(
+                    bookingId, paymentMethod, cardNumber, cardHolderName, expiryMonth, expiryYear, cvv)
+                    .<ResponseEntity<?>>thenApply(payment -> ResponseEntity.ok(mapPaymentToResponse(payment)))
+                    .exceptionally(this::mapGatewayFailure);
         } catch (NumberFormatException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Invalid booking ID format"));
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "Invalid booking ID format")));
         } catch (EntityNotFoundException | IllegalStateException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         }
     }
 
     @PostMapping("/{id}/refund")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> refundPayment(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<?>> refundPayment(@PathVariable Long id) {
         try {
-            Payment payment = paymentService.refundPayment(id);
-            return ResponseEntity.ok(mapPaymentToResponse(payment));
+            return paymentService.refundPayment(id)
+                    .<ResponseEntity<?>>thenApply(payment -> ResponseEntity.ok(mapPaymentToResponse(payment)))
+                    .exceptionally(this::mapGatewayFailure);
         } catch (EntityNotFoundException | IllegalStateException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+    }
+
+    // Busy or unreachable gateways are server-side failures, so the idempotency layer lets the client retry
+    private ResponseEntity<?> mapGatewayFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", cause.getMessage()));
+        }
+        if (cause instanceof PaymentGatewayException) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(Map.of("error", cause.getMessage()));
+        }
+        if (cause instanceof EntityNotFoundException || cause instanceof IllegalStateException) {
+            return ResponseEntity.badRequest().body(Map.of("error", cause.getMessage()));
         }
+        throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
     }
 
     @GetMapping("/admin/report")
@@ -142,7 +188,10 @@ public class PaymentController {
     public ResponseEntity<?> getPaymentReport(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "false") boolean includePayments,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
 
         // Default to searching for completed payments in the last 30 days
         Payment.PaymentStatus paymentStatus = status != null ? Payment.PaymentStatus.valueOf(status.toUpperCase())
@@ -154,29 +203,97 @@ public class PaymentController {
 
         LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate, formatter) : LocalDateTime.now();
 
-        List<Payment> payments = paymentService.findByStatusAndDateRange(paymentStatus, start, end);
-
-        // Transform to response format
-        List<Map<String, Object>> paymentList = payments.stream()
-                .map(this::mapPaymentToResponse)
-                .collect(Collectors.toList());
-
-        // Calculate totals
-        double totalAmount = payments.stream()
-                .mapToDouble(p -> p.getAmount().doubleValue())
-                .sum();
+        // Totals and breakdowns are summed by the database; only the group rows come back
+        PaymentTotal totals = paymentService.sumByStatusAndDateRange(paymentStatus, start, end);
 
         Map<String, Object> response = new HashMap<>();
         response.put("startDate", start);
         response.put("endDate", end);
         response.put("status", paymentStatus.name());
-        response.put("totalPayments", payments.size());
-        response.put("totalAmount", totalAmount);
-        response.put("payments", paymentList);
+        response.put("totalPayments", totals.getPaymentCount());
+        response.put("totalAmount", totals.getTotalAmount());
+
+        List<Map<String, Object>> byDay = new ArrayList<>();
+        for (PaymentDailyTotal total : paymentService.sumByDay(paymentStatus, start, end)) {
+            Map<String, Object> dayMap = mapPaymentTotal(total);
+            dayMap.put("day", total.getDay());
+            byDay.add(dayMap);
+        }
+        response.put("byDay", byDay);
+
+        List<Map<String, Object>> byMethod = new ArrayList<>();
+        for (PaymentMethodTotal total : paymentService.sumByPaymentMethod(paymentStatus, start, end)) {
+            Map<String, Object> methodMap = mapPaymentTotal(total);
+            methodMap.put("paymentMethod", total.getPaymentMethod());
+            byMethod.add(methodMap);
+        }
+        response.put("byPaymentMethod", byMethod);
+
+        List<Map<String, Object>> byHotel = new ArrayList<>();
+        for (PaymentHotelTotal total : paymentService.sumByHotel(paymentStatus, start, end)) {
+            Map<String, Object> hotelMap = mapPaymentTotal(total);
+            hotelMap.put("hotelId", total.getHotelId());
+            hotelMap.put("hotelName", total.getHotelName());
+            byHotel.add(hotelMap);
+        }
+        response.put("byHotel", byHotel);
+
+        // The individual payments are opt-in and paged
+        if (includePayments) {
+            Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "paymentDate")
+                    .and(Sort.by(Sort.Direction.DESC, "id")));
+            Page<PaymentReportLine> lines = paymentService.findReportLines(paymentStatus, start, end, pageable);
+
+            List<Map<String, Object>> paymentList = new ArrayList<>(lines.getNumberOfElements());
+            for (PaymentReportLine line : lines.getContent()) {
+                paymentList.add(mapReportLineToResponse(line));
+            }
+            response.put("payments", paymentList);
+            response.put("page", lines.getNumber());
+            response.put("size", lines.getSize());
+            response.put("totalPages", lines.getTotalPages());
+        }
 
         return ResponseEntity.ok(response);
     }
 
+    private Map<String, Object> mapPaymentTotal(PaymentTotal total) {
+        Map<String, Object> totalMap = new HashMap<>();
+        totalMap.put("totalPayments", total.getPaymentCount());
+        totalMap.put("totalAmount", total.getTotalAmount());
+        return totalMap;
+    }
+
+    // Same shape as mapPaymentToResponse, built from the flat projection
+    private Map<String, Object> mapReportLineToResponse(PaymentReportLine line) {
+        Map<String, Object> paymentMap = new HashMap<>();
+        paymentMap.put("id", line.getId());
+        paymentMap.put("amount", line.getAmount());
+        paymentMap.put("paymentMethod", line.getPaymentMethod());
+        paymentMap.put("transactionId", line.getTransactionId());
+        paymentMap.put("status", line.getPaymentStatus().name());
+        paymentMap.put("paymentDate", line.getPaymentDate());
+        paymentMap.put("cardLastDigits", line.getCardLastDigits());
+        paymentMap.put("createdAt", line.getCreatedAt());
+
+        Map<String, Object> bookingMap = new HashMap<>();
+        bookingMap.put("id", line.getBookingId());
+        bookingMap.put("bookingReference", line.getBookingReference());
+        bookingMap.put("status", line.getBookingStatus().name());
+        bookingMap.put("checkInDate", line.getCheckInDate());
+        bookingMap.put("checkOutDate", line.getCheckOutDate());
+
+        Map<String, Object> userMap = new HashMap<>();
+        userMap.put("id", line.getUserId());
+        userMap.put("fullName", line.getFirstName() + " " + line.getLastName());
+        userMap.put("email", line.getEmail());
+
+        bookingMap.put("user", userMap);
+        paymentMap.put("booking", bookingMap);
+
+        return paymentMap;
+    }
+
     // Helper method
     private Map<String, Object> mapPaymentToResponse(Payment payment) {
         Map<String, Object> paymentMap = new HashMap<>();
@@ -1,14 +1,20 @@
 package com.smartstay.hotelbooking.controller;
 
+import com.smartstay.hotelbooking.dto.response.AvailabilityCalendarDay;
+import com.smartstay.hotelbooking.dto.response.AvailableRoomPage;
+import com.smartstay.hotelbooking.dto.response.AvailableRoomResponse;
+import com.smartstay.hotelbooking.dto.response.FlexibleRoomResponse;
 import com.smartstay.hotelbooking.model.entity.Hotel;
 import com.smartstay.hotelbooking.model.entity.Room;
 import com.smartstay.hotelbooking.model.entity.RoomType;
-import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.service.AmenityService;
+import com.smartstay.hotelbooking.service.AvailabilityService;
 import com.smartstay.hotelbooking.service.HotelService;
 import com.smartstay.hotelbooking.service.RoomService;
 import com.smartstay.hotelbooking.service.RoomTypeService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,11 +23,11 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/rooms")
@@ -30,17 +36,35 @@ public class RoomController {
     private final RoomService roomService;
     private final HotelService hotelService;
     private final RoomTypeService roomTypeService;
-    private final BookingRepository bookingRepository;
+    private final AvailabilityService availabilityService;
+    private final AmenityService amenityService;
+
+    @Value("${app.availability.search.max-page-size:100}")
+    private int searchMaxPageSize;
+
+    @Value("${app.availability.flexible.max-window-days:31}")
+    private int flexibleMaxWindowDays;
+
+    @Value("${app.availability.calendar.default-days:30}")
+    private int calendarDefaultDays;
+
+    @Value("${app.availability.calendar.max-days:365}")
+    private int calendarMaxDays;
+
+    @Value("${app.availability.calendar.max-rooms:200}")
+    private int calendarMaxRooms;
 
     @Autowired
     public RoomController(RoomService roomService,
             HotelService hotelService,
             RoomTypeService roomTypeService,
-            BookingRepository bookingRepository) {
+            AvailabilityService availabilityService,
+            AmenityService amenityService) {
         this.roomService = roomService;
         this.hotelService = hotelService;
         this.roomTypeService = roomTypeService;
-        this.bookingRepository = bookingRepository;
+        this.availabilityService = availabilityService;
+        this.amenityService = amenityService;
     }
 
     @GetMapping("/available")
@@ -50,84 +74,144 @@ public class RoomController {
             @RequestParam(required = false) String city,
             @RequestParam(defaultValue = "1") int adults,
             @RequestParam(defaultValue = "0") int children,
-            @RequestParam(required = false) String roomType) {
+            @RequestParam(required = false) String roomType,
+            @RequestParam(required = false) String amenities,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
 
         // Basic validation
         if (checkInDate.isBefore(LocalDate.now())) {
             return ResponseEntity.badRequest().body(Map.of("error", "Check-in date cannot be in the past"));
         }
-        if (checkOutDate.isBefore(checkInDate)) {
+        if (!checkOutDate.isAfter(checkInDate)) {
             return ResponseEntity.badRequest().body(Map.of("error", "Check-out date must be after check-in date"));
         }
+        if (size < 1 || size > searchMaxPageSize) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Page size must be between 1 and " + searchMaxPageSize));
+        }
 
-        List<Map<String, Object>> availableRoomsResponse = new ArrayList<>();
+        AvailableRoomPage page;
+        try {
+            page = availabilityService.searchAvailableRooms(
+                    city, checkInDate, checkOutDate, adults + children, roomType, amenities, cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        // Keyset pagination: the page is ordered by price, hotel and room, and nextCursor resumes after it
+        Map<String, Object> pageInfo = new HashMap<>();
+        pageInfo.put("pageSize", size);
+        pageInfo.put("numberOfElements", page.getContent().size());
+        pageInfo.put("hasNext", page.getNextCursor() != null);
+        pageInfo.put("nextCursor", page.getNextCursor());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", page.getContent());
+        response.put("pageable", pageInfo);
+
+        return ResponseEntity.ok(response);
+    }
 
-        // Filter hotels by city if provided
-        List<Hotel> hotels;
-        if (city != null && !city.isEmpty()) {
-            hotels = hotelService.findByCity(city, null).getContent();
-        } else {
-            hotels = hotelService.findAllActiveHotels();
+    @GetMapping("/available/cheapest")
+    public ResponseEntity<?> getCheapestAvailableRooms(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOutDate,
+            @RequestParam(required = false) String city,
+            @RequestParam(defaultValue = "1") int adults,
+            @RequestParam(defaultValue = "0") int children,
+            @RequestParam(required = false) String roomType,
+            @RequestParam(required = false) String amenities,
+            @RequestParam(defaultValue = "20") int k) {
+
+        if (checkInDate.isBefore(LocalDate.now())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Check-in date cannot be in the past"));
+        }
+        if (!checkOutDate.isAfter(checkInDate)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Check-out date must be after check-in date"));
+        }
+        if (k < 1 || k > searchMaxPageSize) {
+            return ResponseEntity.badRequest().body(Map.of("error", "k must be between 1 and " + searchMaxPageSize));
         }
 
-        // For each hotel, find available rooms
-        for (Hotel hotel : hotels) {
-            List<Room> availableRooms = roomService.findAvailableRooms(
-                    hotel.getId(), checkInDate, checkOutDate);
-
-            // Filter by capacity
-            int totalGuests = adults + children;
-            availableRooms = availableRooms.stream()
-                    .filter(room -> room.getCapacity() >= totalGuests)
-                    .collect(Collectors.toList());
-
-            // Filter by room type if provided
-            if (roomType != null && !roomType.isEmpty()) {
-                availableRooms = availableRooms.stream()
-                        .filter(room -> room.getRoomType().getName().equalsIgnoreCase(roomType))
-                        .collect(Collectors.toList());
-            }
+        // The k rooms with the lowest total stay price, cheapest first
+        List<AvailableRoomResponse> rooms = availabilityService.findCheapestRooms(
+                city, checkInDate, checkOutDate, adults + children, roomType, amenities, k);
 
-            // Add filtered rooms to response
-            for (Room room : availableRooms) {
-                Map<String, Object> roomMap = new HashMap<>();
-                roomMap.put("roomId", room.getId());
-                roomMap.put("hotelId", hotel.getId());
-                roomMap.put("hotelName", hotel.getName());
-                roomMap.put("hotelCity", hotel.getCity());
-                roomMap.put("roomNumber", room.getRoomNumber());
-                roomMap.put("roomType", room.getRoomType().getName());
-                roomMap.put("pricePerNight", room.getPricePerNight());
-
-                // Calculate total price for the stay
-                long nights = checkInDate.until(checkOutDate).getDays();
-                BigDecimal totalPrice = room.getPricePerNight().multiply(BigDecimal.valueOf(nights));
-                roomMap.put("totalPrice", totalPrice);
-
-                roomMap.put("capacity", room.getCapacity());
-                roomMap.put("description", room.getDescription());
-
-                // Parse amenities
-                String amenitiesString = room.getRoomType().getAmenities();
-                List<String> amenitiesList = new ArrayList<>();
-                if (amenitiesString != null && !amenitiesString.isEmpty()) {
-                    for (String amenity : amenitiesString.split(",")) {
-                        amenitiesList.add(amenity.trim());
-                    }
-                }
-                roomMap.put("amenities", amenitiesList);
-
-                availableRoomsResponse.add(roomMap);
-            }
+        Map<String, Object> response = new HashMap<>();
+        response.put("k", k);
+        response.put("content", rooms);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/available/flexible")
+    public ResponseEntity<?> getFlexibleAvailableRooms(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate windowStart,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate windowEnd,
+            @RequestParam int nights,
+            @RequestParam(required = false) String city,
+            @RequestParam(defaultValue = "1") int adults,
+            @RequestParam(defaultValue = "0") int children,
+            @RequestParam(required = false) String roomType,
+            @RequestParam(required = false) String amenities,
+            @RequestParam(defaultValue = "20") int size) {
+
+        // The window spans the earliest check-in to the latest check-out
+        if (windowStart.isBefore(LocalDate.now())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Window start cannot be in the past"));
         }
+        long windowDays = ChronoUnit.DAYS.between(windowStart, windowEnd);
+        if (windowDays < 1 || windowDays > flexibleMaxWindowDays) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Window must span between 1 and " + flexibleMaxWindowDays + " days"));
+        }
+        if (nights < 1 || nights > windowDays) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Nights must be between 1 and the window length"));
+        }
+        if (size < 1 || size > searchMaxPageSize) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Page size must be between 1 and " + searchMaxPageSize));
+        }
+
+        List<FlexibleRoomResponse> rooms = availabilityService.searchFlexibleStays(
+                city, windowStart, windowEnd, nights, adults + children, roomType, amenities, size);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("content", availableRoomsResponse);
-        response.put("pageable", Map.of(
-                "pageNumber", 0,
-                "pageSize", availableRoomsResponse.size(),
-                "totalPages", 1,
-                "totalElements", availableRoomsResponse.size()));
+        response.put("windowStart", windowStart);
+        response.put("windowEnd", windowEnd);
+        response.put("nights", nights);
+        response.put("content", rooms);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/calendar")
+    public ResponseEntity<?> getAvailabilityCalendars(
+            @RequestParam List<Long> roomIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) Integer days) {
+
+        LocalDate start = startDate != null ? startDate : LocalDate.now();
+        int horizon = days != null ? days : calendarDefaultDays;
+
+        if (roomIds.isEmpty() || roomIds.size() > calendarMaxRooms) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Between 1 and " + calendarMaxRooms + " room ids are required"));
+        }
+        if (horizon < 1 || horizon > calendarMaxDays) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Days must be between 1 and " + calendarMaxDays));
+        }
+
+        Map<Long, List<AvailabilityCalendarDay>> calendars = availabilityService.getAvailabilityCalendars(
+                new LinkedHashSet<>(roomIds), start, horizon);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("startDate", start);
+        response.put("days", horizon);
+        response.put("calendars", calendars);
 
         return ResponseEntity.ok(response);
     }
@@ -162,34 +246,15 @@ public class RoomController {
         roomTypeMap.put("baseCapacity", room.getRoomType().getBaseCapacity());
         roomTypeMap.put("maxCapacity", room.getRoomType().getMaxCapacity());
 
-        // Parse amenities
-        String amenitiesString = room.getRoomType().getAmenities();
-        List<String> amenitiesList = new ArrayList<>();
-        if (amenitiesString != null && !amenitiesString.isEmpty()) {
-            for (String amenity : amenitiesString.split(",")) {
-                amenitiesList.add(amenity.trim());
-            }
-        }
-        roomTypeMap.put("amenities", amenitiesList);
+        // Amenity names come from the dictionary, already parsed
+        roomTypeMap.put("amenities", amenityService.getNames(room.getRoomType().getAmenityMask()));
 
         response.put("roomType", roomTypeMap);
 
-        // Generate availability calendar for next 30 days
-        List<Map<String, Object>> availabilityCalendar = new ArrayList<>();
-        LocalDate today = LocalDate.now();
-
-        for (int i = 0; i < 30; i++) {
-            LocalDate date = today.plusDays(i);
-            boolean available = !bookingRepository.isRoomBookedInDateRange(
-                    room.getId(), date, date.plusDays(1));
-
-            Map<String, Object> dateAvailability = new HashMap<>();
-            dateAvailability.put("date", date);
-            dateAvailability.put("available", available);
-            dateAvailability.put("price", available ? room.getPricePerNight() : null);
-
-            availabilityCalendar.add(dateAvailability);
-        }
+        // Availability calendar for the default horizon, answered with a single bookings query
+        List<AvailabilityCalendarDay> availabilityCalendar = availabilityService
+                .getAvailabilityCalendars(List.of(room.getId()), LocalDate.now(), calendarDefaultDays)
+                .getOrDefault(room.getId(), List.of());
 
         response.put("availabilityCalendar", availabilityCalendar);
 
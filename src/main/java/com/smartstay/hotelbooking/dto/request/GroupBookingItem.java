@@ -0,0 +1,30 @@
+package com.smartstay.hotelbooking.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupBookingItem {
+
+    @NotNull(message = "Room id is required")
+    private Long roomId;
+
+    @NotNull(message = "Check-in date is required")
+    private LocalDate checkInDate;
+
+    @NotNull(message = "Check-out date is required")
+    private LocalDate checkOutDate;
+
+    @Min(value = 1, message = "At least one adult is required")
+    private int adults;
+
+    @Min(value = 0, message = "Children cannot be negative")
+    private int children;
+}
@@ -0,0 +1,21 @@
+package com.smartstay.hotelbooking.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupBookingRequest {
+
+    @NotEmpty(message = "At least one room is required")
+    @Valid
+    private List<GroupBookingItem> rooms;
+
+    private String specialRequests;
+}
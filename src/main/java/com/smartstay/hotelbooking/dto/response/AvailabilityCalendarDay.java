@@ -0,0 +1,18 @@
+package com.smartstay.hotelbooking.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailabilityCalendarDay {
+
+    private LocalDate date;
+    private boolean available;
+    private BigDecimal price;
+}
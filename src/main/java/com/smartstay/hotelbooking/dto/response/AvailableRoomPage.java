@@ -0,0 +1,18 @@
+package com.smartstay.hotelbooking.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailableRoomPage {
+
+    private List<AvailableRoomResponse> content;
+
+    // Opaque token for the following page, null on the last page
+    private String nextCursor;
+}
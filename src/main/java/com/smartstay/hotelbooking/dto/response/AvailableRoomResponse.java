@@ -0,0 +1,26 @@
+package com.smartstay.hotelbooking.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailableRoomResponse {
+
+    private Long roomId;
+    private Long hotelId;
+    private String hotelName;
+    private String hotelCity;
+    private String roomNumber;
+    private String roomType;
+    private BigDecimal pricePerNight;
+    private BigDecimal totalPrice;
+    private Integer capacity;
+    private String description;
+    private List<String> amenities;
+}
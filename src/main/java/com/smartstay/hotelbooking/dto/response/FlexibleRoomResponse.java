@@ -0,0 +1,28 @@
+package com.smartstay.hotelbooking.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FlexibleRoomResponse {
+
+    private Long roomId;
+    private Long hotelId;
+    private String hotelName;
+    private String hotelCity;
+    private String roomNumber;
+    private String roomType;
+    private BigDecimal pricePerNight;
+    private Integer capacity;
+    private String description;
+    private List<String> amenities;
+
+    // Every check-in date within the window for which the whole stay is free
+    private List<StayOption> options;
+}
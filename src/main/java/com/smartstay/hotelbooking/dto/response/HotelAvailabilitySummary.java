@@ -0,0 +1,17 @@
+package com.smartstay.hotelbooking.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HotelAvailabilitySummary {
+
+    private Long hotelId;
+    private Integer availableRooms;
+    private BigDecimal lowestPricePerNight;
+}
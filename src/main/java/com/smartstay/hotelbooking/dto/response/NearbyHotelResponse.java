@@ -0,0 +1,27 @@
+package com.smartstay.hotelbooking.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NearbyHotelResponse {
+
+    private Long hotelId;
+    private String name;
+    private String address;
+    private String city;
+    private String country;
+    private Integer starRating;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceKm;
+
+    // Only filled in when the search has stay dates
+    private Integer availableRooms;
+    private BigDecimal lowestPricePerNight;
+}
@@ -0,0 +1,18 @@
+package com.smartstay.hotelbooking.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomTypeInventoryNight {
+
+    private LocalDate date;
+    private Integer capacity;
+    private Integer sold;
+    private Integer available;
+}
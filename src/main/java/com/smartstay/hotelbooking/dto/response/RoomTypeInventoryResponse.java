@@ -0,0 +1,17 @@
+package com.smartstay.hotelbooking.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomTypeInventoryResponse {
+
+    private Long roomTypeId;
+    private String roomTypeName;
+    private List<RoomTypeInventoryNight> nights;
+}
@@ -0,0 +1,31 @@
+package com.smartstay.hotelbooking.event;
+
+import com.smartstay.hotelbooking.model.entity.Booking;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class BookingChangedEvent {
+
+    private final Long bookingId;
+
+    private final Long roomId;
+
+    private final String city;
+
+    private final LocalDate checkInDate;
+
+    private final LocalDate checkOutDate;
+
+    // Whether the stay still occupies the room after the change
+    private final boolean active;
+
+    public static BookingChangedEvent of(Booking booking) {
+        return new BookingChangedEvent(booking.getId(), booking.getRoom().getId(),
+                booking.getRoom().getHotel().getCity(), booking.getCheckInDate(), booking.getCheckOutDate(),
+                booking.getBookingStatus().occupiesRoom());
+    }
+}
@@ -0,0 +1,11 @@
+package com.smartstay.hotelbooking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class HotelChangedEvent {
+
+    private final Long hotelId;
+}
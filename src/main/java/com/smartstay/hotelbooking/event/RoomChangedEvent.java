@@ -0,0 +1,30 @@
+package com.smartstay.hotelbooking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Objects;
+
+@Getter
+@AllArgsConstructor
+public class RoomChangedEvent {
+
+    private final Long roomId;
+
+    // Hotel and room type after the change; null when the room was deleted
+    private final Long hotelId;
+    private final Long roomTypeId;
+
+    // Hotel and room type before the change; null when the room is new
+    private final Long previousHotelId;
+    private final Long previousRoomTypeId;
+
+    // For changes that leave the room where it is (status, bookings on it)
+    public RoomChangedEvent(Long roomId) {
+        this(roomId, null, null, null, null);
+    }
+
+    public boolean isPlacementChanged() {
+        return !Objects.equals(hotelId, previousHotelId) || !Objects.equals(roomTypeId, previousRoomTypeId);
+    }
+}
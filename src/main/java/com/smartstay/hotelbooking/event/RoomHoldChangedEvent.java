@@ -0,0 +1,20 @@
+package com.smartstay.hotelbooking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// Published when a hold is placed, released or expires; holds never touch the database
+@Getter
+@AllArgsConstructor
+public class RoomHoldChangedEvent {
+
+    private final Long roomId;
+
+    private final String city;
+
+    private final LocalDate checkInDate;
+
+    private final LocalDate checkOutDate;
+}
@@ -0,0 +1,11 @@
+package com.smartstay.hotelbooking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RoomTypeChangedEvent {
+
+    private final Long roomTypeId;
+}
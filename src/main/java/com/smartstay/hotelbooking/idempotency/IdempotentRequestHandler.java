@@ -0,0 +1,350 @@
+package com.smartstay.hotelbooking.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartstay.hotelbooking.model.entity.IdempotencyRecord;
+import com.smartstay.hotelbooking.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs a POST at most once per Idempotency-Key and user. The key is claimed up front with a row in
+// idempotency_keys, so a duplicate arriving at any instance while the first request runs finds the claim and waits
+// for its response instead of executing again. Completed responses are kept in a bounded LRU in front of the table.
+@Component
+public class IdempotentRequestHandler {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService pollers;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMillis;
+
+    // A claim older than this is taken to belong to a request that will never answer, so it must outlast the
+    // slowest action; it is never renewed
+    @Value("${app.idempotency.lease-ms:300000}")
+    private long leaseMillis;
+
+    @Value("${app.idempotency.poll-interval-ms:100}")
+    private long pollIntervalMillis;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    // Access-ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, StoredResponse> completed = new LinkedHashMap<>(16, 0.75f, true);
+
+    public IdempotentRequestHandler(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.idempotency.poll-threads:2}") int pollThreads) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Polls query the table, so they get threads of their own rather than the common pool's
+        AtomicInteger threads = new AtomicInteger();
+        this.pollers = Executors.newFixedThreadPool(pollThreads, runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-poll-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pollers.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void purgeExpired() {
+        recordRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    @Scheduled(cron = "${app.idempotency.purge.cron:0 0 * * * *}")
+    @Transactional
+    public void scheduledPurge() {
+        recordRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    public ResponseEntity<?> handle(String scope, String username, String idempotencyKey, Object request,
+            Supplier<ResponseEntity<?>> action) {
+        try {
+            return handleAsync(scope, username, idempotencyKey, request,
+                    () -> CompletableFuture.completedFuture(action.get())).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    // Same contract for actions that answer later. The action always runs on the calling thread; a duplicate
+    // waits without holding a thread, whether the original runs here or on another instance.
+    public CompletableFuture<ResponseEntity<?>> handleAsync(String scope, String username, String idempotencyKey,
+            Object request, Supplier<CompletableFuture<ResponseEntity<?>>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > 100) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", HEADER + " must be at most 100 characters")));
+        }
+
+        ClaimKey key = new ClaimKey(scope, username, idempotencyKey, scope + ':' + username + ':' + idempotencyKey);
+        String requestHash = hash(request);
+
+        StoredResponse stored = findCompleted(key);
+        if (stored != null) {
+            return CompletableFuture.completedFuture(replay(stored, requestHash));
+        }
+
+        // Duplicates on this instance wait on the local future rather than polling the table
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key.getCacheKey(), mine);
+        if (running != null) {
+            return await(running).thenApply(original -> replay(original, requestHash));
+        }
+
+        CompletableFuture<ResponseEntity<?>> response;
+        try {
+            if (claim(key, requestHash)) {
+                response = execute(key, requestHash, action, mine);
+            } else {
+                // Held by a request on another instance, or answered in the meantime
+                response = awaitClaim(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis))
+                        .thenApply(original -> {
+                            mine.complete(original);
+                            return replay(original, requestHash);
+                        });
+            }
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            inFlight.remove(key.getCacheKey(), mine);
+            throw e;
+        }
+        return response.whenComplete((result, error) -> {
+            if (error != null) {
+                mine.completeExceptionally(unwrap(error));
+            }
+            inFlight.remove(key.getCacheKey(), mine);
+        });
+    }
+
+    // True when this request now owns the key. A claim past its lease, or a response past its TTL, is taken over.
+    private boolean claim(ClaimKey key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lease = now.plus(leaseMillis, ChronoUnit.MILLIS);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (recordRepository.insertClaim(key.getScope(), key.getUsername(), key.getIdempotencyKey(),
+                    requestHash, lease, now) == 1) {
+                return true;
+            }
+            return recordRepository.findByScopeAndUsernameAndIdempotencyKey(key.getScope(), key.getUsername(),
+                            key.getIdempotencyKey())
+                    .filter(record -> !record.getExpiresAt().isAfter(now))
+                    .map(record -> recordRepository.takeOverClaim(record.getId(), requestHash, lease, now) == 1)
+                    .orElse(false);
+        }));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> execute(ClaimKey key, String requestHash,
+            Supplier<CompletableFuture<ResponseEntity<?>>> action, CompletableFuture<StoredResponse> mine) {
+        CompletableFuture<ResponseEntity<?>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Failures are not remembered, so the client may retry with the same key
+            release(key, requestHash);
+            throw e;
+        }
+        return response.whenComplete((result, error) -> {
+            if (error != null) {
+                release(key, requestHash);
+                return;
+            }
+            StoredResponse outcome = new StoredResponse(requestHash, result.getStatusCode().value(),
+                    toJson(result.getBody()), LocalDateTime.now().plusHours(ttlHours));
+            // Server-side failures are passed to waiting duplicates but not stored, so a later retry runs again
+            if (result.getStatusCode().is5xxServerError()) {
+                release(key, requestHash);
+            } else {
+                store(key, outcome);
+            }
+            mine.complete(outcome);
+        });
+    }
+
+    // Polls the claim held elsewhere until it is answered. A claim that is released or outlives its lease fails
+    // the wait, and the client's retry then runs the request itself.
+    private CompletableFuture<StoredResponse> awaitClaim(ClaimKey key, long deadline) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> record = recordRepository.findByScopeAndUsernameAndIdempotencyKey(
+                key.getScope(), key.getUsername(), key.getIdempotencyKey());
+        if (record.isPresent() && record.get().getStatusCode() != null) {
+            IdempotencyRecord answered = record.get();
+            return CompletableFuture.completedFuture(remember(key.getCacheKey(), new StoredResponse(
+                    answered.getRequestHash(), answered.getStatusCode(), answered.getResponseBody(),
+                    answered.getExpiresAt())));
+        }
+        if (record.isEmpty() || !record.get().getExpiresAt().isAfter(now)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The original request with this "
+                    + HEADER + " did not complete; retry it"));
+        }
+        if (System.nanoTime() - deadline > 0) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The original request with this "
+                    + HEADER + " is still running"));
+        }
+        Executor delayed = CompletableFuture.delayedExecutor(pollIntervalMillis, TimeUnit.MILLISECONDS, pollers);
+        return CompletableFuture.supplyAsync(() -> key, delayed).thenCompose(next -> awaitClaim(next, deadline));
+    }
+
+    private StoredResponse findCompleted(ClaimKey key) {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (completed) {
+            StoredResponse cached = completed.get(key.getCacheKey());
+            if (cached != null && cached.getExpiresAt().isAfter(now)) {
+                return cached;
+            }
+        }
+        return recordRepository.findByScopeAndUsernameAndIdempotencyKey(key.getScope(), key.getUsername(),
+                        key.getIdempotencyKey())
+                .filter(record -> record.getStatusCode() != null && record.getExpiresAt().isAfter(now))
+                .map(record -> remember(key.getCacheKey(), new StoredResponse(record.getRequestHash(),
+                        record.getStatusCode(), record.getResponseBody(), record.getExpiresAt())))
+                .orElse(null);
+    }
+
+    private void store(ClaimKey key, StoredResponse stored) {
+        transactionTemplate.executeWithoutResult(status -> recordRepository.completeClaim(key.getScope(),
+                key.getUsername(), key.getIdempotencyKey(), stored.getRequestHash(), stored.getStatusCode(),
+                stored.getBody(), stored.getExpiresAt(), LocalDateTime.now()));
+        remember(key.getCacheKey(), stored);
+    }
+
+    private void release(ClaimKey key, String requestHash) {
+        transactionTemplate.executeWithoutResult(status -> recordRepository.releaseClaim(key.getScope(),
+                key.getUsername(), key.getIdempotencyKey(), requestHash));
+    }
+
+    private StoredResponse remember(String cacheKey, StoredResponse stored) {
+        synchronized (completed) {
+            completed.put(cacheKey, stored);
+            if (completed.size() > maxEntries) {
+                Iterator<String> eldest = completed.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return stored;
+    }
+
+    // Copied so the timeout only applies to this waiter, not to the original request's own future
+    private CompletableFuture<StoredResponse> await(CompletableFuture<StoredResponse> running) {
+        return running.copy()
+                .orTimeout(waitTimeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    if (causeOf(error) instanceof TimeoutException) {
+                        throw new IllegalStateException("The original request with this " + HEADER
+                                + " is still running");
+                    }
+                    throw unwrap(error);
+                });
+    }
+
+    private static Throwable causeOf(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = causeOf(error);
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", HEADER + " was already used for a different request"));
+        }
+        return ResponseEntity.status(stored.getStatusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.getBody());
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(toJson(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ClaimKey {
+        private final String scope;
+        private final String username;
+        private final String idempotencyKey;
+        private final String cacheKey;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class StoredResponse {
+        private final String requestHash;
+        private final int statusCode;
+        private final String body;
+        private final LocalDateTime expiresAt;
+    }
+}
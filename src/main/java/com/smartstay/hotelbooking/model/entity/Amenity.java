@@ -0,0 +1,29 @@
+package com.smartstay.hotelbooking.model.entity;
+
+import com.smartstay.hotelbooking.model.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "amenities")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Amenity extends BaseEntity {
+
+    // Lower-cased, whitespace-collapsed name used for matching
+    @Column(nullable = false, unique = true, length = 50)
+    private String code;
+
+    // Name as first written, used for display
+    @Column(nullable = false, length = 50)
+    private String name;
+
+    // Position of this amenity in the amenity_mask columns
+    @Column(nullable = false, unique = true)
+    private Integer bit;
+}
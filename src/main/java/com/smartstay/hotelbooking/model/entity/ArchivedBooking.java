@@ -0,0 +1,100 @@
+package com.smartstay.hotelbooking.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Cold copy of a finished booking and its payment, moved out of the bookings table by BookingArchiver.
+// Rows are self-contained: room and hotel details are copied in so they read the same after the room changes.
+@Entity
+@Table(name = "bookings_archive",
+        indexes = {
+                @Index(name = "idx_bookings_archive_user", columnList = "user_id, check_out_date"),
+                @Index(name = "idx_bookings_archive_hotel", columnList = "hotel_id, check_in_date"),
+                @Index(name = "idx_bookings_archive_payment", columnList = "payment_status, payment_date")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedBooking implements Serializable {
+
+    // Same id the booking had while it was hot
+    @Id
+    private Long id;
+
+    @Column(name = "booking_reference", nullable = false, unique = true, length = 20)
+    private String bookingReference;
+
+    @Column(name = "check_in_date", nullable = false)
+    private LocalDate checkInDate;
+
+    @Column(name = "check_out_date", nullable = false)
+    private LocalDate checkOutDate;
+
+    @Column(nullable = false)
+    private Integer adults;
+
+    @Column
+    private Integer children;
+
+    @Column(name = "total_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalPrice;
+
+    @Column(name = "booking_status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Booking.BookingStatus bookingStatus;
+
+    @Column(name = "special_requests", columnDefinition = "TEXT")
+    private String specialRequests;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "room_number", length = 20)
+    private String roomNumber;
+
+    @Column(name = "hotel_id")
+    private Long hotelId;
+
+    @Column(name = "hotel_name", length = 100)
+    private String hotelName;
+
+    @Column(name = "hotel_city", length = 100)
+    private String hotelCity;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "payment_amount", precision = 10, scale = 2)
+    private BigDecimal paymentAmount;
+
+    @Column(name = "payment_method", length = 50)
+    private String paymentMethod;
+
+    @Column(name = "payment_status", length = 20)
+    @Enumerated(EnumType.STRING)
+    private Payment.PaymentStatus paymentStatus;
+
+    @Column(name = "payment_date")
+    private LocalDateTime paymentDate;
+
+    @Column(name = "transaction_id", length = 100)
+    private String transactionId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
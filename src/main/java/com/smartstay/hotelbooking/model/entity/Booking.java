@@ -11,7 +11,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings",
+        indexes = @Index(name = "idx_bookings_check_out_date", columnList = "check_out_date"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -58,6 +59,11 @@ public class Booking extends BaseEntity {
     private Review review;
 
     public enum BookingStatus {
-        CONFIRMED, CHECKED_IN, CHECKED_OUT, CANCELLED, NO_SHOW
+        CONFIRMED, CHECKED_IN, CHECKED_OUT, CANCELLED, NO_SHOW;
+
+        // Cancelled and no-show stays release their nights back to the room
+        public boolean occupiesRoom() {
+            return this != CANCELLED && this != NO_SHOW;
+        }
     }
 }
\ No newline at end of file
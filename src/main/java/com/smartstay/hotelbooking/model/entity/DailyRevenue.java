@@ -0,0 +1,47 @@
+package com.smartstay.hotelbooking.model.entity;
+
+import com.smartstay.hotelbooking.model.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "daily_revenue",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_revenue_day",
+                columnNames = {"revenue_date", "hotel_id", "payment_method"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRevenue extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "hotel_id", nullable = false)
+    private Hotel hotel;
+
+    // Day the payment was taken; refunds stay on the day of the payment they reverse
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate;
+
+    @Column(name = "payment_method", nullable = false, length = 50)
+    private String paymentMethod;
+
+    // Payments taken that day which are still completed
+    @Column(name = "completed_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal completedAmount;
+
+    @Column(name = "completed_count", nullable = false)
+    private Long completedCount;
+
+    // Payments taken that day which have since been refunded
+    @Column(name = "refunded_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal refundedAmount;
+
+    @Column(name = "refunded_count", nullable = false)
+    private Long refundedCount;
+}
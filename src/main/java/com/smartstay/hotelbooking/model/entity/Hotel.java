@@ -41,9 +41,21 @@ public class Hotel extends BaseEntity {
     @Column(name = "star_rating")
     private Integer starRating;
 
+    // WGS84 degrees; hotels without coordinates are left out of proximity search
+    @Column
+    private Double latitude;
+
+    @Column
+    private Double longitude;
+
     @Column(columnDefinition = "TEXT")
     private String amenities;
 
+    // One bit per entry of the amenity dictionary, derived from amenities
+    @JsonIgnore
+    @Column(name = "amenity_mask", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long amenityMask = 0L;
+
     @Column(name = "check_in_time", nullable = false)
     private LocalTime checkInTime;
 
@@ -37,11 +37,26 @@ public class Payment extends BaseEntity {
     @Column(name = "card_last_digits", length = 4)
     private String cardLastDigits;
 
+    // The last capture or refund sent for this payment and how many have been sent; with the id they make up
+    // the idempotency key the call went out under, which is what the reconciler looks it up by
+    @Column(name = "gateway_operation", length = 10)
+    @Enumerated(EnumType.STRING)
+    private GatewayOperation gatewayOperation;
+
+    @Column(name = "gateway_attempts")
+    private Integer gatewayAttempts;
+
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booking_id", nullable = false)
     private Booking booking;
 
     public enum PaymentStatus {
-        PENDING, COMPLETED, FAILED, REFUNDED
+        // PROCESSING: a gateway call for this payment is in flight
+        // UNKNOWN: the call failed or timed out and may still have gone through; it waits for the reconciler
+        PENDING, PROCESSING, COMPLETED, FAILED, REFUNDED, UNKNOWN
+    }
+
+    public enum GatewayOperation {
+        CHARGE, REFUND
     }
 }
\ No newline at end of file
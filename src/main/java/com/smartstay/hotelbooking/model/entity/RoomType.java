@@ -38,6 +38,11 @@ public class RoomType extends BaseEntity {
     @Column(columnDefinition = "TEXT")
     private String amenities;
 
+    // One bit per entry of the amenity dictionary, derived from amenities
+    @JsonIgnore
+    @Column(name = "amenity_mask", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long amenityMask = 0L;
+
     @JsonIgnore
     @OneToMany(mappedBy = "roomType", cascade = CascadeType.ALL)
     private List<Room> rooms = new ArrayList<>();
@@ -0,0 +1,40 @@
+package com.smartstay.hotelbooking.model.entity;
+
+import com.smartstay.hotelbooking.model.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "room_type_inventory",
+        uniqueConstraints = @UniqueConstraint(name = "uk_room_type_inventory_night",
+                columnNames = {"hotel_id", "room_type_id", "stay_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomTypeInventory extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "hotel_id", nullable = false)
+    private Hotel hotel;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_type_id", nullable = false)
+    private RoomType roomType;
+
+    @Column(name = "stay_date", nullable = false)
+    private LocalDate stayDate;
+
+    // Rooms of this type in the hotel
+    @Column(nullable = false)
+    private Integer capacity;
+
+    // Active bookings occupying one of those rooms on this night
+    @Column(nullable = false)
+    private Integer sold;
+}
@@ -0,0 +1,20 @@
+package com.smartstay.hotelbooking.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// Card details only live here for the duration of the call; no toString, so they never end up in logs
+@Getter
+@AllArgsConstructor
+public class GatewayAuthorizationRequest {
+    private final Long paymentId;
+    private final BigDecimal amount;
+    private final String paymentMethod;
+    private final String cardNumber;
+    private final String cardHolderName;
+    private final String expiryMonth;
+    private final String expiryYear;
+    private final String cvv;
+}
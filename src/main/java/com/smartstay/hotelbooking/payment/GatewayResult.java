@@ -0,0 +1,21 @@
+package com.smartstay.hotelbooking.payment;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class GatewayResult {
+    private final boolean approved;
+    private final String reference;
+    private final String declineReason;
+
+    public static GatewayResult approved(String reference) {
+        return new GatewayResult(true, reference, null);
+    }
+
+    public static GatewayResult declined(String reason) {
+        return new GatewayResult(false, null, reason);
+    }
+}
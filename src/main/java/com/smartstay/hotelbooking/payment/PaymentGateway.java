@@ -0,0 +1,24 @@
+package com.smartstay.hotelbooking.payment;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// Card processor SPI. Calls return at once and complete when the processor answers; a decline completes
+// normally with an unapproved result, while transport failures complete exceptionally.
+public interface PaymentGateway {
+
+    // Reserves the amount on the card; the result reference is the authorization id
+    CompletableFuture<GatewayResult> authorize(GatewayAuthorizationRequest request);
+
+    // Captures and refunds carry an idempotency key: the gateway carries out each key at most once and answers a
+    // repeat with the first result, so a call whose answer was lost can be sent again or looked up safely
+
+    // Settles a previous authorization; the result reference is the transaction id
+    CompletableFuture<GatewayResult> capture(String authorizationId, BigDecimal amount, String idempotencyKey);
+
+    CompletableFuture<GatewayResult> refund(String transactionId, BigDecimal amount, String idempotencyKey);
+
+    // The result of the capture or refund sent under the key, or empty when the gateway never received one
+    CompletableFuture<Optional<GatewayResult>> lookup(String idempotencyKey);
+}
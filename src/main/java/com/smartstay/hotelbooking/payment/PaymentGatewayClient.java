@@ -0,0 +1,135 @@
+package com.smartstay.hotelbooking.payment;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Guards every gateway call with a bulkhead and a timeout. A saturated or slow processor then turns into quick
+// refusals instead of piling up requests. Results are handed off to a small callback pool, so the database work
+// that follows never runs on the gateway's own threads.
+@Component
+public class PaymentGatewayClient {
+
+    private final PaymentGateway gateway;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long timeoutMillis;
+    private final ExecutorService callbacks;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong declines = new AtomicLong();
+
+    public PaymentGatewayClient(PaymentGateway gateway,
+            @Value("${app.payment.gateway.max-concurrent:32}") int maxConcurrent,
+            @Value("${app.payment.gateway.timeout-ms:5000}") long timeoutMillis,
+            @Value("${app.payment.gateway.callback-threads:8}") int callbackThreads) {
+        this.gateway = gateway;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.callbacks = Executors.newFixedThreadPool(callbackThreads, runnable -> {
+            Thread thread = new Thread(runnable, "payment-gateway-callback-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<GatewayResult> authorize(GatewayAuthorizationRequest request) {
+        return call(() -> gateway.authorize(request));
+    }
+
+    public CompletableFuture<GatewayResult> capture(String authorizationId, BigDecimal amount,
+            String idempotencyKey) {
+        return call(() -> gateway.capture(authorizationId, amount, idempotencyKey));
+    }
+
+    public CompletableFuture<GatewayResult> refund(String transactionId, BigDecimal amount, String idempotencyKey) {
+        return call(() -> gateway.refund(transactionId, amount, idempotencyKey));
+    }
+
+    public CompletableFuture<Optional<GatewayResult>> lookup(String idempotencyKey) {
+        return call(() -> gateway.lookup(idempotencyKey));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("inFlight", maxConcurrent - permits.availablePermits());
+        stats.put("timeoutMs", timeoutMillis);
+        stats.put("calls", calls.get());
+        stats.put("refused", refused.get());
+        stats.put("timeouts", timeouts.get());
+        stats.put("failures", failures.get());
+        stats.put("declines", declines.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callbacks.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request) {
+        // Refuse rather than queue: callers answer 503 and the client retries later
+        if (!permits.tryAcquire()) {
+            refused.incrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Payment gateway is at capacity, please retry"));
+        }
+        calls.incrementAndGet();
+
+        CompletableFuture<T> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            failures.incrementAndGet();
+            return CompletableFuture.failedFuture(new PaymentGatewayException("Payment gateway call failed", e));
+        }
+
+        // The permit is returned when the call settles or times out, whichever comes first
+        return response.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> permits.release())
+                .handleAsync((result, error) -> {
+                    if (error == null) {
+                        if (result instanceof GatewayResult gatewayResult && !gatewayResult.isApproved()) {
+                            declines.incrementAndGet();
+                        }
+                        return result;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (cause instanceof TimeoutException) {
+                        timeouts.incrementAndGet();
+                        throw new PaymentGatewayException("Payment gateway did not answer within "
+                                + timeoutMillis + " ms");
+                    }
+                    failures.incrementAndGet();
+                    throw cause instanceof PaymentGatewayException gatewayError
+                            ? gatewayError
+                            : new PaymentGatewayException("Payment gateway call failed", cause);
+                }, callbacks);
+    }
+}
@@ -0,0 +1,13 @@
+package com.smartstay.hotelbooking.payment;
+
+// The gateway could not be reached or did not answer in time; the outcome of the call is unknown
+public class PaymentGatewayException extends RuntimeException {
+
+    public PaymentGatewayException(String message) {
+        super(message);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,109 @@
+package com.smartstay.hotelbooking.payment;
+
+import com.smartstay.hotelbooking.model.entity.Payment;
+import com.smartstay.hotelbooking.repository.PaymentRepository;
+import com.smartstay.hotelbooking.service.PaymentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Settles payments whose gateway outcome never made it into the database: captures and refunds that failed or
+// timed out (UNKNOWN), and approved calls whose follow-up write failed or was cut short by a restart (PROCESSING
+// for longer than any live call could take). Each is looked up at the gateway under the key it was sent with,
+// one at a time so the sweep never competes with guests for the gateway bulkhead.
+@Component
+public class PaymentReconciler {
+
+    private static final List<Payment.PaymentStatus> UNSETTLED =
+            List.of(Payment.PaymentStatus.PROCESSING, Payment.PaymentStatus.UNKNOWN);
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+
+    @Value("${app.payment.reconcile.enabled:true}")
+    private boolean enabled;
+
+    // Must stay well above app.payment.gateway.timeout-ms, or a call still in flight could be settled twice
+    @Value("${app.payment.reconcile.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    @Value("${app.payment.reconcile.batch-size:100}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalSettled = new AtomicLong();
+    private final AtomicLong totalDeferred = new AtomicLong();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public PaymentReconciler(PaymentRepository paymentRepository, PaymentService paymentService) {
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+    }
+
+    @Scheduled(cron = "${app.payment.reconcile.cron:0 */5 * * * *}")
+    public void scheduledRun() {
+        if (enabled && !running.get()) {
+            run();
+        }
+    }
+
+    public Map<String, Object> run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A payment reconciliation run is already in progress");
+        }
+        try {
+            long started = System.nanoTime();
+            List<Long> paymentIds = paymentRepository.findUnsettledIds(UNSETTLED,
+                    LocalDateTime.now().minusSeconds(staleAfterSeconds), PageRequest.of(0, batchSize));
+
+            int settled = 0;
+            int deferred = 0;
+            for (Long paymentId : paymentIds) {
+                // A gateway or database failure leaves the payment as it was for the next run
+                try {
+                    Payment payment = paymentService.reconcilePayment(paymentId).join();
+                    if (UNSETTLED.contains(payment.getPaymentStatus())) {
+                        deferred++;
+                    } else {
+                        settled++;
+                    }
+                } catch (RuntimeException e) {
+                    deferred++;
+                }
+            }
+            totalSettled.addAndGet(settled);
+            totalDeferred.addAndGet(deferred);
+
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("ranAt", LocalDateTime.now());
+            metrics.put("found", paymentIds.size());
+            metrics.put("settled", settled);
+            metrics.put("deferred", deferred);
+            metrics.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            lastRun = metrics;
+            return metrics;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("staleAfterSeconds", staleAfterSeconds);
+        stats.put("running", running.get());
+        stats.put("totalSettled", totalSettled.get());
+        stats.put("totalDeferred", totalDeferred.get());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+}
@@ -0,0 +1,93 @@
+package com.smartstay.hotelbooking.payment;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local stand-in for a card processor. Answers after a configurable latency without holding a thread while it
+// waits, so load tests see realistic gateway timing. Cards ending in 0002 are always declined.
+@Component
+@ConditionalOnProperty(name = "app.payment.gateway.provider", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+
+    private static final String DECLINED_CARD_SUFFIX = "0002";
+
+    @Value("${app.payment.gateway.stub.latency-ms:150}")
+    private long latencyMillis;
+
+    @Value("${app.payment.gateway.stub.jitter-ms:50}")
+    private long jitterMillis;
+
+    @Value("${app.payment.gateway.stub.decline-rate:0.0}")
+    private double declineRate;
+
+    private final ScheduledExecutorService timer;
+
+    // Every keyed result for the life of the process, as a real processor keeps them for lookups
+    private final Map<String, GatewayResult> resultsByKey = new ConcurrentHashMap<>();
+
+    public StubPaymentGateway() {
+        AtomicInteger threads = new AtomicInteger();
+        this.timer = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "payment-gateway-stub-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<GatewayResult> authorize(GatewayAuthorizationRequest request) {
+        String cardNumber = request.getCardNumber();
+        boolean declined = (cardNumber != null && cardNumber.endsWith(DECLINED_CARD_SUFFIX))
+                || ThreadLocalRandom.current().nextDouble() < declineRate;
+        return respond(declined
+                ? GatewayResult.declined("Card declined")
+                : GatewayResult.approved("AUTH" + System.currentTimeMillis() + nextDigits()));
+    }
+
+    @Override
+    public CompletableFuture<GatewayResult> capture(String authorizationId, BigDecimal amount,
+            String idempotencyKey) {
+        return respond(resultsByKey.computeIfAbsent(idempotencyKey,
+                key -> GatewayResult.approved("TXN" + System.currentTimeMillis() + nextDigits())));
+    }
+
+    @Override
+    public CompletableFuture<GatewayResult> refund(String transactionId, BigDecimal amount, String idempotencyKey) {
+        return respond(resultsByKey.computeIfAbsent(idempotencyKey,
+                key -> GatewayResult.approved("RFD" + System.currentTimeMillis() + nextDigits())));
+    }
+
+    @Override
+    public CompletableFuture<Optional<GatewayResult>> lookup(String idempotencyKey) {
+        return respond(Optional.ofNullable(resultsByKey.get(idempotencyKey)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> respond(T result) {
+        CompletableFuture<T> response = new CompletableFuture<>();
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        timer.schedule(() -> response.complete(result), delay, TimeUnit.MILLISECONDS);
+        return response;
+    }
+
+    private static int nextDigits() {
+        return ThreadLocalRandom.current().nextInt(1000);
+    }
+}
@@ -0,0 +1,10 @@
+package com.smartstay.hotelbooking.repository;
+
+import com.smartstay.hotelbooking.model.entity.Amenity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AmenityRepository extends JpaRepository<Amenity, Long> {
+    List<Amenity> findAllByOrderByBitAsc();
+}
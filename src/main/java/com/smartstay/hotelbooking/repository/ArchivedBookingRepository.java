@@ -0,0 +1,127 @@
+package com.smartstay.hotelbooking.repository;
+
+import com.smartstay.hotelbooking.model.entity.ArchivedBooking;
+import com.smartstay.hotelbooking.model.entity.Payment;
+import com.smartstay.hotelbooking.repository.projection.BookingSummaryView;
+import com.smartstay.hotelbooking.repository.projection.PaymentDailyTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentHotelTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentMethodTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentReportLine;
+import com.smartstay.hotelbooking.repository.projection.PaymentTotal;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    String REPORT_FILTER = "WHERE a.paymentStatus = :status AND a.paymentDate BETWEEN :startDate AND :endDate ";
+    String REPORT_TOTALS = "COUNT(a) AS paymentCount, COALESCE(SUM(a.paymentAmount), 0) AS totalAmount ";
+
+    Page<ArchivedBooking> findByUserId(Long userId, Pageable pageable);
+
+    Optional<ArchivedBooking> findByBookingReference(String bookingReference);
+
+    @Query("SELECT MAX(b.bookingReference) FROM ArchivedBooking b " +
+            "WHERE b.bookingReference LIKE CONCAT(:prefix, '%') AND LENGTH(b.bookingReference) = :length")
+    String findMaxBookingReference(@Param("prefix") String prefix, @Param("length") int length);
+
+    // Finished stays that nothing hot points at any more; reviewed bookings stay behind for their review, and
+    // bookings whose payment is still with the gateway or the reconciler until it settles
+    @Query(value = "SELECT b.id FROM bookings b WHERE b.check_out_date < :cutoff " +
+            "AND b.booking_status IN ('CHECKED_OUT', 'CANCELLED', 'NO_SHOW') " +
+            "AND NOT EXISTS (SELECT 1 FROM reviews rv WHERE rv.booking_id = b.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.booking_id = b.id " +
+            "AND p.payment_status IN ('PROCESSING', 'UNKNOWN')) " +
+            "ORDER BY b.id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockArchivableIds(@Param("cutoff") LocalDate cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO bookings_archive (id, booking_reference, check_in_date, check_out_date, adults, " +
+            "children, total_price, booking_status, special_requests, user_id, room_id, room_number, hotel_id, " +
+            "hotel_name, hotel_city, payment_id, payment_amount, payment_method, payment_status, payment_date, " +
+            "transaction_id, created_at, archived_at) " +
+            "SELECT b.id, b.booking_reference, b.check_in_date, b.check_out_date, b.adults, b.children, " +
+            "b.total_price, b.booking_status, b.special_requests, b.user_id, b.room_id, r.room_number, h.id, " +
+            "h.name, h.city, p.id, p.amount, p.payment_method, p.payment_status, p.payment_date, " +
+            "p.transaction_id, b.created_at, :now " +
+            "FROM bookings b LEFT JOIN rooms r ON r.id = b.room_id LEFT JOIN hotels h ON h.id = r.hotel_id " +
+            "LEFT JOIN payments p ON p.booking_id = b.id WHERE b.id IN (:ids)",
+            nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM payments WHERE booking_id IN (:ids)", nativeQuery = true)
+    int deleteHotPayments(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM bookings WHERE id IN (:ids)", nativeQuery = true)
+    int deleteHotBookings(@Param("ids") Collection<Long> ids);
+
+    // The archived side of the booking export, in the shape of BookingSummaryView; what the archive does not
+    // keep comes back null, and archived bookings never have a review
+    @Query("SELECT a.id AS id, a.bookingReference AS bookingReference, a.checkInDate AS checkInDate, " +
+            "a.checkOutDate AS checkOutDate, a.adults AS adults, a.children AS children, " +
+            "a.totalPrice AS totalPrice, a.bookingStatus AS bookingStatus, a.specialRequests AS specialRequests, " +
+            "a.createdAt AS createdAt, a.roomId AS roomId, a.roomNumber AS roomNumber, " +
+            "CAST(NULL AS String) AS roomTypeName, CAST(NULL AS BigDecimal) AS pricePerNight, " +
+            "a.hotelId AS hotelId, a.hotelName AS hotelName, CAST(NULL AS String) AS hotelAddress, " +
+            "a.hotelCity AS hotelCity, CAST(NULL AS String) AS hotelCountry, a.paymentId AS paymentId, " +
+            "a.paymentAmount AS paymentAmount, a.paymentMethod AS paymentMethod, " +
+            "a.paymentStatus AS paymentStatus, a.paymentDate AS paymentDate, CAST(NULL AS Long) AS reviewId, " +
+            "CAST(NULL AS Integer) AS reviewRating, CAST(NULL AS String) AS reviewComment, " +
+            "CAST(NULL AS LocalDateTime) AS reviewDatePosted " +
+            "FROM ArchivedBooking a WHERE a.hotelId = :hotelId " +
+            "AND a.checkInDate >= :startDate AND a.checkInDate <= :endDate ORDER BY a.checkInDate, a.id")
+    Stream<BookingSummaryView> streamSummariesByHotelAndDateRange(@Param("hotelId") Long hotelId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    // Archived payments for the payment report, mirroring the aggregates in PaymentRepository
+    @Query("SELECT " + REPORT_TOTALS + "FROM ArchivedBooking a " + REPORT_FILTER)
+    PaymentTotal sumPaymentsByStatusAndDateRange(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT CAST(a.paymentDate AS LocalDate) AS day, " + REPORT_TOTALS + "FROM ArchivedBooking a " +
+            REPORT_FILTER + "GROUP BY CAST(a.paymentDate AS LocalDate) ORDER BY day")
+    List<PaymentDailyTotal> sumPaymentsByDay(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT a.paymentMethod AS paymentMethod, " + REPORT_TOTALS + "FROM ArchivedBooking a " +
+            REPORT_FILTER + "GROUP BY a.paymentMethod ORDER BY totalAmount DESC")
+    List<PaymentMethodTotal> sumPaymentsByPaymentMethod(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT a.hotelId AS hotelId, a.hotelName AS hotelName, " + REPORT_TOTALS +
+            "FROM ArchivedBooking a " + REPORT_FILTER + "GROUP BY a.hotelId, a.hotelName ORDER BY totalAmount DESC")
+    List<PaymentHotelTotal> sumPaymentsByHotel(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    // Newest first, the order the report pages in; the archive keeps no card digits
+    @Query(value = "SELECT a.paymentId AS id, a.paymentAmount AS amount, a.paymentMethod AS paymentMethod, " +
+            "a.transactionId AS transactionId, a.paymentStatus AS paymentStatus, a.paymentDate AS paymentDate, " +
+            "CAST(NULL AS String) AS cardLastDigits, a.createdAt AS createdAt, a.id AS bookingId, " +
+            "a.bookingReference AS bookingReference, a.bookingStatus AS bookingStatus, " +
+            "a.checkInDate AS checkInDate, a.checkOutDate AS checkOutDate, a.userId AS userId, " +
+            "u.firstName AS firstName, u.lastName AS lastName, u.email AS email " +
+            "FROM ArchivedBooking a LEFT JOIN User u ON u.id = a.userId " + REPORT_FILTER +
+            "ORDER BY a.paymentDate DESC, a.paymentId DESC",
+            countQuery = "SELECT COUNT(a) FROM ArchivedBooking a " + REPORT_FILTER)
+    Page<PaymentReportLine> findPaymentReportLines(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+}
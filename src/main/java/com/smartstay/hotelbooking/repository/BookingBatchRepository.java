@@ -0,0 +1,94 @@
+package com.smartstay.hotelbooking.repository;
+
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Payment;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+// Multi-row inserts for group bookings. Hibernate cannot batch inserts of IDENTITY entities, so these go
+// through JDBC batches on the transaction's connection and copy the generated ids back onto the entities.
+@Repository
+public class BookingBatchRepository {
+
+    private static final String INSERT_BOOKING = "INSERT INTO bookings (booking_reference, check_in_date, " +
+            "check_out_date, adults, children, total_price, booking_status, special_requests, user_id, room_id, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PAYMENT = "INSERT INTO payments (amount, payment_status, booking_id, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookingBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertBookings(List<Booking> bookings) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_BOOKING, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Booking booking = bookings.get(i);
+                        ps.setString(1, booking.getBookingReference());
+                        ps.setObject(2, booking.getCheckInDate(), Types.DATE);
+                        ps.setObject(3, booking.getCheckOutDate(), Types.DATE);
+                        ps.setInt(4, booking.getAdults());
+                        ps.setInt(5, booking.getChildren());
+                        ps.setBigDecimal(6, booking.getTotalPrice());
+                        ps.setString(7, booking.getBookingStatus().name());
+                        ps.setString(8, booking.getSpecialRequests());
+                        ps.setLong(9, booking.getUser().getId());
+                        ps.setLong(10, booking.getRoom().getId());
+                        ps.setTimestamp(11, Timestamp.valueOf(booking.getCreatedAt()));
+                        ps.setTimestamp(12, Timestamp.valueOf(booking.getUpdatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                }, keys);
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(generatedId(keys, i));
+        }
+    }
+
+    public void insertPayments(List<Payment> payments) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_PAYMENT, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Payment payment = payments.get(i);
+                        ps.setBigDecimal(1, payment.getAmount());
+                        ps.setString(2, payment.getPaymentStatus().name());
+                        ps.setLong(3, payment.getBooking().getId());
+                        ps.setTimestamp(4, Timestamp.valueOf(payment.getCreatedAt()));
+                        ps.setTimestamp(5, Timestamp.valueOf(payment.getUpdatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return payments.size();
+                    }
+                }, keys);
+        for (int i = 0; i < payments.size(); i++) {
+            payments.get(i).setId(generatedId(keys, i));
+        }
+    }
+
+    // Only the id column is requested, so each key map holds exactly one value whatever case the driver uses
+    private static long generatedId(KeyHolder keys, int row) {
+        return ((Number) keys.getKeyList().get(row).values().iterator().next()).longValue();
+    }
+}
@@ -3,23 +3,70 @@ package com.smartstay.hotelbooking.repository;
 import com.smartstay.hotelbooking.model.entity.Booking;
 import com.smartstay.hotelbooking.model.entity.Room;
 import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.projection.BookedStay;
+import com.smartstay.hotelbooking.repository.projection.BookingStayDetail;
+import com.smartstay.hotelbooking.repository.projection.BookingSummaryView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    String BOOKED_STAY_SELECT = "SELECT b.id AS bookingId, b.room.id AS roomId, " +
+            "b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate FROM Booking b ";
+    String STAY_DETAIL_SELECT = "SELECT b.id AS bookingId, r.id AS roomId, h.id AS hotelId, rt.id AS roomTypeId, " +
+            "h.city AS city, b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            "FROM Booking b JOIN b.room r JOIN r.hotel h JOIN r.roomType rt ";
+    String SUMMARY_SELECT = "SELECT b.id AS id, b.bookingReference AS bookingReference, " +
+            "b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate, b.adults AS adults, " +
+            "b.children AS children, b.totalPrice AS totalPrice, b.bookingStatus AS bookingStatus, " +
+            "b.specialRequests AS specialRequests, b.createdAt AS createdAt, " +
+            "r.id AS roomId, r.roomNumber AS roomNumber, rt.name AS roomTypeName, " +
+            "r.pricePerNight AS pricePerNight, h.id AS hotelId, h.name AS hotelName, " +
+            "h.address AS hotelAddress, h.city AS hotelCity, h.country AS hotelCountry, " +
+            "p.id AS paymentId, p.amount AS paymentAmount, p.paymentMethod AS paymentMethod, " +
+            "p.paymentStatus AS paymentStatus, p.paymentDate AS paymentDate, " +
+            "rv.id AS reviewId, rv.rating AS reviewRating, rv.comment AS reviewComment, " +
+            "rv.datePosted AS reviewDatePosted " +
+            "FROM Booking b JOIN b.user u JOIN b.room r JOIN r.roomType rt JOIN r.hotel h " +
+            "LEFT JOIN b.payment p LEFT JOIN b.review rv ";
+
     Page<Booking> findByUser(User user, Pageable pageable);
 
+    // Everything a booking list shows in one query, so listing a page never loads entities lazily
+    @Query(value = SUMMARY_SELECT + "WHERE u.username = :username AND (:anyStatus = TRUE OR b.bookingStatus = :status)",
+            countQuery = "SELECT COUNT(b) FROM Booking b JOIN b.user u " +
+                    "WHERE u.username = :username AND (:anyStatus = TRUE OR b.bookingStatus = :status)")
+    Page<BookingSummaryView> findSummariesByUsername(@Param("username") String username,
+            @Param("anyStatus") boolean anyStatus,
+            @Param("status") Booking.BookingStatus status,
+            Pageable pageable);
+
     List<Booking> findByRoom(Room room);
 
     Optional<Booking> findByBookingReference(String bookingReference);
 
+    @Query("SELECT b FROM Booking b JOIN FETCH b.room r JOIN FETCH r.hotel JOIN FETCH r.roomType " +
+            "LEFT JOIN FETCH b.payment WHERE b.id = :id")
+    Optional<Booking> findWithRoomAndPaymentById(@Param("id") Long id);
+
+    // Fixed-length references under one prefix sort the same as their numbers
+    @Query("SELECT MAX(b.bookingReference) FROM Booking b " +
+            "WHERE b.bookingReference LIKE CONCAT(:prefix, '%') AND LENGTH(b.bookingReference) = :length")
+    String findMaxBookingReference(@Param("prefix") String prefix, @Param("length") int length);
+
     List<Booking> findByBookingStatus(Booking.BookingStatus status);
 
     @Query("SELECT b FROM Booking b WHERE b.user.id = :userId AND b.bookingStatus = :status")
@@ -31,10 +78,61 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
+    // Read through a cursor for exports; the caller must consume and close it inside a read-only transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_SELECT + "WHERE h.id = :hotelId AND b.checkInDate >= :startDate AND b.checkInDate <= :endDate " +
+            "ORDER BY b.checkInDate, b.id")
+    Stream<BookingSummaryView> streamSummariesByHotelAndDateRange(@Param("hotelId") Long hotelId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
     @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Booking b " +
             "WHERE b.room.id = :roomId AND b.bookingStatus NOT IN ('CANCELLED', 'NO_SHOW') " +
-            "AND ((b.checkInDate <= :checkOutDate AND b.checkOutDate >= :checkInDate))")
+            "AND b.checkInDate < :checkOutDate AND b.checkOutDate > :checkInDate")
     boolean isRoomBookedInDateRange(@Param("roomId") Long roomId,
             @Param("checkInDate") LocalDate checkInDate,
             @Param("checkOutDate") LocalDate checkOutDate);
-}
\ No newline at end of file
+
+    @Query(BOOKED_STAY_SELECT + "WHERE b.bookingStatus NOT IN ('CANCELLED', 'NO_SHOW') AND b.checkOutDate > :fromDate")
+    List<BookedStay> findActiveStaysEndingAfter(@Param("fromDate") LocalDate fromDate);
+
+    @Query(BOOKED_STAY_SELECT + "WHERE b.room.id IN :roomIds AND b.bookingStatus NOT IN ('CANCELLED', 'NO_SHOW') " +
+            "AND b.checkOutDate > :fromDate")
+    List<BookedStay> findActiveStaysForRoomsEndingAfter(@Param("roomIds") Collection<Long> roomIds,
+            @Param("fromDate") LocalDate fromDate);
+
+    @Query(BOOKED_STAY_SELECT + "WHERE b.room.id IN :roomIds AND b.bookingStatus NOT IN ('CANCELLED', 'NO_SHOW') " +
+            "AND b.checkInDate < :endDate AND b.checkOutDate > :startDate")
+    List<BookedStay> findActiveStaysForRoomsBetween(@Param("roomIds") Collection<Long> roomIds,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    // Keyset-paged scans for the lifecycle engine: bookings in a status whose check-in (or check-out) has passed
+    @Query(STAY_DETAIL_SELECT + "WHERE b.bookingStatus = :status AND b.checkInDate < :date AND b.id > :afterId " +
+            "ORDER BY b.id")
+    List<BookingStayDetail> findStaysCheckingInBefore(@Param("status") Booking.BookingStatus status,
+            @Param("date") LocalDate date,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query(STAY_DETAIL_SELECT + "WHERE b.bookingStatus = :status AND b.checkOutDate < :date AND b.id > :afterId " +
+            "ORDER BY b.id")
+    List<BookingStayDetail> findStaysCheckingOutBefore(@Param("status") Booking.BookingStatus status,
+            @Param("date") LocalDate date,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // Locks only the booking rows, and only those still in the expected status
+    @Query(value = "SELECT id FROM bookings WHERE id IN (:ids) AND booking_status = :status FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockIdsInStatus(@Param("ids") Collection<Long> ids, @Param("status") String status);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.bookingStatus = :status, b.updatedAt = :now WHERE b.id IN :ids")
+    int updateStatuses(@Param("ids") Collection<Long> ids,
+            @Param("status") Booking.BookingStatus status,
+            @Param("now") LocalDateTime now);
+}
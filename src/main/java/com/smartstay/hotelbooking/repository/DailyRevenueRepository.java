@@ -0,0 +1,78 @@
+package com.smartstay.hotelbooking.repository;
+
+import com.smartstay.hotelbooking.model.entity.DailyRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyRevenueRepository extends JpaRepository<DailyRevenue, Long> {
+    // Payments without a method are rolled up under this key so the unique constraint still applies
+    String UNKNOWN_METHOD = "UNKNOWN";
+
+    @Modifying
+    @Query(value = "UPDATE daily_revenue SET completed_amount = completed_amount + :completedAmount, " +
+            "completed_count = completed_count + :completedCount, " +
+            "refunded_amount = refunded_amount + :refundedAmount, " +
+            "refunded_count = refunded_count + :refundedCount, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE revenue_date = :revenueDate AND hotel_id = :hotelId AND payment_method = :paymentMethod",
+            nativeQuery = true)
+    int addRevenue(@Param("hotelId") Long hotelId,
+            @Param("revenueDate") LocalDate revenueDate,
+            @Param("paymentMethod") String paymentMethod,
+            @Param("completedAmount") BigDecimal completedAmount,
+            @Param("completedCount") long completedCount,
+            @Param("refundedAmount") BigDecimal refundedAmount,
+            @Param("refundedCount") long refundedCount);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_revenue (hotel_id, revenue_date, payment_method, completed_amount, " +
+            "completed_count, refunded_amount, refunded_count, created_at, updated_at) " +
+            "VALUES (:hotelId, :revenueDate, :paymentMethod, 0, 0, 0, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertDay(@Param("hotelId") Long hotelId,
+            @Param("revenueDate") LocalDate revenueDate,
+            @Param("paymentMethod") String paymentMethod);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_revenue", nativeQuery = true)
+    int deleteAllDays();
+
+    // Every completed or refunded payment, hot and archived, grouped the same way the incremental updates are
+    @Modifying
+    @Query(value = "INSERT INTO daily_revenue (hotel_id, revenue_date, payment_method, completed_amount, " +
+            "completed_count, refunded_amount, refunded_count, created_at, updated_at) " +
+            "SELECT s.hotel_id, s.revenue_date, s.payment_method, " +
+            "SUM(CASE WHEN s.payment_status = 'COMPLETED' THEN s.amount ELSE 0 END), " +
+            "SUM(CASE WHEN s.payment_status = 'COMPLETED' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.payment_status = 'REFUNDED' THEN s.amount ELSE 0 END), " +
+            "SUM(CASE WHEN s.payment_status = 'REFUNDED' THEN 1 ELSE 0 END), " +
+            "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM (" +
+            "SELECT r.hotel_id AS hotel_id, CAST(p.payment_date AS DATE) AS revenue_date, " +
+            "COALESCE(p.payment_method, '" + UNKNOWN_METHOD + "') AS payment_method, " +
+            "p.payment_status AS payment_status, p.amount AS amount " +
+            "FROM payments p JOIN bookings b ON b.id = p.booking_id JOIN rooms r ON r.id = b.room_id " +
+            "WHERE p.payment_status IN ('COMPLETED', 'REFUNDED') AND p.payment_date IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT a.hotel_id, CAST(a.payment_date AS DATE), " +
+            "COALESCE(a.payment_method, '" + UNKNOWN_METHOD + "'), a.payment_status, a.payment_amount " +
+            "FROM bookings_archive a JOIN hotels h ON h.id = a.hotel_id " +
+            "WHERE a.payment_status IN ('COMPLETED', 'REFUNDED') AND a.payment_date IS NOT NULL" +
+            ") s GROUP BY s.hotel_id, s.revenue_date, s.payment_method",
+            nativeQuery = true)
+    int insertFromPayments();
+
+    @Query("SELECT d FROM DailyRevenue d JOIN FETCH d.hotel h " +
+            "WHERE d.revenueDate >= :startDate AND d.revenueDate <= :endDate " +
+            "AND (:anyHotel = TRUE OR h.id = :hotelId) " +
+            "ORDER BY d.revenueDate, h.id, d.paymentMethod")
+    List<DailyRevenue> findInRange(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("anyHotel") boolean anyHotel,
+            @Param("hotelId") Long hotelId);
+}
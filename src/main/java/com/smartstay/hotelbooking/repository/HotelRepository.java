@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface HotelRepository extends JpaRepository<Hotel, Long> {
@@ -20,6 +21,26 @@ public interface HotelRepository extends JpaRepository<Hotel, Long> {
     Page<Hotel> findByCityAndMinimumRating(@Param("city") String city, @Param("minRating") int minRating,
             Pageable pageable);
 
+    // The amenity test runs in SQL, so the bind count stays fixed however many hotels match
+    @Query("SELECT h FROM Hotel h WHERE bitand(h.amenityMask, CAST(:amenityMask AS Long)) = :amenityMask " +
+            "AND (:city IS NULL OR h.city = :city) " +
+            "AND (:country IS NULL OR h.country = :country) " +
+            "AND (:minRating IS NULL OR h.starRating >= :minRating)")
+    Page<Hotel> findByAmenityMaskAndFilters(@Param("amenityMask") long amenityMask,
+            @Param("city") String city,
+            @Param("country") String country,
+            @Param("minRating") Integer minRating,
+            Pageable pageable);
+
+    @Query("SELECT h.id FROM Hotel h WHERE h.id IN :hotelIds " +
+            "AND (:city IS NULL OR h.city = :city) " +
+            "AND (:country IS NULL OR h.country = :country) " +
+            "AND (:minRating IS NULL OR h.starRating >= :minRating)")
+    List<Long> findIdsByIdInAndFilters(@Param("hotelIds") Collection<Long> hotelIds,
+            @Param("city") String city,
+            @Param("country") String country,
+            @Param("minRating") Integer minRating);
+
     @Query("SELECT h FROM Hotel h WHERE h.status = 'ACTIVE'")
     List<Hotel> findAllActiveHotels();
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.smartstay.hotelbooking.repository;
+
+import com.smartstay.hotelbooking.model.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByScopeAndUsernameAndIdempotencyKey(String scope, String username,
+            String idempotencyKey);
+
+    // Claims the key for a request about to run; 0 when another request already holds or answered it
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (scope, username, idempotency_key, request_hash, expires_at, " +
+            "created_at, updated_at) VALUES (:scope, :username, :idempotencyKey, :requestHash, :expiresAt, " +
+            ":now, :now) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertClaim(@Param("scope") String scope,
+            @Param("username") String username,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("requestHash") String requestHash,
+            @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("now") LocalDateTime now);
+
+    // Takes over a claim whose owner stopped before answering, or a stored response past its TTL
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.requestHash = :requestHash, r.statusCode = NULL, " +
+            "r.responseBody = NULL, r.expiresAt = :expiresAt, r.updatedAt = :now " +
+            "WHERE r.id = :id AND r.expiresAt <= :now")
+    int takeOverClaim(@Param("id") Long id,
+            @Param("requestHash") String requestHash,
+            @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody, " +
+            "r.expiresAt = :expiresAt, r.updatedAt = :now " +
+            "WHERE r.scope = :scope AND r.username = :username AND r.idempotencyKey = :idempotencyKey " +
+            "AND r.requestHash = :requestHash AND r.statusCode IS NULL")
+    int completeClaim(@Param("scope") String scope,
+            @Param("username") String username,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("requestHash") String requestHash,
+            @Param("statusCode") int statusCode,
+            @Param("responseBody") String responseBody,
+            @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r " +
+            "WHERE r.scope = :scope AND r.username = :username AND r.idempotencyKey = :idempotencyKey " +
+            "AND r.requestHash = :requestHash AND r.statusCode IS NULL")
+    int releaseClaim(@Param("scope") String scope,
+            @Param("username") String username,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("requestHash") String requestHash);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -2,23 +2,122 @@ package com.smartstay.hotelbooking.repository;
 
 import com.smartstay.hotelbooking.model.entity.Booking;
 import com.smartstay.hotelbooking.model.entity.Payment;
+import com.smartstay.hotelbooking.repository.projection.PaymentDailyTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentHotelTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentMethodTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentReportLine;
+import com.smartstay.hotelbooking.repository.projection.PaymentTotal;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+    String REPORT_FILTER = "WHERE p.paymentStatus = :status AND p.paymentDate BETWEEN :startDate AND :endDate ";
+    String REPORT_TOTALS = "COUNT(p) AS paymentCount, COALESCE(SUM(p.amount), 0) AS totalAmount ";
+
     Optional<Payment> findByBooking(Booking booking);
 
     Optional<Payment> findByTransactionId(String transactionId);
 
+    @Query("SELECT p FROM Payment p JOIN FETCH p.booking b JOIN FETCH b.user WHERE p.id = :id")
+    Optional<Payment> findWithBookingAndUserById(@Param("id") Long id);
+
+    // Compare-and-set on the status, so only one caller can move a payment into or out of PROCESSING
+    @Modifying
+    @Query("UPDATE Payment p SET p.paymentStatus = :to, p.updatedAt = :now " +
+            "WHERE p.id = :id AND p.paymentStatus IN :from")
+    int transitionStatus(@Param("id") Long id,
+            @Param("from") Collection<Payment.PaymentStatus> from,
+            @Param("to") Payment.PaymentStatus to,
+            @Param("now") LocalDateTime now);
+
+    // Claims a payment for a gateway call; the attempt must follow the last one, so the idempotency key built
+    // from it is never reused
+    @Modifying
+    @Query("UPDATE Payment p SET p.paymentStatus = :processing, p.gatewayOperation = :operation, " +
+            "p.gatewayAttempts = :attempt, p.updatedAt = :now WHERE p.id = :id AND p.paymentStatus IN :from " +
+            "AND COALESCE(p.gatewayAttempts, 0) = :attempt - 1")
+    int claimForGateway(@Param("id") Long id,
+            @Param("from") Collection<Payment.PaymentStatus> from,
+            @Param("processing") Payment.PaymentStatus processing,
+            @Param("operation") Payment.GatewayOperation operation,
+            @Param("attempt") int attempt,
+            @Param("now") LocalDateTime now);
+
+    // The method and card a charge is attempted with, written when the charge is claimed
+    @Modifying
+    @Query("UPDATE Payment p SET p.paymentMethod = :paymentMethod, p.cardLastDigits = :cardLastDigits " +
+            "WHERE p.id = :id")
+    int updateCardDetails(@Param("id") Long id,
+            @Param("paymentMethod") String paymentMethod,
+            @Param("cardLastDigits") String cardLastDigits);
+
+    // Written on its own as soon as a capture is approved, so the charge is on record even if completing fails
+    @Modifying
+    @Query("UPDATE Payment p SET p.transactionId = :transactionId, p.updatedAt = :now " +
+            "WHERE p.id = :id AND p.paymentStatus = :processing")
+    int recordTransactionId(@Param("id") Long id,
+            @Param("transactionId") String transactionId,
+            @Param("processing") Payment.PaymentStatus processing,
+            @Param("now") LocalDateTime now);
+
+    // Oldest first; only payments claimed with a recorded operation have a key the gateway can be asked about
+    @Query("SELECT p.id FROM Payment p WHERE p.paymentStatus IN :statuses AND p.updatedAt < :before " +
+            "AND p.gatewayOperation IS NOT NULL ORDER BY p.updatedAt")
+    List<Long> findUnsettledIds(@Param("statuses") Collection<Payment.PaymentStatus> statuses,
+            @Param("before") LocalDateTime before,
+            Pageable pageable);
+
     List<Payment> findByPaymentStatus(Payment.PaymentStatus status);
 
     @Query("SELECT p FROM Payment p WHERE p.paymentStatus = :status AND p.paymentDate BETWEEN :startDate AND :endDate")
     List<Payment> findByStatusAndDateRange(@Param("status") Payment.PaymentStatus status,
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+
+    // Report aggregates: one row per group, so their cost follows the number of groups rather than payments
+    @Query("SELECT " + REPORT_TOTALS + "FROM Payment p " + REPORT_FILTER)
+    PaymentTotal sumByStatusAndDateRange(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT CAST(p.paymentDate AS LocalDate) AS day, " + REPORT_TOTALS + "FROM Payment p " + REPORT_FILTER +
+            "GROUP BY CAST(p.paymentDate AS LocalDate) ORDER BY day")
+    List<PaymentDailyTotal> sumByDay(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT p.paymentMethod AS paymentMethod, " + REPORT_TOTALS + "FROM Payment p " + REPORT_FILTER +
+            "GROUP BY p.paymentMethod ORDER BY totalAmount DESC")
+    List<PaymentMethodTotal> sumByPaymentMethod(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT h.id AS hotelId, h.name AS hotelName, " + REPORT_TOTALS +
+            "FROM Payment p JOIN p.booking b JOIN b.room r JOIN r.hotel h " + REPORT_FILTER +
+            "GROUP BY h.id, h.name ORDER BY totalAmount DESC")
+    List<PaymentHotelTotal> sumByHotel(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query(value = "SELECT p.id AS id, p.amount AS amount, p.paymentMethod AS paymentMethod, " +
+            "p.transactionId AS transactionId, p.paymentStatus AS paymentStatus, p.paymentDate AS paymentDate, " +
+            "p.cardLastDigits AS cardLastDigits, p.createdAt AS createdAt, b.id AS bookingId, " +
+            "b.bookingReference AS bookingReference, b.bookingStatus AS bookingStatus, " +
+            "b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate, u.id AS userId, " +
+            "u.firstName AS firstName, u.lastName AS lastName, u.email AS email " +
+            "FROM Payment p JOIN p.booking b JOIN b.user u " + REPORT_FILTER,
+            countQuery = "SELECT COUNT(p) FROM Payment p " + REPORT_FILTER)
+    Page<PaymentReportLine> findReportLines(@Param("status") Payment.PaymentStatus status,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+}
@@ -3,14 +3,21 @@ package com.smartstay.hotelbooking.repository;
 import com.smartstay.hotelbooking.model.entity.Hotel;
 import com.smartstay.hotelbooking.model.entity.Room;
 import com.smartstay.hotelbooking.model.entity.RoomType;
+import com.smartstay.hotelbooking.repository.projection.AvailableRoomView;
+import com.smartstay.hotelbooking.repository.projection.HotelAvailabilityView;
+import com.smartstay.hotelbooking.repository.projection.RoomPlacement;
+import com.smartstay.hotelbooking.repository.projection.RoomTypeCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,16 +32,116 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
 
     Optional<Room> findByHotelAndRoomNumber(Hotel hotel, String roomNumber);
 
-    @Query("SELECT r FROM Room r WHERE r.pricePerNight BETWEEN :minPrice AND :maxPrice")
-    List<Room> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
+    @Query("SELECT r FROM Room r WHERE r.pricePerNight BETWEEN :minPrice AND :maxPrice ORDER BY r.pricePerNight, r.id")
+    List<Room> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice,
+            Pageable pageable);
 
     @Query("SELECT r FROM Room r WHERE r.hotel.id = :hotelId AND r.capacity >= :capacity")
     List<Room> findByHotelIdAndMinCapacity(@Param("hotelId") Long hotelId, @Param("capacity") Integer capacity);
 
     @Query("SELECT r FROM Room r WHERE r.hotel.id = :hotelId AND r.id NOT IN " +
             "(SELECT b.room.id FROM Booking b WHERE b.bookingStatus NOT IN ('CANCELLED', 'NO_SHOW') " +
-            "AND ((b.checkInDate <= :checkOutDate AND b.checkOutDate >= :checkInDate)))")
+            "AND b.checkInDate < :checkOutDate AND b.checkOutDate > :checkInDate)")
     List<Room> findAvailableRooms(@Param("hotelId") Long hotelId,
             @Param("checkInDate") LocalDate checkInDate,
             @Param("checkOutDate") LocalDate checkOutDate);
-}
\ No newline at end of file
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :roomId")
+    Optional<Room> findByIdForUpdate(@Param("roomId") Long roomId);
+
+    // Rows are locked in id order so concurrent group bookings cannot deadlock on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id IN :roomIds ORDER BY r.id")
+    List<Room> findAllByIdForUpdate(@Param("roomIds") Collection<Long> roomIds);
+
+    @Query("SELECT r FROM Room r JOIN FETCH r.hotel JOIN FETCH r.roomType")
+    List<Room> findAllWithHotelAndRoomType();
+
+    @Query("SELECT r FROM Room r JOIN FETCH r.hotel JOIN FETCH r.roomType WHERE r.id = :roomId")
+    Optional<Room> findByIdWithHotelAndRoomType(@Param("roomId") Long roomId);
+
+    @Query("SELECT r.hotel.id FROM Room r WHERE r.id = :roomId")
+    Optional<Long> findHotelIdById(@Param("roomId") Long roomId);
+
+    // Reads the stored row, not a possibly modified managed instance
+    @Query(value = "SELECT hotel_id AS hotelId, room_type_id AS roomTypeId FROM rooms WHERE id = :roomId",
+            nativeQuery = true)
+    Optional<RoomPlacement> findPlacementById(@Param("roomId") Long roomId);
+
+    @Query("SELECT r FROM Room r JOIN FETCH r.hotel JOIN FETCH r.roomType WHERE r.hotel.id = :hotelId")
+    List<Room> findByHotelIdWithHotelAndRoomType(@Param("hotelId") Long hotelId);
+
+    @Query("SELECT r FROM Room r JOIN FETCH r.hotel JOIN FETCH r.roomType WHERE r.roomType.id = :roomTypeId")
+    List<Room> findByRoomTypeIdWithHotelAndRoomType(@Param("roomTypeId") Long roomTypeId);
+
+    @Query("SELECT DISTINCT r.hotel.id FROM Room r WHERE r.roomType.id = :roomTypeId")
+    List<Long> findHotelIdsByRoomTypeId(@Param("roomTypeId") Long roomTypeId);
+
+    String ROOM_CANDIDATES_QUERY = "SELECT r.id AS roomId, r.roomNumber AS roomNumber, r.capacity AS capacity, " +
+            "r.pricePerNight AS pricePerNight, r.description AS description, " +
+            "h.id AS hotelId, h.name AS hotelName, h.city AS hotelCity, " +
+            "rt.id AS roomTypeId, rt.name AS roomTypeName, rt.amenityMask AS amenityMask " +
+            "FROM Room r JOIN r.hotel h JOIN r.roomType rt " +
+            "WHERE h.status = 'ACTIVE' " +
+            "AND (:city IS NULL OR LOWER(h.city) = :city) " +
+            "AND r.capacity >= :guests " +
+            "AND (:roomType IS NULL OR LOWER(rt.name) = :roomType) " +
+            "AND (:anyAmenities = TRUE OR rt.id IN :amenityRoomTypeIds) ";
+
+    String NO_OVERLAPPING_BOOKING = "AND NOT EXISTS (SELECT b.id FROM Booking b WHERE b.room = r " +
+            "AND b.bookingStatus NOT IN ('CANCELLED', 'NO_SHOW') " +
+            "AND b.checkInDate < :checkOutDate AND b.checkOutDate > :checkInDate) ";
+
+    String AVAILABLE_ROOMS_QUERY = ROOM_CANDIDATES_QUERY + NO_OVERLAPPING_BOOKING;
+
+    String AVAILABLE_ROOMS_ORDER = "ORDER BY r.pricePerNight, h.id, r.id";
+
+    @Query(AVAILABLE_ROOMS_QUERY + AVAILABLE_ROOMS_ORDER)
+    List<AvailableRoomView> searchAvailableRooms(@Param("city") String city,
+            @Param("checkInDate") LocalDate checkInDate,
+            @Param("checkOutDate") LocalDate checkOutDate,
+            @Param("guests") int guests,
+            @Param("roomType") String roomType,
+            @Param("anyAmenities") boolean anyAmenities,
+            @Param("amenityRoomTypeIds") Collection<Long> amenityRoomTypeIds,
+            Pageable pageable);
+
+    @Query(AVAILABLE_ROOMS_QUERY +
+            "AND (r.pricePerNight > :afterPrice OR (r.pricePerNight = :afterPrice " +
+            "AND (h.id > :afterHotelId OR (h.id = :afterHotelId AND r.id > :afterRoomId)))) " +
+            AVAILABLE_ROOMS_ORDER)
+    List<AvailableRoomView> searchAvailableRoomsAfter(@Param("city") String city,
+            @Param("checkInDate") LocalDate checkInDate,
+            @Param("checkOutDate") LocalDate checkOutDate,
+            @Param("guests") int guests,
+            @Param("roomType") String roomType,
+            @Param("anyAmenities") boolean anyAmenities,
+            @Param("amenityRoomTypeIds") Collection<Long> amenityRoomTypeIds,
+            @Param("afterPrice") BigDecimal afterPrice,
+            @Param("afterHotelId") Long afterHotelId,
+            @Param("afterRoomId") Long afterRoomId,
+            Pageable pageable);
+
+    @Query(ROOM_CANDIDATES_QUERY + AVAILABLE_ROOMS_ORDER)
+    List<AvailableRoomView> searchCandidateRooms(@Param("city") String city,
+            @Param("guests") int guests,
+            @Param("roomType") String roomType,
+            @Param("anyAmenities") boolean anyAmenities,
+            @Param("amenityRoomTypeIds") Collection<Long> amenityRoomTypeIds);
+
+    @Query("SELECT h.id AS hotelId, COUNT(r) AS availableRooms, MIN(r.pricePerNight) AS lowestPricePerNight " +
+            "FROM Room r JOIN r.hotel h " +
+            "WHERE h.id IN :hotelIds AND h.status = 'ACTIVE' AND r.capacity >= :guests " +
+            NO_OVERLAPPING_BOOKING +
+            "GROUP BY h.id")
+    List<HotelAvailabilityView> summarizeAvailableRoomsByHotel(@Param("hotelIds") Collection<Long> hotelIds,
+            @Param("checkInDate") LocalDate checkInDate,
+            @Param("checkOutDate") LocalDate checkOutDate,
+            @Param("guests") int guests);
+
+    @Query("SELECT r.hotel.id AS hotelId, rt.id AS roomTypeId, rt.name AS roomTypeName, COUNT(r) AS rooms " +
+            "FROM Room r JOIN r.roomType rt WHERE r.hotel.id = :hotelId " +
+            "GROUP BY r.hotel.id, rt.id, rt.name ORDER BY rt.name")
+    List<RoomTypeCount> countRoomsByRoomType(@Param("hotelId") Long hotelId);
+}
@@ -0,0 +1,62 @@
+package com.smartstay.hotelbooking.repository;
+
+import com.smartstay.hotelbooking.model.entity.RoomTypeInventory;
+import com.smartstay.hotelbooking.repository.projection.InventoryNight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RoomTypeInventoryRepository extends JpaRepository<RoomTypeInventory, Long> {
+
+    // Single-row atomic change of the sold count; returns 0 when the night has no ledger row yet
+    @Modifying
+    @Query(value = "UPDATE room_type_inventory SET sold = sold + :delta, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE hotel_id = :hotelId AND room_type_id = :roomTypeId AND stay_date = :stayDate",
+            nativeQuery = true)
+    int addSold(@Param("hotelId") Long hotelId,
+            @Param("roomTypeId") Long roomTypeId,
+            @Param("stayDate") LocalDate stayDate,
+            @Param("delta") int delta);
+
+    // Opens the night with the current room count; a concurrent insert of the same night wins silently
+    @Modifying
+    @Query(value = "INSERT INTO room_type_inventory " +
+            "(hotel_id, room_type_id, stay_date, capacity, sold, created_at, updated_at) " +
+            "SELECT :hotelId, :roomTypeId, :stayDate, COUNT(*), 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP " +
+            "FROM rooms WHERE hotel_id = :hotelId AND room_type_id = :roomTypeId " +
+            "ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertNight(@Param("hotelId") Long hotelId,
+            @Param("roomTypeId") Long roomTypeId,
+            @Param("stayDate") LocalDate stayDate);
+
+    // Recounts the rooms behind future nights, limited to one hotel and/or room type when given
+    @Modifying
+    @Query(value = "UPDATE room_type_inventory SET capacity = " +
+            "(SELECT COUNT(*) FROM rooms r WHERE r.hotel_id = room_type_inventory.hotel_id " +
+            "AND r.room_type_id = room_type_inventory.room_type_id), updated_at = CURRENT_TIMESTAMP " +
+            "WHERE stay_date >= :fromDate " +
+            "AND (:anyHotel = TRUE OR hotel_id = :hotelId) " +
+            "AND (:anyRoomType = TRUE OR room_type_id = :roomTypeId)",
+            nativeQuery = true)
+    int refreshCapacities(@Param("fromDate") LocalDate fromDate,
+            @Param("anyHotel") boolean anyHotel,
+            @Param("hotelId") Long hotelId,
+            @Param("anyRoomType") boolean anyRoomType,
+            @Param("roomTypeId") Long roomTypeId);
+
+    @Modifying
+    @Query("DELETE FROM RoomTypeInventory i WHERE i.stayDate >= :fromDate")
+    int deleteFrom(@Param("fromDate") LocalDate fromDate);
+
+    @Query("SELECT i.roomType.id AS roomTypeId, i.stayDate AS stayDate, i.capacity AS capacity, i.sold AS sold " +
+            "FROM RoomTypeInventory i WHERE i.hotel.id = :hotelId " +
+            "AND i.stayDate >= :startDate AND i.stayDate < :endDate")
+    List<InventoryNight> findNights(@Param("hotelId") Long hotelId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+}
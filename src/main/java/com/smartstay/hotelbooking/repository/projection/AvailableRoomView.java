@@ -0,0 +1,27 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface AvailableRoomView {
+    Long getRoomId();
+
+    String getRoomNumber();
+
+    Integer getCapacity();
+
+    BigDecimal getPricePerNight();
+
+    String getDescription();
+
+    Long getHotelId();
+
+    String getHotelName();
+
+    String getHotelCity();
+
+    Long getRoomTypeId();
+
+    String getRoomTypeName();
+
+    Long getAmenityMask();
+}
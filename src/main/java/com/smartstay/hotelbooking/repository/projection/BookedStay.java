@@ -0,0 +1,13 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import java.time.LocalDate;
+
+public interface BookedStay {
+    Long getBookingId();
+
+    Long getRoomId();
+
+    LocalDate getCheckInDate();
+
+    LocalDate getCheckOutDate();
+}
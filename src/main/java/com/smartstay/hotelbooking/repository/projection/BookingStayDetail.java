@@ -0,0 +1,19 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import java.time.LocalDate;
+
+public interface BookingStayDetail {
+    Long getBookingId();
+
+    Long getRoomId();
+
+    Long getHotelId();
+
+    Long getRoomTypeId();
+
+    String getCity();
+
+    LocalDate getCheckInDate();
+
+    LocalDate getCheckOutDate();
+}
@@ -0,0 +1,67 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One row per booking with its room, hotel, payment and review flattened in; payment and review may be null
+public interface BookingSummaryView {
+    Long getId();
+
+    String getBookingReference();
+
+    LocalDate getCheckInDate();
+
+    LocalDate getCheckOutDate();
+
+    Integer getAdults();
+
+    Integer getChildren();
+
+    BigDecimal getTotalPrice();
+
+    Booking.BookingStatus getBookingStatus();
+
+    String getSpecialRequests();
+
+    LocalDateTime getCreatedAt();
+
+    Long getRoomId();
+
+    String getRoomNumber();
+
+    String getRoomTypeName();
+
+    BigDecimal getPricePerNight();
+
+    Long getHotelId();
+
+    String getHotelName();
+
+    String getHotelAddress();
+
+    String getHotelCity();
+
+    String getHotelCountry();
+
+    Long getPaymentId();
+
+    BigDecimal getPaymentAmount();
+
+    String getPaymentMethod();
+
+    Payment.PaymentStatus getPaymentStatus();
+
+    LocalDateTime getPaymentDate();
+
+    Long getReviewId();
+
+    Integer getReviewRating();
+
+    String getReviewComment();
+
+    LocalDateTime getReviewDatePosted();
+}
@@ -0,0 +1,11 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface HotelAvailabilityView {
+    Long getHotelId();
+
+    Long getAvailableRooms();
+
+    BigDecimal getLowestPricePerNight();
+}
@@ -0,0 +1,13 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import java.time.LocalDate;
+
+public interface InventoryNight {
+    Long getRoomTypeId();
+
+    LocalDate getStayDate();
+
+    Integer getCapacity();
+
+    Integer getSold();
+}
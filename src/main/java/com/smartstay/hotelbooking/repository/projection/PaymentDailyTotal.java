@@ -0,0 +1,7 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import java.time.LocalDate;
+
+public interface PaymentDailyTotal extends PaymentTotal {
+    LocalDate getDay();
+}
@@ -0,0 +1,7 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+public interface PaymentHotelTotal extends PaymentTotal {
+    Long getHotelId();
+
+    String getHotelName();
+}
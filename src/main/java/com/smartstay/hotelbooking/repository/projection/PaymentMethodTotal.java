@@ -0,0 +1,5 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+public interface PaymentMethodTotal extends PaymentTotal {
+    String getPaymentMethod();
+}
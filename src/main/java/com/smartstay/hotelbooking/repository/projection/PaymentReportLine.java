@@ -0,0 +1,45 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One payment with the booking and guest details the admin report shows
+public interface PaymentReportLine {
+    Long getId();
+
+    BigDecimal getAmount();
+
+    String getPaymentMethod();
+
+    String getTransactionId();
+
+    Payment.PaymentStatus getPaymentStatus();
+
+    LocalDateTime getPaymentDate();
+
+    String getCardLastDigits();
+
+    LocalDateTime getCreatedAt();
+
+    Long getBookingId();
+
+    String getBookingReference();
+
+    Booking.BookingStatus getBookingStatus();
+
+    LocalDate getCheckInDate();
+
+    LocalDate getCheckOutDate();
+
+    Long getUserId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmail();
+}
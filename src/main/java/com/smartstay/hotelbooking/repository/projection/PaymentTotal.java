@@ -0,0 +1,10 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+import java.math.BigDecimal;
+
+// Count and sum of a set of payments, computed by the database
+public interface PaymentTotal {
+    Long getPaymentCount();
+
+    BigDecimal getTotalAmount();
+}
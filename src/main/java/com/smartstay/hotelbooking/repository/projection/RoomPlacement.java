@@ -0,0 +1,7 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+public interface RoomPlacement {
+    Long getHotelId();
+
+    Long getRoomTypeId();
+}
@@ -0,0 +1,11 @@
+package com.smartstay.hotelbooking.repository.projection;
+
+public interface RoomTypeCount {
+    Long getHotelId();
+
+    Long getRoomTypeId();
+
+    String getRoomTypeName();
+
+    Long getRooms();
+}
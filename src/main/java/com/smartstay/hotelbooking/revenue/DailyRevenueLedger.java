@@ -0,0 +1,142 @@
+package com.smartstay.hotelbooking.revenue;
+
+import com.smartstay.hotelbooking.model.entity.DailyRevenue;
+import com.smartstay.hotelbooking.model.entity.Payment;
+import com.smartstay.hotelbooking.repository.DailyRevenueRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-day, per-hotel, per-payment-method revenue; payment writes adjust it in their own transaction so finance
+// reads never have to scan the payments table
+@Component
+public class DailyRevenueLedger {
+
+    private final DailyRevenueRepository revenueRepository;
+
+    @Autowired
+    public DailyRevenueLedger(DailyRevenueRepository revenueRepository) {
+        this.revenueRepository = revenueRepository;
+    }
+
+    // Counts the payment in its current state; call after a payment reaches COMPLETED or REFUNDED
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long hotelId, Payment payment) {
+        apply(hotelId, payment, 1);
+    }
+
+    // Takes the payment out in its current state; call before changing its status, method or date
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reverse(Long hotelId, Payment payment) {
+        apply(hotelId, payment, -1);
+    }
+
+    private void apply(Long hotelId, Payment payment, int sign) {
+        Payment.PaymentStatus status = payment.getPaymentStatus();
+        if (payment.getPaymentDate() == null
+                || (status != Payment.PaymentStatus.COMPLETED && status != Payment.PaymentStatus.REFUNDED)) {
+            return;
+        }
+        LocalDate day = payment.getPaymentDate().toLocalDate();
+        String method = payment.getPaymentMethod() != null
+                ? payment.getPaymentMethod()
+                : DailyRevenueRepository.UNKNOWN_METHOD;
+        BigDecimal amount = sign > 0 ? payment.getAmount() : payment.getAmount().negate();
+        boolean completed = status == Payment.PaymentStatus.COMPLETED;
+
+        BigDecimal completedAmount = completed ? amount : BigDecimal.ZERO;
+        BigDecimal refundedAmount = completed ? BigDecimal.ZERO : amount;
+        long completedCount = completed ? sign : 0;
+        long refundedCount = completed ? 0 : sign;
+        if (revenueRepository.addRevenue(hotelId, day, method, completedAmount, completedCount,
+                refundedAmount, refundedCount) == 0) {
+            // First payment of the day for this hotel and method: open the row, then retry against it
+            revenueRepository.insertDay(hotelId, day, method);
+            revenueRepository.addRevenue(hotelId, day, method, completedAmount, completedCount,
+                    refundedAmount, refundedCount);
+        }
+    }
+
+    // Recomputes the whole rollup from hot and archived payments and returns the number of rows written.
+    // A payment settling while it runs is missed or counted twice, and nothing here can hold payment writes off
+    // across instances, so it only runs from the admin endpoint, with payments quiesced (see the README)
+    @Transactional
+    public int rebuild() {
+        revenueRepository.deleteAllDays();
+        return revenueRepository.insertFromPayments();
+    }
+
+    // Reads one row per day, hotel and method, so the cost follows the range length rather than payment volume
+    @Transactional(readOnly = true)
+    public Map<String, Object> getRevenue(LocalDate startDate, LocalDate endDate, Long hotelId) {
+        List<DailyRevenue> rows = revenueRepository.findInRange(startDate, endDate, hotelId == null,
+                hotelId != null ? hotelId : 0L);
+
+        // Rows arrive ordered by day, so grouping keeps the days in order
+        Map<LocalDate, List<DailyRevenue>> rowsByDay = new LinkedHashMap<>();
+        for (DailyRevenue row : rows) {
+            // A payment that moved to another day or method leaves an empty row behind
+            if (row.getCompletedCount() == 0 && row.getRefundedCount() == 0) {
+                continue;
+            }
+            rowsByDay.computeIfAbsent(row.getRevenueDate(), day -> new ArrayList<>()).add(row);
+        }
+
+        List<Map<String, Object>> days = new ArrayList<>(rowsByDay.size());
+        BigDecimal completedTotal = BigDecimal.ZERO;
+        BigDecimal refundedTotal = BigDecimal.ZERO;
+        long completedCount = 0;
+        long refundedCount = 0;
+        for (Map.Entry<LocalDate, List<DailyRevenue>> entry : rowsByDay.entrySet()) {
+            BigDecimal dayCompleted = BigDecimal.ZERO;
+            BigDecimal dayRefunded = BigDecimal.ZERO;
+            List<Map<String, Object>> breakdown = new ArrayList<>(entry.getValue().size());
+            for (DailyRevenue row : entry.getValue()) {
+                Map<String, Object> rowMap = new HashMap<>();
+                rowMap.put("hotelId", row.getHotel().getId());
+                rowMap.put("hotelName", row.getHotel().getName());
+                rowMap.put("paymentMethod", row.getPaymentMethod());
+                rowMap.put("completedAmount", row.getCompletedAmount());
+                rowMap.put("completedCount", row.getCompletedCount());
+                rowMap.put("refundedAmount", row.getRefundedAmount());
+                rowMap.put("refundedCount", row.getRefundedCount());
+                breakdown.add(rowMap);
+
+                dayCompleted = dayCompleted.add(row.getCompletedAmount());
+                dayRefunded = dayRefunded.add(row.getRefundedAmount());
+                completedCount += row.getCompletedCount();
+                refundedCount += row.getRefundedCount();
+            }
+
+            Map<String, Object> dayMap = new HashMap<>();
+            dayMap.put("date", entry.getKey());
+            dayMap.put("completedAmount", dayCompleted);
+            dayMap.put("refundedAmount", dayRefunded);
+            dayMap.put("breakdown", breakdown);
+            days.add(dayMap);
+
+            completedTotal = completedTotal.add(dayCompleted);
+            refundedTotal = refundedTotal.add(dayRefunded);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("startDate", startDate);
+        response.put("endDate", endDate);
+        response.put("hotelId", hotelId);
+        response.put("completedAmount", completedTotal);
+        response.put("completedCount", completedCount);
+        response.put("refundedAmount", refundedTotal);
+        response.put("refundedCount", refundedCount);
+        response.put("days", days);
+        return response;
+    }
+}
@@ -0,0 +1,14 @@
+package com.smartstay.hotelbooking.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class GeoMatch {
+
+    private final Long hotelId;
+
+    // Great-circle distance from the search point, or from the centre of the searched box
+    private final double distanceKm;
+}
@@ -0,0 +1,203 @@
+package com.smartstay.hotelbooking.search;
+
+import com.smartstay.hotelbooking.event.HotelChangedEvent;
+import com.smartstay.hotelbooking.model.entity.Hotel;
+import com.smartstay.hotelbooking.repository.HotelRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Uniform latitude/longitude grid over active hotels with coordinates
+@Component
+public class HotelGeoIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final HotelRepository hotelRepository;
+
+    @Value("${app.geo.cell-degrees:0.1}")
+    private double cellDegrees;
+
+    private final Map<Long, GeoPoint> points = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HotelGeoIndex(HotelRepository hotelRepository) {
+        this.hotelRepository = hotelRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, GeoPoint> snapshot = new HashMap<>();
+        for (Hotel hotel : hotelRepository.findAll()) {
+            GeoPoint point = GeoPoint.of(hotel);
+            if (point != null) {
+                snapshot.put(hotel.getId(), point);
+            }
+        }
+
+        synchronized (this) {
+            points.clear();
+            cells.clear();
+            snapshot.values().forEach(this::add);
+        }
+    }
+
+    // Hotels within radiusKm of the point, nearest first
+    public List<GeoMatch> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double longitudeDelta = radiusKm / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+
+        List<GeoMatch> matches = new ArrayList<>();
+        for (GeoPoint point : candidates(latitude - latitudeDelta, longitude - longitudeDelta,
+                latitude + latitudeDelta, longitude + longitudeDelta)) {
+            double distance = distanceKm(latitude, longitude, point.latitude, point.longitude);
+            if (distance <= radiusKm) {
+                matches.add(new GeoMatch(point.hotelId, distance));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(GeoMatch::getDistanceKm));
+        return matches;
+    }
+
+    // Hotels inside the box, nearest to its centre first
+    public List<GeoMatch> findWithinBounds(double minLatitude, double minLongitude,
+            double maxLatitude, double maxLongitude) {
+        double centreLatitude = (minLatitude + maxLatitude) / 2;
+        double centreLongitude = (minLongitude + maxLongitude) / 2;
+
+        List<GeoMatch> matches = new ArrayList<>();
+        for (GeoPoint point : candidates(minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+            matches.add(new GeoMatch(point.hotelId,
+                    distanceKm(centreLatitude, centreLongitude, point.latitude, point.longitude)));
+        }
+        matches.sort(Comparator.comparingDouble(GeoMatch::getDistanceKm));
+        return matches;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHotelChanged(HotelChangedEvent event) {
+        GeoPoint current = hotelRepository.findById(event.getHotelId()).map(GeoPoint::of).orElse(null);
+        synchronized (this) {
+            GeoPoint previous = points.remove(event.getHotelId());
+            if (previous != null) {
+                Set<Long> cell = cells.get(cellKey(previous.latitude, previous.longitude));
+                if (cell != null) {
+                    cell.remove(previous.hotelId);
+                }
+            }
+            if (current != null) {
+                add(current);
+            }
+        }
+    }
+
+    private void add(GeoPoint point) {
+        points.put(point.hotelId, point);
+        cells.computeIfAbsent(cellKey(point.latitude, point.longitude), key -> ConcurrentHashMap.newKeySet())
+                .add(point.hotelId);
+    }
+
+    // Points inside the box; walks the covering cells, or every point when that is fewer
+    private List<GeoPoint> candidates(double minLatitude, double minLongitude,
+            double maxLatitude, double maxLongitude) {
+        double south = Math.max(minLatitude, -90);
+        double north = Math.min(maxLatitude, 90);
+        double west = Math.max(minLongitude, -180);
+        double east = Math.min(maxLongitude, 180);
+
+        List<GeoPoint> inside = new ArrayList<>();
+        if (south > north || west > east) {
+            return inside;
+        }
+
+        int minRow = row(south);
+        int maxRow = row(north);
+        int minColumn = column(west);
+        int maxColumn = column(east);
+        long coveringCells = (long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+
+        if (coveringCells > points.size()) {
+            for (GeoPoint point : points.values()) {
+                if (point.isInside(south, west, north, east)) {
+                    inside.add(point);
+                }
+            }
+            return inside;
+        }
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                Set<Long> cell = cells.get(cellKey(row, column));
+                if (cell == null) {
+                    continue;
+                }
+                for (Long hotelId : cell) {
+                    GeoPoint point = points.get(hotelId);
+                    if (point != null && point.isInside(south, west, north, east)) {
+                        inside.add(point);
+                    }
+                }
+            }
+        }
+        return inside;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey(row(latitude), column(longitude));
+    }
+
+    private long cellKey(int row, int column) {
+        return ((long) row << 32) | column;
+    }
+
+    // Haversine distance
+    private static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    @AllArgsConstructor
+    private static class GeoPoint {
+        private final Long hotelId;
+        private final double latitude;
+        private final double longitude;
+
+        static GeoPoint of(Hotel hotel) {
+            if (hotel.getStatus() != Hotel.HotelStatus.ACTIVE
+                    || hotel.getLatitude() == null || hotel.getLongitude() == null) {
+                return null;
+            }
+            return new GeoPoint(hotel.getId(), hotel.getLatitude(), hotel.getLongitude());
+        }
+
+        boolean isInside(double south, double west, double north, double east) {
+            return latitude >= south && latitude <= north && longitude >= west && longitude <= east;
+        }
+    }
+}
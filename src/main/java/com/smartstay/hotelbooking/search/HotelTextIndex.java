@@ -0,0 +1,259 @@
+package com.smartstay.hotelbooking.search;
+
+import com.smartstay.hotelbooking.event.HotelChangedEvent;
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
+import com.smartstay.hotelbooking.event.RoomTypeChangedEvent;
+import com.smartstay.hotelbooking.model.entity.Hotel;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.RoomType;
+import com.smartstay.hotelbooking.repository.HotelRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Inverted index over hotel text and the room types each hotel offers, scored with BM25
+@Component
+public class HotelTextIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // A term in a more specific field counts as several occurrences
+    private static final float NAME_WEIGHT = 3;
+    private static final float CITY_WEIGHT = 2;
+    private static final float TEXT_WEIGHT = 1;
+
+    // A term matched only as a prefix of the last query word scores at this fraction
+    private static final double PREFIX_FACTOR = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "at", "by", "for", "in", "of", "on",
+            "or", "the", "to", "with");
+
+    private final HotelRepository hotelRepository;
+    private final RoomRepository roomRepository;
+
+    // Sorted so that a prefix maps onto a contiguous range of terms
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Map<String, Float>> documents = new ConcurrentHashMap<>();
+    private final Map<Long, Float> documentLengths = new ConcurrentHashMap<>();
+    private volatile double totalLength;
+
+    @Autowired
+    public HotelTextIndex(HotelRepository hotelRepository, RoomRepository roomRepository) {
+        this.hotelRepository = hotelRepository;
+        this.roomRepository = roomRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Map<Long, Set<RoomType>> roomTypesByHotel = new HashMap<>();
+        for (Room room : roomRepository.findAllWithHotelAndRoomType()) {
+            roomTypesByHotel.computeIfAbsent(room.getHotel().getId(), id -> new LinkedHashSet<>())
+                    .add(room.getRoomType());
+        }
+
+        synchronized (this) {
+            postings.clear();
+            documents.clear();
+            documentLengths.clear();
+            totalLength = 0;
+            for (Hotel hotel : hotelRepository.findAll()) {
+                index(hotel.getId(), termFrequencies(hotel, roomTypesByHotel.getOrDefault(hotel.getId(), Set.of())));
+            }
+        }
+    }
+
+    // Hotel ids holding every query word, best match first; the last word also matches as a prefix
+    public List<Long> search(String query) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || documents.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int documentCount = documents.size();
+        double averageLength = totalLength / documentCount;
+        Map<Long, Double> scores = null;
+        for (int i = 0; i < words.size(); i++) {
+            boolean prefix = i == words.size() - 1;
+            Map<Long, Double> wordScores = scoreWord(words.get(i), prefix, documentCount, averageLength);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                scores.keySet().retainAll(wordScores.keySet());
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + wordScores.get(entry.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Long> hotelIds = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Double> entry : ranked) {
+            hotelIds.add(entry.getKey());
+        }
+        return hotelIds;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onHotelChanged(HotelChangedEvent event) {
+        reindex(List.of(event.getHotelId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onRoomChanged(RoomChangedEvent event) {
+        // A deleted room no longer names its hotel; its room type text stays until that hotel changes again
+        roomRepository.findById(event.getRoomId()).ifPresent(room -> reindex(List.of(room.getHotel().getId())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onRoomTypeChanged(RoomTypeChangedEvent event) {
+        reindex(roomRepository.findHotelIdsByRoomTypeId(event.getRoomTypeId()));
+    }
+
+    private void reindex(Collection<Long> hotelIds) {
+        for (Long hotelId : hotelIds) {
+            Map<String, Float> frequencies = hotelRepository.findById(hotelId)
+                    .map(hotel -> termFrequencies(hotel, roomTypesOf(hotelId)))
+                    .orElse(null);
+            synchronized (this) {
+                remove(hotelId);
+                if (frequencies != null) {
+                    index(hotelId, frequencies);
+                }
+            }
+        }
+    }
+
+    private Set<RoomType> roomTypesOf(Long hotelId) {
+        Set<RoomType> roomTypes = new LinkedHashSet<>();
+        for (Room room : roomRepository.findByHotelIdWithHotelAndRoomType(hotelId)) {
+            roomTypes.add(room.getRoomType());
+        }
+        return roomTypes;
+    }
+
+    private Map<Long, Double> scoreWord(String word, boolean prefix, int documentCount, double averageLength) {
+        Map<Long, Double> scores = new HashMap<>();
+        addTermScores(scores, word, postings.get(word), 1.0, documentCount, averageLength);
+        if (prefix) {
+            NavigableMap<String, Map<Long, Float>> expansions = postings.subMap(word, false, word + Character.MAX_VALUE,
+                    false);
+            int expanded = 0;
+            for (Map.Entry<String, Map<Long, Float>> expansion : expansions.entrySet()) {
+                if (expanded++ == MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                addTermScores(scores, expansion.getKey(), expansion.getValue(), PREFIX_FACTOR, documentCount,
+                        averageLength);
+            }
+        }
+        return scores;
+    }
+
+    // Per document, a word keeps the score of its best matching term
+    private void addTermScores(Map<Long, Double> scores, String term, Map<Long, Float> documentsWithTerm,
+            double factor, int documentCount, double averageLength) {
+        if (documentsWithTerm == null || documentsWithTerm.isEmpty()) {
+            return;
+        }
+        int documentFrequency = documentsWithTerm.size();
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        for (Map.Entry<Long, Float> posting : documentsWithTerm.entrySet()) {
+            Float length = documentLengths.get(posting.getKey());
+            if (length == null) {
+                continue;
+            }
+            double frequency = posting.getValue();
+            double score = factor * idf * frequency * (K1 + 1)
+                    / (frequency + K1 * (1 - B + B * length / averageLength));
+            scores.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private void index(Long hotelId, Map<String, Float> frequencies) {
+        float length = 0;
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new ConcurrentHashMap<>()).put(hotelId, entry.getValue());
+            length += entry.getValue();
+        }
+        documents.put(hotelId, frequencies);
+        documentLengths.put(hotelId, length);
+        totalLength += length;
+    }
+
+    private void remove(Long hotelId) {
+        Map<String, Float> previous = documents.remove(hotelId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.keySet()) {
+            postings.computeIfPresent(term, (key, documentsWithTerm) -> {
+                documentsWithTerm.remove(hotelId);
+                return documentsWithTerm.isEmpty() ? null : documentsWithTerm;
+            });
+        }
+        Float length = documentLengths.remove(hotelId);
+        totalLength -= length != null ? length : 0;
+    }
+
+    private static Map<String, Float> termFrequencies(Hotel hotel, Collection<RoomType> roomTypes) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addTerms(frequencies, hotel.getName(), NAME_WEIGHT);
+        addTerms(frequencies, hotel.getCity(), CITY_WEIGHT);
+        addTerms(frequencies, hotel.getCountry(), TEXT_WEIGHT);
+        addTerms(frequencies, hotel.getDescription(), TEXT_WEIGHT);
+        addTerms(frequencies, hotel.getAmenities(), TEXT_WEIGHT);
+        for (RoomType roomType : roomTypes) {
+            addTerms(frequencies, roomType.getName(), TEXT_WEIGHT);
+            addTerms(frequencies, roomType.getDescription(), TEXT_WEIGHT);
+            addTerms(frequencies, roomType.getAmenities(), TEXT_WEIGHT);
+        }
+        return frequencies;
+    }
+
+    private static void addTerms(Map<String, Float> frequencies, String text, float weight) {
+        for (String term : tokenize(text)) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+    }
+
+    // Lower-cased runs of letters and digits, without stop words
+    private static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+}
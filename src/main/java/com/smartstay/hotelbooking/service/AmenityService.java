@@ -0,0 +1,21 @@
+package com.smartstay.hotelbooking.service;
+
+import com.smartstay.hotelbooking.model.entity.Amenity;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+
+public interface AmenityService {
+    List<Amenity> findAll();
+
+    long registerAmenities(String amenities);
+
+    OptionalLong findMask(String amenities);
+
+    List<String> getNames(long mask);
+
+    Set<Long> findHotelIdsWithAmenities(long mask);
+
+    Set<Long> findRoomTypeIdsWithAmenities(long mask);
+}
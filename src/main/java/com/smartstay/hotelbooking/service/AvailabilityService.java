@@ -0,0 +1,33 @@
+package com.smartstay.hotelbooking.service;
+
+import com.smartstay.hotelbooking.dto.response.AvailabilityCalendarDay;
+import com.smartstay.hotelbooking.dto.response.AvailableRoomPage;
+import com.smartstay.hotelbooking.dto.response.AvailableRoomResponse;
+import com.smartstay.hotelbooking.dto.response.FlexibleRoomResponse;
+import com.smartstay.hotelbooking.dto.response.HotelAvailabilitySummary;
+import com.smartstay.hotelbooking.dto.response.RoomTypeInventoryResponse;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface AvailabilityService {
+    AvailableRoomPage searchAvailableRooms(String city, LocalDate checkInDate, LocalDate checkOutDate,
+            int guests, String roomType, String amenities, String cursor, int size);
+
+    List<AvailableRoomResponse> findCheapestRooms(String city, LocalDate checkInDate, LocalDate checkOutDate,
+            int guests, String roomType, String amenities, int k);
+
+    List<FlexibleRoomResponse> searchFlexibleStays(String city, LocalDate windowStart, LocalDate windowEnd,
+            int nights, int guests, String roomType, String amenities, int size);
+
+    Map<Long, List<AvailabilityCalendarDay>> getAvailabilityCalendars(Collection<Long> roomIds, LocalDate startDate,
+            int days);
+
+    Map<Long, HotelAvailabilitySummary> summarizeHotels(Set<Long> hotelIds, LocalDate checkInDate,
+            LocalDate checkOutDate, int guests);
+
+    List<RoomTypeInventoryResponse> getRoomTypeInventory(Long hotelId, LocalDate startDate, int days);
+}
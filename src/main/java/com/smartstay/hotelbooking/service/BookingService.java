@@ -1,14 +1,21 @@
 package com.smartstay.hotelbooking.service;
 
+import com.smartstay.hotelbooking.booking.QueuedBookingRequest;
+import com.smartstay.hotelbooking.booking.RoomHold;
+import com.smartstay.hotelbooking.dto.request.GroupBookingItem;
+import com.smartstay.hotelbooking.model.entity.ArchivedBooking;
 import com.smartstay.hotelbooking.model.entity.Booking;
 import com.smartstay.hotelbooking.model.entity.Room;
 import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.projection.BookingSummaryView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface BookingService {
     Booking createBooking(Booking booking);
@@ -19,6 +26,12 @@ public interface BookingService {
 
     Page<Booking> findByUser(User user, Pageable pageable);
 
+    // Stays already moved to the archive; they no longer show up in any of the queries above
+    Page<ArchivedBooking> findArchivedByUser(Long userId, Pageable pageable);
+
+    // A null status lists bookings in every status
+    Page<BookingSummaryView> findSummariesByUsername(String username, Booking.BookingStatus status, Pageable pageable);
+
     List<Booking> findByRoom(Room room);
 
     List<Booking> findByBookingStatus(Booking.BookingStatus status);
@@ -27,13 +40,18 @@ public interface BookingService {
 
     List<Booking> findByHotelAndDateRange(Long hotelId, LocalDate startDate, LocalDate endDate);
 
+    // Hands each booking, archived ones included, to the consumer as it is read, inside one read-only transaction
+    void exportByHotelAndDateRange(Long hotelId, LocalDate startDate, LocalDate endDate,
+            Consumer<BookingSummaryView> consumer);
+
     boolean isRoomBookedInDateRange(Long roomId, LocalDate checkInDate, LocalDate checkOutDate);
 
     Booking updateBooking(Booking booking);
 
     Booking updateBookingStatus(Long bookingId, Booking.BookingStatus status);
 
-    Booking cancelBooking(Long bookingId);
+    // A paid booking is refunded at the gateway first and only cancelled once the refund goes through
+    CompletableFuture<Booking> cancelBooking(Long bookingId);
 
     void deleteBooking(Long id);
 
@@ -43,4 +61,16 @@ public interface BookingService {
     Booking processBookingRequest(Long userId, Long roomId, LocalDate checkInDate,
             LocalDate checkOutDate, int adults, int children,
             String specialRequests);
+
+    // Books every room or none of them
+    List<Booking> processGroupBookingRequest(Long userId, List<GroupBookingItem> rooms, String specialRequests);
+
+    // Writes one micro-batch from the async pipeline in a single transaction, recording each request's outcome
+    void processQueuedBookings(List<QueuedBookingRequest> requests);
+
+    RoomHold holdRoom(Long userId, Long roomId, LocalDate checkInDate, LocalDate checkOutDate);
+
+    void releaseHold(Long userId, String holdId);
+
+    Booking confirmHold(Long userId, String holdId, int adults, int children, String specialRequests);
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.smartstay.hotelbooking.service;
 
+import com.smartstay.hotelbooking.dto.response.NearbyHotelResponse;
 import com.smartstay.hotelbooking.model.entity.Hotel;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +24,18 @@ public interface HotelService {
 
     Page<Hotel> findByCityAndMinimumRating(String city, int minRating, Pageable pageable);
 
+    Page<Hotel> findByAmenities(String amenities, String city, String country, Integer minRating,
+            Pageable pageable);
+
+    Page<Hotel> searchByText(String query, String amenities, String city, String country, Integer minRating,
+            Pageable pageable);
+
+    List<NearbyHotelResponse> findNearby(double latitude, double longitude, double radiusKm,
+            LocalDate checkInDate, LocalDate checkOutDate, int guests, int limit);
+
+    List<NearbyHotelResponse> findWithinBounds(double minLatitude, double minLongitude, double maxLatitude,
+            double maxLongitude, LocalDate checkInDate, LocalDate checkOutDate, int guests, int limit);
+
     List<Hotel> findAllActiveHotels();
 
     Hotel updateHotel(Hotel hotel);
@@ -2,11 +2,19 @@ package com.smartstay.hotelbooking.service;
 
 import com.smartstay.hotelbooking.model.entity.Booking;
 import com.smartstay.hotelbooking.model.entity.Payment;
+import com.smartstay.hotelbooking.repository.projection.PaymentDailyTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentHotelTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentMethodTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentReportLine;
+import com.smartstay.hotelbooking.repository.projection.PaymentTotal;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface PaymentService {
     Payment createPayment(Payment payment);
@@ -22,12 +30,29 @@ public interface PaymentService {
     List<Payment> findByStatusAndDateRange(Payment.PaymentStatus status, LocalDateTime startDate,
             LocalDateTime endDate);
 
+    PaymentTotal sumByStatusAndDateRange(Payment.PaymentStatus status, LocalDateTime startDate,
+            LocalDateTime endDate);
+
+    List<PaymentDailyTotal> sumByDay(Payment.PaymentStatus status, LocalDateTime startDate, LocalDateTime endDate);
+
+    List<PaymentMethodTotal> sumByPaymentMethod(Payment.PaymentStatus status, LocalDateTime startDate,
+            LocalDateTime endDate);
+
+    List<PaymentHotelTotal> sumByHotel(Payment.PaymentStatus status, LocalDateTime startDate, LocalDateTime endDate);
+
+    Page<PaymentReportLine> findReportLines(Payment.PaymentStatus status, LocalDateTime startDate,
+            LocalDateTime endDate, Pageable pageable);
+
     Payment updatePayment(Payment payment);
 
-    Payment processPayment(Long bookingId, String paymentMethod, String cardNumber,
+    // Both complete once the gateway has answered; no database transaction stays open while it is called
+    CompletableFuture<Payment> processPayment(Long bookingId, String paymentMethod, String cardNumber,
             String cardHolderName, String expiryMonth, String expiryYear, String cvv);
 
-    Payment refundPayment(Long paymentId);
+    CompletableFuture<Payment> refundPayment(Long paymentId);
+
+    // Settles a payment whose gateway outcome was lost, by looking the call up at the gateway
+    CompletableFuture<Payment> reconcilePayment(Long paymentId);
 
     void deletePayment(Long id);
 }
\ No newline at end of file
@@ -28,7 +28,7 @@ public interface RoomService {
 
     Optional<Room> findByHotelAndRoomNumber(Hotel hotel, String roomNumber);
 
-    List<Room> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+    List<Room> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
 
     List<Room> findByHotelIdAndMinCapacity(Long hotelId, Integer capacity);
 
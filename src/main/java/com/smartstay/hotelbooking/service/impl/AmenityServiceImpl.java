@@ -0,0 +1,202 @@
+package com.smartstay.hotelbooking.service.impl;
+
+import com.smartstay.hotelbooking.event.HotelChangedEvent;
+import com.smartstay.hotelbooking.event.RoomTypeChangedEvent;
+import com.smartstay.hotelbooking.model.entity.Amenity;
+import com.smartstay.hotelbooking.model.entity.Hotel;
+import com.smartstay.hotelbooking.model.entity.RoomType;
+import com.smartstay.hotelbooking.repository.AmenityRepository;
+import com.smartstay.hotelbooking.repository.HotelRepository;
+import com.smartstay.hotelbooking.repository.RoomTypeRepository;
+import com.smartstay.hotelbooking.service.AmenityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class AmenityServiceImpl implements AmenityService {
+
+    // One bit per amenity in the BIGINT amenity_mask columns
+    private static final int MAX_AMENITIES = Long.SIZE;
+
+    private final AmenityRepository amenityRepository;
+    private final HotelRepository hotelRepository;
+    private final RoomTypeRepository roomTypeRepository;
+
+    private final Map<String, Integer> bitsByCode = new ConcurrentHashMap<>();
+    private final String[] namesByBit = new String[MAX_AMENITIES];
+    private final Map<Long, List<String>> namesByMask = new ConcurrentHashMap<>();
+    private final Map<Long, Long> hotelMasks = new ConcurrentHashMap<>();
+    private final Map<Long, Long> roomTypeMasks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AmenityServiceImpl(AmenityRepository amenityRepository,
+            HotelRepository hotelRepository,
+            RoomTypeRepository roomTypeRepository) {
+        this.amenityRepository = amenityRepository;
+        this.hotelRepository = hotelRepository;
+        this.roomTypeRepository = roomTypeRepository;
+    }
+
+    // Runs ahead of the availability index so rooms are indexed with up-to-date masks
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void rebuild() {
+        synchronized (namesByBit) {
+            for (Amenity amenity : amenityRepository.findAllByOrderByBitAsc()) {
+                bitsByCode.put(amenity.getCode(), amenity.getBit());
+                namesByBit[amenity.getBit()] = amenity.getName();
+            }
+        }
+
+        // Rows written without going through the services (seed data, older rows) get their masks here
+        for (Hotel hotel : hotelRepository.findAll()) {
+            long mask = registerAmenities(hotel.getAmenities());
+            if (!Objects.equals(hotel.getAmenityMask(), mask)) {
+                hotel.setAmenityMask(mask);
+            }
+            hotelMasks.put(hotel.getId(), mask);
+        }
+        for (RoomType roomType : roomTypeRepository.findAll()) {
+            long mask = registerAmenities(roomType.getAmenities());
+            if (!Objects.equals(roomType.getAmenityMask(), mask)) {
+                roomType.setAmenityMask(mask);
+            }
+            roomTypeMasks.put(roomType.getId(), mask);
+        }
+    }
+
+    @Override
+    public List<Amenity> findAll() {
+        return amenityRepository.findAllByOrderByBitAsc();
+    }
+
+    // Mask for a comma-separated amenity list, adding names not seen before to the dictionary
+    @Override
+    public long registerAmenities(String amenities) {
+        long mask = 0L;
+        for (String name : split(amenities)) {
+            String code = toCode(name);
+            Integer bit = bitsByCode.get(code);
+            if (bit == null) {
+                bit = register(code, name);
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    // Mask for a filter; empty when a name is not in the dictionary, since nothing can match it
+    @Override
+    public OptionalLong findMask(String amenities) {
+        long mask = 0L;
+        for (String name : split(amenities)) {
+            Integer bit = bitsByCode.get(toCode(name));
+            if (bit == null) {
+                return OptionalLong.empty();
+            }
+            mask |= 1L << bit;
+        }
+        return OptionalLong.of(mask);
+    }
+
+    @Override
+    public List<String> getNames(long mask) {
+        return namesByMask.computeIfAbsent(mask, m -> {
+            List<String> names = new ArrayList<>(Long.bitCount(m));
+            for (long bits = m; bits != 0; bits &= bits - 1) {
+                names.add(namesByBit[Long.numberOfTrailingZeros(bits)]);
+            }
+            return Collections.unmodifiableList(names);
+        });
+    }
+
+    @Override
+    public Set<Long> findHotelIdsWithAmenities(long mask) {
+        return matching(hotelMasks, mask);
+    }
+
+    @Override
+    public Set<Long> findRoomTypeIdsWithAmenities(long mask) {
+        return matching(roomTypeMasks, mask);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHotelChanged(HotelChangedEvent event) {
+        hotelRepository.findById(event.getHotelId()).ifPresentOrElse(
+                hotel -> hotelMasks.put(hotel.getId(), hotel.getAmenityMask()),
+                () -> hotelMasks.remove(event.getHotelId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomTypeChanged(RoomTypeChangedEvent event) {
+        roomTypeRepository.findById(event.getRoomTypeId()).ifPresentOrElse(
+                roomType -> roomTypeMasks.put(roomType.getId(), roomType.getAmenityMask()),
+                () -> roomTypeMasks.remove(event.getRoomTypeId()));
+    }
+
+    private int register(String code, String name) {
+        synchronized (namesByBit) {
+            Integer existing = bitsByCode.get(code);
+            if (existing != null) {
+                return existing;
+            }
+            if (name.length() > 50) {
+                throw new IllegalArgumentException("Amenity name is too long: " + name);
+            }
+            int bit = bitsByCode.size();
+            if (bit >= MAX_AMENITIES) {
+                throw new IllegalStateException("Amenity dictionary is full: at most " + MAX_AMENITIES
+                        + " distinct amenities are supported");
+            }
+            amenityRepository.save(new Amenity(code, name, bit));
+            namesByBit[bit] = name;
+            bitsByCode.put(code, bit);
+            return bit;
+        }
+    }
+
+    private static Set<Long> matching(Map<Long, Long> masks, long mask) {
+        Set<Long> ids = new HashSet<>();
+        for (Map.Entry<Long, Long> entry : masks.entrySet()) {
+            if ((entry.getValue() & mask) == mask) {
+                ids.add(entry.getKey());
+            }
+        }
+        return ids;
+    }
+
+    private static List<String> split(String amenities) {
+        List<String> names = new ArrayList<>();
+        if (amenities != null && !amenities.isEmpty()) {
+            for (String amenity : amenities.split(",")) {
+                String name = amenity.trim().replaceAll("\\s+", " ");
+                if (!name.isEmpty()) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String toCode(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
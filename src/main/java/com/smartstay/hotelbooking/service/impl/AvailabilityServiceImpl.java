@@ -0,0 +1,345 @@
+package com.smartstay.hotelbooking.service.impl;
+
+import com.smartstay.hotelbooking.availability.AvailabilityCursor;
+import com.smartstay.hotelbooking.availability.AvailabilitySearchCache;
+import com.smartstay.hotelbooking.availability.FlexibleStayMatch;
+import com.smartstay.hotelbooking.availability.IndexedRoom;
+import com.smartstay.hotelbooking.availability.RoomAvailabilityIndex;
+import com.smartstay.hotelbooking.dto.response.AvailabilityCalendarDay;
+import com.smartstay.hotelbooking.dto.response.AvailableRoomPage;
+import com.smartstay.hotelbooking.dto.response.AvailableRoomResponse;
+import com.smartstay.hotelbooking.dto.response.FlexibleRoomResponse;
+import com.smartstay.hotelbooking.dto.response.HotelAvailabilitySummary;
+import com.smartstay.hotelbooking.dto.response.RoomTypeInventoryNight;
+import com.smartstay.hotelbooking.dto.response.RoomTypeInventoryResponse;
+import com.smartstay.hotelbooking.dto.response.StayOption;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.RoomTypeInventoryRepository;
+import com.smartstay.hotelbooking.repository.projection.AvailableRoomView;
+import com.smartstay.hotelbooking.repository.projection.BookedStay;
+import com.smartstay.hotelbooking.repository.projection.HotelAvailabilityView;
+import com.smartstay.hotelbooking.repository.projection.InventoryNight;
+import com.smartstay.hotelbooking.repository.projection.RoomTypeCount;
+import com.smartstay.hotelbooking.service.AmenityService;
+import com.smartstay.hotelbooking.service.AvailabilityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+@Service
+public class AvailabilityServiceImpl implements AvailabilityService {
+
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final AvailabilitySearchCache searchCache;
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final RoomTypeInventoryRepository inventoryRepository;
+    private final AmenityService amenityService;
+
+    @Autowired
+    public AvailabilityServiceImpl(RoomAvailabilityIndex availabilityIndex,
+            AvailabilitySearchCache searchCache,
+            RoomRepository roomRepository,
+            BookingRepository bookingRepository,
+            RoomTypeInventoryRepository inventoryRepository,
+            AmenityService amenityService) {
+        this.availabilityIndex = availabilityIndex;
+        this.searchCache = searchCache;
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.amenityService = amenityService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AvailableRoomPage searchAvailableRooms(String city, LocalDate checkInDate, LocalDate checkOutDate,
+            int guests, String roomType, String amenities, String cursor, int size) {
+        OptionalLong amenityMask = amenityService.findMask(amenities);
+        if (amenityMask.isEmpty()) {
+            // An amenity no hotel or room type has ever listed
+            return new AvailableRoomPage(new ArrayList<>(), null);
+        }
+        long requiredMask = amenityMask.getAsLong();
+        return searchCache.get(city, checkInDate, checkOutDate, guests, roomType, requiredMask, cursor, size,
+                () -> search(city, checkInDate, checkOutDate, guests, roomType, requiredMask, cursor, size));
+    }
+
+    // The first page of the price-ordered search: only the k cheapest rooms are ever held in memory
+    @Override
+    @Transactional(readOnly = true)
+    public List<AvailableRoomResponse> findCheapestRooms(String city, LocalDate checkInDate, LocalDate checkOutDate,
+            int guests, String roomType, String amenities, int k) {
+        return searchAvailableRooms(city, checkInDate, checkOutDate, guests, roomType, amenities, null, k)
+                .getContent();
+    }
+
+    private AvailableRoomPage search(String city, LocalDate checkInDate, LocalDate checkOutDate,
+            int guests, String roomType, long amenityMask, String cursor, int size) {
+        long nights = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
+        AvailabilityCursor after = cursor != null && !cursor.isEmpty() ? AvailabilityCursor.decode(cursor) : null;
+
+        // One extra row tells whether another page follows
+        List<IndexedRoom> rooms;
+        if (availabilityIndex.isReady()) {
+            rooms = availabilityIndex.findAvailableRooms(city, checkInDate, checkOutDate, guests, roomType,
+                    amenityMask, after, size + 1);
+        } else {
+            // The index is built once the application is ready (and only when enabled);
+            // otherwise a single query answers the whole search
+            rooms = searchDatabase(city, checkInDate, checkOutDate, guests, roomType, amenityMask, after,
+                    size + 1);
+        }
+
+        String nextCursor = null;
+        if (rooms.size() > size) {
+            rooms = rooms.subList(0, size);
+            nextCursor = AvailabilityCursor.after(rooms.get(size - 1)).encode();
+        }
+
+        List<AvailableRoomResponse> content = new ArrayList<>(rooms.size());
+        for (IndexedRoom room : rooms) {
+            content.add(toResponse(room, nights));
+        }
+        return new AvailableRoomPage(content, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FlexibleRoomResponse> searchFlexibleStays(String city, LocalDate windowStart, LocalDate windowEnd,
+            int nights, int guests, String roomType, String amenities, int size) {
+        OptionalLong amenityMask = amenityService.findMask(amenities);
+        if (amenityMask.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long requiredMask = amenityMask.getAsLong();
+        List<FlexibleStayMatch> matches = availabilityIndex.isReady()
+                ? availabilityIndex.findFlexibleStays(city, windowStart, windowEnd, nights, guests, roomType,
+                        requiredMask, size)
+                : searchFlexibleDatabase(city, windowStart, windowEnd, nights, guests, roomType, requiredMask, size);
+
+        List<FlexibleRoomResponse> content = new ArrayList<>(matches.size());
+        for (FlexibleStayMatch match : matches) {
+            content.add(toFlexibleResponse(match, nights));
+        }
+        return content;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<AvailabilityCalendarDay>> getAvailabilityCalendars(Collection<Long> roomIds,
+            LocalDate startDate, int days) {
+        LocalDate endDate = startDate.plusDays(days);
+
+        // Sweep every overlapping stay into a per-night occupancy count: +1 on the first night, -1 after the last
+        Map<Long, int[]> sweeps = new HashMap<>();
+        for (BookedStay stay : bookingRepository.findActiveStaysForRoomsBetween(roomIds, startDate, endDate)) {
+            int[] sweep = sweeps.computeIfAbsent(stay.getRoomId(), id -> new int[days + 1]);
+            int from = (int) Math.max(ChronoUnit.DAYS.between(startDate, stay.getCheckInDate()), 0);
+            int to = (int) Math.min(ChronoUnit.DAYS.between(startDate, stay.getCheckOutDate()), days);
+            sweep[from]++;
+            sweep[to]--;
+        }
+
+        Map<Long, Room> roomsById = new HashMap<>();
+        for (Room room : roomRepository.findAllById(roomIds)) {
+            roomsById.put(room.getId(), room);
+        }
+
+        Map<Long, List<AvailabilityCalendarDay>> calendars = new LinkedHashMap<>();
+        for (Long roomId : roomIds) {
+            Room room = roomsById.get(roomId);
+            if (room == null) {
+                continue;
+            }
+            int[] sweep = sweeps.getOrDefault(room.getId(), new int[days + 1]);
+            List<AvailabilityCalendarDay> calendar = new ArrayList<>(days);
+            int booked = 0;
+            for (int i = 0; i < days; i++) {
+                booked += sweep[i];
+                boolean available = booked == 0;
+                calendar.add(new AvailabilityCalendarDay(startDate.plusDays(i), available,
+                        available ? room.getPricePerNight() : null));
+            }
+            calendars.put(room.getId(), calendar);
+        }
+        return calendars;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, HotelAvailabilitySummary> summarizeHotels(Set<Long> hotelIds, LocalDate checkInDate,
+            LocalDate checkOutDate, int guests) {
+        if (hotelIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (availabilityIndex.isReady()) {
+            return availabilityIndex.summarizeHotels(hotelIds, checkInDate, checkOutDate, guests);
+        }
+
+        Map<Long, HotelAvailabilitySummary> summaries = new HashMap<>();
+        for (HotelAvailabilityView view : roomRepository.summarizeAvailableRoomsByHotel(hotelIds, checkInDate,
+                checkOutDate, guests)) {
+            summaries.put(view.getHotelId(), new HotelAvailabilitySummary(view.getHotelId(),
+                    view.getAvailableRooms().intValue(), view.getLowestPricePerNight()));
+        }
+        return summaries;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RoomTypeInventoryResponse> getRoomTypeInventory(Long hotelId, LocalDate startDate, int days) {
+        // One range read over the ledger; nights without a row have nothing sold yet
+        Map<Long, InventoryNight[]> ledger = new HashMap<>();
+        for (InventoryNight night : inventoryRepository.findNights(hotelId, startDate, startDate.plusDays(days))) {
+            InventoryNight[] nights = ledger.computeIfAbsent(night.getRoomTypeId(), id -> new InventoryNight[days]);
+            nights[(int) ChronoUnit.DAYS.between(startDate, night.getStayDate())] = night;
+        }
+
+        List<RoomTypeInventoryResponse> inventory = new ArrayList<>();
+        for (RoomTypeCount roomType : roomRepository.countRoomsByRoomType(hotelId)) {
+            InventoryNight[] recorded = ledger.getOrDefault(roomType.getRoomTypeId(), new InventoryNight[days]);
+            int rooms = roomType.getRooms().intValue();
+            List<RoomTypeInventoryNight> nights = new ArrayList<>(days);
+            for (int i = 0; i < days; i++) {
+                int capacity = recorded[i] != null ? recorded[i].getCapacity() : rooms;
+                int sold = recorded[i] != null ? recorded[i].getSold() : 0;
+                nights.add(new RoomTypeInventoryNight(startDate.plusDays(i), capacity, sold,
+                        Math.max(capacity - sold, 0)));
+            }
+            inventory.add(new RoomTypeInventoryResponse(roomType.getRoomTypeId(), roomType.getRoomTypeName(), nights));
+        }
+        return inventory;
+    }
+
+    private List<IndexedRoom> searchDatabase(String city, LocalDate checkInDate, LocalDate checkOutDate,
+            int guests, String roomType, long amenityMask, AvailabilityCursor after, int limit) {
+        Collection<Long> amenityRoomTypeIds = roomTypesWithAmenities(amenityMask);
+        if (amenityRoomTypeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Pageable firstRows = PageRequest.of(0, limit);
+        List<AvailableRoomView> views = after == null
+                ? roomRepository.searchAvailableRooms(normalize(city), checkInDate, checkOutDate, guests,
+                        normalize(roomType), amenityMask == 0, amenityRoomTypeIds, firstRows)
+                : roomRepository.searchAvailableRoomsAfter(normalize(city), checkInDate, checkOutDate, guests,
+                        normalize(roomType), amenityMask == 0, amenityRoomTypeIds, after.getPricePerNight(),
+                        after.getHotelId(), after.getRoomId(), firstRows);
+
+        List<IndexedRoom> available = new ArrayList<>(views.size());
+        for (AvailableRoomView view : views) {
+            available.add(IndexedRoom.from(view));
+        }
+        return available;
+    }
+
+    // Candidates and their stays in the window come from two queries; each room is then scanned once
+    private List<FlexibleStayMatch> searchFlexibleDatabase(String city, LocalDate windowStart, LocalDate windowEnd,
+            int nights, int guests, String roomType, long amenityMask, int limit) {
+        Collection<Long> amenityRoomTypeIds = roomTypesWithAmenities(amenityMask);
+        if (amenityRoomTypeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<AvailableRoomView> candidates = roomRepository.searchCandidateRooms(normalize(city), guests,
+                normalize(roomType), amenityMask == 0, amenityRoomTypeIds);
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> roomIds = new ArrayList<>(candidates.size());
+        for (AvailableRoomView candidate : candidates) {
+            roomIds.add(candidate.getRoomId());
+        }
+        Map<Long, BitSet> nightsByRoom = new HashMap<>();
+        for (BookedStay stay : bookingRepository.findActiveStaysForRoomsBetween(roomIds, windowStart, windowEnd)) {
+            BitSet booked = nightsByRoom.computeIfAbsent(stay.getRoomId(), id -> new BitSet());
+            int from = (int) Math.max(ChronoUnit.DAYS.between(windowStart, stay.getCheckInDate()), 0);
+            int to = (int) ChronoUnit.DAYS.between(windowStart, stay.getCheckOutDate());
+            booked.set(from, to);
+        }
+
+        int windowNights = (int) ChronoUnit.DAYS.between(windowStart, windowEnd);
+        List<FlexibleStayMatch> matches = new ArrayList<>();
+        for (AvailableRoomView candidate : candidates) {
+            BitSet booked = nightsByRoom.getOrDefault(candidate.getRoomId(), new BitSet());
+            IndexedRoom room = IndexedRoom.from(candidate).withBookedNights(booked);
+            List<Integer> starts = room.freeStarts(0, windowNights, nights);
+            if (starts.isEmpty()) {
+                continue;
+            }
+            List<LocalDate> checkInDates = new ArrayList<>(starts.size());
+            for (int start : starts) {
+                checkInDates.add(windowStart.plusDays(start));
+            }
+            matches.add(new FlexibleStayMatch(room, checkInDates));
+            if (matches.size() == limit) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    // Room types carrying every required amenity; the queries ignore the list when nothing is required
+    private Collection<Long> roomTypesWithAmenities(long amenityMask) {
+        return amenityMask == 0 ? List.of(0L) : amenityService.findRoomTypeIdsWithAmenities(amenityMask);
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private AvailableRoomResponse toResponse(IndexedRoom room, long nights) {
+        BigDecimal totalPrice = IndexedRoom.fromMinorUnits(room.getPriceMinorUnits() * nights);
+        return new AvailableRoomResponse(
+                room.getRoomId(),
+                room.getHotelId(),
+                room.getHotelName(),
+                room.getHotelCity(),
+                room.getRoomNumber(),
+                room.getRoomTypeName(),
+                room.getPricePerNight(),
+                totalPrice,
+                room.getCapacity(),
+                room.getDescription(),
+                amenityService.getNames(room.getAmenityMask()));
+    }
+
+    private FlexibleRoomResponse toFlexibleResponse(FlexibleStayMatch match, int nights) {
+        IndexedRoom room = match.getRoom();
+        BigDecimal totalPrice = room.getPricePerNight().multiply(BigDecimal.valueOf(nights));
+        List<StayOption> options = new ArrayList<>(match.getCheckInDates().size());
+        for (LocalDate checkInDate : match.getCheckInDates()) {
+            options.add(new StayOption(checkInDate, checkInDate.plusDays(nights), totalPrice));
+        }
+        return new FlexibleRoomResponse(
+                room.getRoomId(),
+                room.getHotelId(),
+                room.getHotelName(),
+                room.getHotelCity(),
+                room.getRoomNumber(),
+                room.getRoomTypeName(),
+                room.getPricePerNight(),
+                room.getCapacity(),
+                room.getDescription(),
+                amenityService.getNames(room.getAmenityMask()),
+                options);
+    }
+}
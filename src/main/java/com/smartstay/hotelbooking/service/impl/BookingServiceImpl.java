@@ -1,42 +1,115 @@
 package com.smartstay.hotelbooking.service.impl;
 
+import com.smartstay.hotelbooking.availability.RoomStayIntervalIndex;
+import com.smartstay.hotelbooking.availability.RoomTypeInventoryLedger;
+import com.smartstay.hotelbooking.booking.BookingReferenceGenerator;
+import com.smartstay.hotelbooking.booking.QueuedBookingRequest;
+import com.smartstay.hotelbooking.booking.RoomHold;
+import com.smartstay.hotelbooking.booking.RoomHoldRegistry;
+import com.smartstay.hotelbooking.booking.RoomLockManager;
+import com.smartstay.hotelbooking.dto.request.GroupBookingItem;
+import com.smartstay.hotelbooking.event.BookingChangedEvent;
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
+import com.smartstay.hotelbooking.model.entity.ArchivedBooking;
 import com.smartstay.hotelbooking.model.entity.Booking;
 import com.smartstay.hotelbooking.model.entity.Payment;
 import com.smartstay.hotelbooking.model.entity.Room;
 import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.ArchivedBookingRepository;
+import com.smartstay.hotelbooking.repository.BookingBatchRepository;
 import com.smartstay.hotelbooking.repository.BookingRepository;
 import com.smartstay.hotelbooking.repository.RoomRepository;
 import com.smartstay.hotelbooking.repository.UserRepository;
+import com.smartstay.hotelbooking.repository.projection.BookedStay;
+import com.smartstay.hotelbooking.repository.projection.BookingSummaryView;
 import com.smartstay.hotelbooking.service.BookingService;
+import com.smartstay.hotelbooking.service.PaymentService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
+    private final BookingBatchRepository bookingBatchRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final UserRepository userRepository;
     private final RoomRepository roomRepository;
-    private final Random random = new Random();
+    private final RoomStayIntervalIndex stayIntervalIndex;
+    private final RoomTypeInventoryLedger inventoryLedger;
+    private final RoomLockManager roomLockManager;
+    private final RoomHoldRegistry holdRegistry;
+    private final BookingReferenceGenerator referenceGenerator;
+    private final PaymentService paymentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int MAX_REFERENCE_ATTEMPTS = 3;
+
+    private static final Comparator<BookingSummaryView> EXPORT_ORDER =
+            Comparator.comparing(BookingSummaryView::getCheckInDate).thenComparing(BookingSummaryView::getId);
+
+    @Value("${app.booking.group.max-rooms:50}")
+    private int maxGroupRooms;
 
     @Autowired
     public BookingServiceImpl(BookingRepository bookingRepository,
+            BookingBatchRepository bookingBatchRepository,
+            ArchivedBookingRepository archivedBookingRepository,
             UserRepository userRepository,
-            RoomRepository roomRepository) {
+            RoomRepository roomRepository,
+            RoomStayIntervalIndex stayIntervalIndex,
+            RoomTypeInventoryLedger inventoryLedger,
+            RoomLockManager roomLockManager,
+            RoomHoldRegistry holdRegistry,
+            BookingReferenceGenerator referenceGenerator,
+            PaymentService paymentService,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager) {
         this.bookingRepository = bookingRepository;
+        this.bookingBatchRepository = bookingBatchRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
         this.userRepository = userRepository;
         this.roomRepository = roomRepository;
+        this.stayIntervalIndex = stayIntervalIndex;
+        this.inventoryLedger = inventoryLedger;
+        this.roomLockManager = roomLockManager;
+        this.holdRegistry = holdRegistry;
+        this.referenceGenerator = referenceGenerator;
+        this.paymentService = paymentService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
@@ -52,7 +125,12 @@ public class BookingServiceImpl implements BookingService {
         payment.setBooking(booking);
         booking.setPayment(payment);
 
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        if (savedBooking.getBookingStatus().occupiesRoom()) {
+            inventoryLedger.reserve(savedBooking);
+        }
+        eventPublisher.publishEvent(BookingChangedEvent.of(savedBooking));
+        return savedBooking;
     }
 
     @Override
@@ -70,6 +148,21 @@ public class BookingServiceImpl implements BookingService {
         return bookingRepository.findByUser(user, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ArchivedBooking> findArchivedByUser(Long userId, Pageable pageable) {
+        return archivedBookingRepository.findByUserId(userId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookingSummaryView> findSummariesByUsername(String username, Booking.BookingStatus status,
+            Pageable pageable) {
+        // The status is only a placeholder when every status is wanted
+        return bookingRepository.findSummariesByUsername(username, status == null,
+                status == null ? Booking.BookingStatus.CONFIRMED : status, pageable);
+    }
+
     @Override
     public List<Booking> findByRoom(Room room) {
         return bookingRepository.findByRoom(room);
@@ -90,14 +183,63 @@ public class BookingServiceImpl implements BookingService {
         return bookingRepository.findByHotelAndDateRange(hotelId, startDate, endDate);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportByHotelAndDateRange(Long hotelId, LocalDate startDate, LocalDate endDate,
+            Consumer<BookingSummaryView> consumer) {
+        // Archived bookings are streamed alongside and merged in, both sides already in check-in order
+        try (Stream<BookingSummaryView> hotStream =
+                     bookingRepository.streamSummariesByHotelAndDateRange(hotelId, startDate, endDate);
+             Stream<BookingSummaryView> archivedStream =
+                     archivedBookingRepository.streamSummariesByHotelAndDateRange(hotelId, startDate, endDate)) {
+            Iterator<BookingSummaryView> hot = hotStream.iterator();
+            Iterator<BookingSummaryView> archived = archivedStream.iterator();
+            BookingSummaryView nextHot = hot.hasNext() ? hot.next() : null;
+            BookingSummaryView nextArchived = archived.hasNext() ? archived.next() : null;
+            while (nextHot != null || nextArchived != null) {
+                if (nextArchived == null || (nextHot != null && EXPORT_ORDER.compare(nextHot, nextArchived) <= 0)) {
+                    consumer.accept(nextHot);
+                    nextHot = hot.hasNext() ? hot.next() : null;
+                } else {
+                    consumer.accept(nextArchived);
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                }
+            }
+        }
+    }
+
     @Override
     public boolean isRoomBookedInDateRange(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        return holdRegistry.isHeld(roomId, checkInDate, checkOutDate, null)
+                || hasOverlappingStay(roomId, checkInDate, checkOutDate);
+    }
+
+    // A user's own holds do not stand in the way of their booking. The index may still hold a stay that has just
+    // been cancelled, so a clash it reports is confirmed against the table before the booking is turned away
+    private boolean isRoomTakenForUser(Long roomId, LocalDate checkInDate, LocalDate checkOutDate, Long userId) {
+        if (holdRegistry.isHeld(roomId, checkInDate, checkOutDate, userId)) {
+            return true;
+        }
+        if (stayIntervalIndex.canAnswer(checkInDate, checkOutDate)
+                && !stayIntervalIndex.overlaps(roomId, checkInDate, checkOutDate)) {
+            return false;
+        }
+        return bookingRepository.isRoomBookedInDateRange(roomId, checkInDate, checkOutDate);
+    }
+
+    private boolean hasOverlappingStay(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (stayIntervalIndex.canAnswer(checkInDate, checkOutDate)) {
+            return stayIntervalIndex.overlaps(roomId, checkInDate, checkOutDate);
+        }
         return bookingRepository.isRoomBookedInDateRange(roomId, checkInDate, checkOutDate);
     }
 
     @Override
     public Booking updateBooking(Booking booking) {
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        // The previous dates are unknown here, so the whole room is re-read
+        eventPublisher.publishEvent(new RoomChangedEvent(savedBooking.getRoom().getId()));
+        return savedBooking;
     }
 
     @Override
@@ -105,13 +247,28 @@ public class BookingServiceImpl implements BookingService {
     public Booking updateBookingStatus(Long bookingId, Booking.BookingStatus status) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new EntityNotFoundException("Booking not found with id: " + bookingId));
+        Booking.BookingStatus previousStatus = booking.getBookingStatus();
         booking.setBookingStatus(status);
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        inventoryLedger.statusChanged(savedBooking, previousStatus);
+        eventPublisher.publishEvent(BookingChangedEvent.of(savedBooking));
+        return savedBooking;
     }
 
     @Override
-    @Transactional
-    public Booking cancelBooking(Long bookingId) {
+    public CompletableFuture<Booking> cancelBooking(Long bookingId) {
+        Long paidPaymentId = transactionTemplate.execute(status -> cancelUnlessPaid(bookingId));
+        if (paidPaymentId == null) {
+            return CompletableFuture.completedFuture(findWithRoomAndPayment(bookingId));
+        }
+        // The refund cancels the booking and moves its revenue once the gateway confirms it; a declined refund
+        // leaves the booking as it was
+        return paymentService.refundPayment(paidPaymentId)
+                .thenApply(payment -> findWithRoomAndPayment(bookingId));
+    }
+
+    // Cancels the booking unless its payment was completed, in which case the payment id is returned for a refund
+    private Long cancelUnlessPaid(Long bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new EntityNotFoundException("Booking not found with id: " + bookingId));
 
@@ -121,49 +278,79 @@ public class BookingServiceImpl implements BookingService {
             throw new IllegalStateException("Cannot cancel a booking that is already checked-in or checked-out");
         }
 
-        booking.setBookingStatus(Booking.BookingStatus.CANCELLED);
-
-        // Handle payment status
-        if (booking.getPayment() != null &&
-                booking.getPayment().getPaymentStatus() == Payment.PaymentStatus.COMPLETED) {
-            // Set payment status to REFUNDED
-            booking.getPayment().setPaymentStatus(Payment.PaymentStatus.REFUNDED);
+        // A charge or refund still with the gateway, or awaiting the reconciler, may yet move money; cancelling
+        // now would leave it unrefunded, so the guest retries once it has settled
+        Payment payment = booking.getPayment();
+        if (payment != null && (payment.getPaymentStatus() == Payment.PaymentStatus.PROCESSING
+                || payment.getPaymentStatus() == Payment.PaymentStatus.UNKNOWN)) {
+            throw new IllegalStateException("Payment for booking " + bookingId
+                    + " is still being settled with the payment gateway, please try again later");
         }
+        if (payment != null && payment.getPaymentStatus() == Payment.PaymentStatus.COMPLETED) {
+            return payment.getId();
+        }
+
+        Booking.BookingStatus previousStatus = booking.getBookingStatus();
+        booking.setBookingStatus(Booking.BookingStatus.CANCELLED);
+        Booking savedBooking = bookingRepository.save(booking);
+        inventoryLedger.statusChanged(savedBooking, previousStatus);
+        eventPublisher.publishEvent(BookingChangedEvent.of(savedBooking));
+        return null;
+    }
 
-        return bookingRepository.save(booking);
+    private Booking findWithRoomAndPayment(Long bookingId) {
+        return transactionTemplate.execute(status -> bookingRepository.findWithRoomAndPaymentById(bookingId)
+                .orElseThrow(() -> new EntityNotFoundException("Booking not found with id: " + bookingId)));
     }
 
     @Override
+    @Transactional
     public void deleteBooking(Long id) {
-        bookingRepository.deleteById(id);
+        bookingRepository.findById(id).ifPresent(booking -> {
+            if (booking.getBookingStatus().occupiesRoom()) {
+                inventoryLedger.release(booking);
+            }
+            bookingRepository.delete(booking);
+            eventPublisher.publishEvent(new BookingChangedEvent(booking.getId(), booking.getRoom().getId(),
+                    booking.getRoom().getHotel().getCity(), booking.getCheckInDate(), booking.getCheckOutDate(),
+                    false));
+        });
     }
 
     @Override
     public String generateBookingReference() {
-        // Generate a unique booking reference with format "BK" + 8 random digits
-        StringBuilder sb = new StringBuilder("BK");
-        for (int i = 0; i < 8; i++) {
-            sb.append(random.nextInt(10));
-        }
-        return sb.toString();
+        return referenceGenerator.nextReference();
     }
 
     @Override
-    @Transactional
     public Booking processBookingRequest(Long userId, Long roomId, LocalDate checkInDate,
             LocalDate checkOutDate, int adults, int children,
             String specialRequests) {
-        // Check if room is available
-        if (isRoomBookedInDateRange(roomId, checkInDate, checkOutDate)) {
+        return withFreshReferences(() -> bookRoom(userId, roomId, checkInDate, checkOutDate, adults, children,
+                specialRequests));
+    }
+
+    private Booking bookRoom(Long userId, Long roomId, LocalDate checkInDate, LocalDate checkOutDate, int adults,
+            int children, String specialRequests) {
+        // Taken rooms are turned away before any lock is acquired
+        if (isRoomTakenForUser(roomId, checkInDate, checkOutDate, userId)) {
             throw new IllegalStateException("Room is not available for the selected dates");
         }
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
 
-        Room room = roomRepository.findById(roomId)
+        // Only bookings of the same room wait on each other: a striped lock within this instance, and the
+        // Room row lock across instances, both held until commit so the check below and the insert are atomic
+        roomLockManager.lockRoom(roomId);
+        Room room = roomRepository.findByIdForUpdate(roomId)
                 .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + roomId));
 
+        if (bookingRepository.isRoomBookedInDateRange(roomId, checkInDate, checkOutDate)
+                || holdRegistry.isHeld(roomId, checkInDate, checkOutDate, userId)) {
+            throw new IllegalStateException("Room is not available for the selected dates");
+        }
+
         // Check if room capacity is sufficient
         int totalGuests = adults + children;
         if (totalGuests > room.getCapacity()) {
@@ -188,4 +375,293 @@ public class BookingServiceImpl implements BookingService {
 
         return createBooking(booking);
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<Booking> processGroupBookingRequest(Long userId, List<GroupBookingItem> rooms,
+            String specialRequests) {
+        return withFreshReferences(() -> bookRooms(userId, rooms, specialRequests));
+    }
+
+    private List<Booking> bookRooms(Long userId, List<GroupBookingItem> rooms, String specialRequests) {
+        if (rooms.size() > maxGroupRooms) {
+            throw new IllegalArgumentException("A group booking can hold at most " + maxGroupRooms + " rooms");
+        }
+
+        Map<Long, List<GroupBookingItem>> itemsByRoom = new HashMap<>();
+        for (GroupBookingItem item : rooms) {
+            if (!item.getCheckOutDate().isAfter(item.getCheckInDate())) {
+                throw new IllegalArgumentException("Check-out date must be after check-in date for room "
+                        + item.getRoomId());
+            }
+            for (GroupBookingItem other : itemsByRoom.computeIfAbsent(item.getRoomId(), id -> new ArrayList<>())) {
+                if (overlaps(other.getCheckInDate(), other.getCheckOutDate(), item)) {
+                    throw new IllegalArgumentException("Room " + item.getRoomId() + " is requested twice for "
+                            + "overlapping dates");
+                }
+            }
+            itemsByRoom.get(item.getRoomId()).add(item);
+            // Taken rooms are turned away before any lock is acquired
+            if (isRoomTakenForUser(item.getRoomId(), item.getCheckInDate(), item.getCheckOutDate(), userId)) {
+                throw unavailable(item.getRoomId());
+            }
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+
+        // Same locking as a single booking, taken for all rooms at once and in ascending order
+        TreeSet<Long> roomIds = new TreeSet<>(itemsByRoom.keySet());
+        roomLockManager.lockRooms(roomIds);
+        Map<Long, Room> roomsById = roomRepository.findAllByIdForUpdate(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+        for (Long roomId : roomIds) {
+            if (!roomsById.containsKey(roomId)) {
+                throw new EntityNotFoundException("Room not found with id: " + roomId);
+            }
+        }
+
+        // Holds taken since the early check are seen here, as in a single booking
+        for (GroupBookingItem item : rooms) {
+            if (holdRegistry.isHeld(item.getRoomId(), item.getCheckInDate(), item.getCheckOutDate(), userId)) {
+                throw unavailable(item.getRoomId());
+            }
+        }
+
+        // One query covering every requested room over the whole span of the group
+        LocalDate from = rooms.stream().map(GroupBookingItem::getCheckInDate)
+                .min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate to = rooms.stream().map(GroupBookingItem::getCheckOutDate)
+                .max(Comparator.naturalOrder()).orElseThrow();
+        for (BookedStay stay : bookingRepository.findActiveStaysForRoomsBetween(roomIds, from, to)) {
+            for (GroupBookingItem item : itemsByRoom.get(stay.getRoomId())) {
+                if (overlaps(stay.getCheckInDate(), stay.getCheckOutDate(), item)) {
+                    throw unavailable(item.getRoomId());
+                }
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>(rooms.size());
+        for (GroupBookingItem item : rooms) {
+            Room room = roomsById.get(item.getRoomId());
+            if (item.getAdults() + item.getChildren() > room.getCapacity()) {
+                throw new IllegalArgumentException("Room capacity is not sufficient for the number of guests "
+                        + "in room " + room.getId());
+            }
+            bookings.add(newBooking(user, room, item.getCheckInDate(), item.getCheckOutDate(), item.getAdults(),
+                    item.getChildren(), specialRequests, now));
+        }
+
+        // Any failure while inserting rolls the whole group back
+        insertBookings(bookings);
+        return bookings;
+    }
+
+    @Override
+    @Transactional
+    public void processQueuedBookings(List<QueuedBookingRequest> requests) {
+        // Requests that fail a check are rejected on their own; the rest of the batch still goes through
+        // Clashes between requests of the same batch are settled later, against the requests actually accepted
+        Map<Long, List<QueuedBookingRequest>> pendingByRoom = new LinkedHashMap<>();
+        for (QueuedBookingRequest request : requests) {
+            if (!request.getCheckOutDate().isAfter(request.getCheckInDate())) {
+                request.reject("Check-out date must be after check-in date");
+            } else if (isRoomTakenForUser(request.getRoomId(), request.getCheckInDate(),
+                    request.getCheckOutDate(), request.getUserId())) {
+                request.reject("Room is not available for the selected dates");
+            } else {
+                pendingByRoom.computeIfAbsent(request.getRoomId(), id -> new ArrayList<>()).add(request);
+            }
+        }
+        if (pendingByRoom.isEmpty()) {
+            return;
+        }
+
+        TreeSet<Long> roomIds = new TreeSet<>(pendingByRoom.keySet());
+        roomLockManager.lockRooms(roomIds);
+        Map<Long, Room> roomsById = roomRepository.findAllByIdForUpdate(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+        List<QueuedBookingRequest> pending = pendingByRoom.values().stream().flatMap(List::stream).toList();
+        Map<Long, User> usersById = userRepository.findAllById(pending.stream()
+                        .map(QueuedBookingRequest::getUserId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        LocalDate from = pending.stream().map(QueuedBookingRequest::getCheckInDate)
+                .min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate to = pending.stream().map(QueuedBookingRequest::getCheckOutDate)
+                .max(Comparator.naturalOrder()).orElseThrow();
+        Map<Long, List<BookedStay>> staysByRoom = bookingRepository.findActiveStaysForRoomsBetween(roomIds, from, to)
+                .stream().collect(Collectors.groupingBy(BookedStay::getRoomId));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>(pending.size());
+        Map<Booking, QueuedBookingRequest> origins = new HashMap<>();
+        Map<Long, List<QueuedBookingRequest>> acceptedByRoom = new HashMap<>();
+        // Rejected only once the batch commits: if it rolls back, the request that beat them was never booked
+        List<QueuedBookingRequest> lostInBatch = new ArrayList<>();
+        for (QueuedBookingRequest request : pending) {
+            Room room = roomsById.get(request.getRoomId());
+            User user = usersById.get(request.getUserId());
+            if (room == null) {
+                request.reject("Room not found with id: " + request.getRoomId());
+            } else if (user == null) {
+                request.reject("User not found with id: " + request.getUserId());
+            } else if (acceptedByRoom.getOrDefault(request.getRoomId(), List.of()).stream()
+                    .anyMatch(other -> overlaps(other.getCheckInDate(), other.getCheckOutDate(), request))) {
+                lostInBatch.add(request);
+            } else if (staysByRoom.getOrDefault(request.getRoomId(), List.of()).stream()
+                    .anyMatch(stay -> overlaps(stay.getCheckInDate(), stay.getCheckOutDate(), request))
+                    || holdRegistry.isHeld(request.getRoomId(), request.getCheckInDate(),
+                    request.getCheckOutDate(), request.getUserId())) {
+                request.reject("Room is not available for the selected dates");
+            } else if (request.getAdults() + request.getChildren() > room.getCapacity()) {
+                request.reject("Room capacity is not sufficient for the number of guests");
+            } else {
+                Booking booking = newBooking(user, room, request.getCheckInDate(), request.getCheckOutDate(),
+                        request.getAdults(), request.getChildren(), request.getSpecialRequests(), now);
+                bookings.add(booking);
+                origins.put(booking, request);
+                acceptedByRoom.computeIfAbsent(request.getRoomId(), id -> new ArrayList<>()).add(request);
+            }
+        }
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        insertBookings(bookings);
+        // Reported only once the batch is durable; after a rollback the pipeline retries every open request alone
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                origins.forEach((booking, request) -> request.confirm(booking));
+                lostInBatch.forEach(request -> request.reject("Room is not available for the selected dates"));
+            }
+        });
+    }
+
+    private Booking newBooking(User user, Room room, LocalDate checkInDate, LocalDate checkOutDate, int adults,
+            int children, String specialRequests, LocalDateTime now) {
+        long nights = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
+        Booking booking = new Booking();
+        booking.setBookingReference(generateBookingReference());
+        booking.setUser(user);
+        booking.setRoom(room);
+        booking.setCheckInDate(checkInDate);
+        booking.setCheckOutDate(checkOutDate);
+        booking.setAdults(adults);
+        booking.setChildren(children);
+        booking.setTotalPrice(room.getPricePerNight().multiply(new BigDecimal(nights)));
+        booking.setSpecialRequests(specialRequests);
+        booking.setBookingStatus(Booking.BookingStatus.CONFIRMED);
+        booking.setCreatedAt(now);
+        booking.setUpdatedAt(now);
+
+        Payment payment = new Payment();
+        payment.setAmount(booking.getTotalPrice());
+        payment.setPaymentStatus(Payment.PaymentStatus.PENDING);
+        payment.setBooking(booking);
+        payment.setCreatedAt(now);
+        payment.setUpdatedAt(now);
+        booking.setPayment(payment);
+        return booking;
+    }
+
+    // Bookings and payments go in as two JDBC batches, then the ledger and the in-memory indexes follow
+    private void insertBookings(List<Booking> bookings) {
+        bookingBatchRepository.insertBookings(bookings);
+        bookingBatchRepository.insertPayments(bookings.stream().map(Booking::getPayment).toList());
+        inventoryLedger.reserveAll(bookings);
+        for (Booking booking : bookings) {
+            eventPublisher.publishEvent(BookingChangedEvent.of(booking));
+        }
+    }
+
+    @Override
+    @Transactional
+    public RoomHold holdRoom(Long userId, Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (!checkOutDate.isAfter(checkInDate) || checkInDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Invalid stay dates");
+        }
+        // Booked rooms are turned away before any lock is acquired
+        if (hasOverlappingStay(roomId, checkInDate, checkOutDate)) {
+            throw new IllegalStateException("Room is not available for the selected dates");
+        }
+
+        // The same locks a booking takes, so a booking committing now is either seen below or sees the hold
+        roomLockManager.lockRoom(roomId);
+        Room room = roomRepository.findByIdForUpdate(roomId)
+                .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + roomId));
+        if (bookingRepository.isRoomBookedInDateRange(roomId, checkInDate, checkOutDate)) {
+            throw new IllegalStateException("Room is not available for the selected dates");
+        }
+        return holdRegistry.tryHold(roomId, userId, room.getHotel().getCity(), checkInDate, checkOutDate)
+                .orElseThrow(() -> new IllegalStateException("Room is already held for the selected dates"));
+    }
+
+    @Override
+    public void releaseHold(Long userId, String holdId) {
+        RoomHold hold = findOwnHold(userId, holdId);
+        holdRegistry.release(hold.getId());
+    }
+
+    @Override
+    public Booking confirmHold(Long userId, String holdId, int adults, int children, String specialRequests) {
+        return withFreshReferences(() -> bookHold(userId, holdId, adults, children, specialRequests));
+    }
+
+    private Booking bookHold(Long userId, String holdId, int adults, int children, String specialRequests) {
+        RoomHold hold = findOwnHold(userId, holdId);
+        Booking booking = bookRoom(userId, hold.getRoomId(), hold.getCheckInDate(),
+                hold.getCheckOutDate(), adults, children, specialRequests);
+
+        // Kept until commit, so a checkout that fails can be retried on the same hold
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                holdRegistry.release(hold.getId());
+            }
+        });
+        return booking;
+    }
+
+    // References are claimed by the unique constraint on booking_reference rather than looked up first: a clash
+    // rolls the whole booking back and it runs again with fresh references. Work joining a caller's transaction
+    // cannot be rolled back on its own, so it gets a single attempt.
+    private <T> T withFreshReferences(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> work.get());
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == MAX_REFERENCE_ATTEMPTS || !isReferenceClash(e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static boolean isReferenceClash(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains("booking_reference");
+    }
+
+    private RoomHold findOwnHold(Long userId, String holdId) {
+        return holdRegistry.find(holdId)
+                .filter(hold -> hold.getUserId().equals(userId))
+                .orElseThrow(() -> new EntityNotFoundException("Hold not found or expired: " + holdId));
+    }
+
+    private static boolean overlaps(LocalDate checkInDate, LocalDate checkOutDate, GroupBookingItem item) {
+        return checkInDate.isBefore(item.getCheckOutDate()) && checkOutDate.isAfter(item.getCheckInDate());
+    }
+
+    private static boolean overlaps(LocalDate checkInDate, LocalDate checkOutDate, QueuedBookingRequest request) {
+        return checkInDate.isBefore(request.getCheckOutDate()) && checkOutDate.isAfter(request.getCheckInDate());
+    }
+
+    private static IllegalStateException unavailable(Long roomId) {
+        return new IllegalStateException("Room " + roomId + " is not available for the selected dates");
+    }
+}
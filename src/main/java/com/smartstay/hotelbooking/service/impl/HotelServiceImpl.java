@@ -1,29 +1,66 @@
 package com.smartstay.hotelbooking.service.impl;
 
+import com.smartstay.hotelbooking.dto.response.HotelAvailabilitySummary;
+import com.smartstay.hotelbooking.dto.response.NearbyHotelResponse;
+import com.smartstay.hotelbooking.event.HotelChangedEvent;
 import com.smartstay.hotelbooking.model.entity.Hotel;
 import com.smartstay.hotelbooking.repository.HotelRepository;
+import com.smartstay.hotelbooking.search.GeoMatch;
+import com.smartstay.hotelbooking.search.HotelGeoIndex;
+import com.smartstay.hotelbooking.search.HotelTextIndex;
+import com.smartstay.hotelbooking.service.AmenityService;
+import com.smartstay.hotelbooking.service.AvailabilityService;
 import com.smartstay.hotelbooking.service.HotelService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 
 @Service
 public class HotelServiceImpl implements HotelService {
 
     private final HotelRepository hotelRepository;
+    private final AmenityService amenityService;
+    private final AvailabilityService availabilityService;
+    private final HotelGeoIndex geoIndex;
+    private final HotelTextIndex textIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Only the best matches are filtered and paged, which bounds the id list sent to the database
+    @Value("${app.search.text.max-candidates:1000}")
+    private int maxTextCandidates;
 
     @Autowired
-    public HotelServiceImpl(HotelRepository hotelRepository) {
+    public HotelServiceImpl(HotelRepository hotelRepository, AmenityService amenityService,
+            AvailabilityService availabilityService, HotelGeoIndex geoIndex, HotelTextIndex textIndex,
+            ApplicationEventPublisher eventPublisher) {
         this.hotelRepository = hotelRepository;
+        this.amenityService = amenityService;
+        this.availabilityService = availabilityService;
+        this.geoIndex = geoIndex;
+        this.textIndex = textIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public Hotel createHotel(Hotel hotel) {
-        return hotelRepository.save(hotel);
+        hotel.setAmenityMask(amenityService.registerAmenities(hotel.getAmenities()));
+        Hotel savedHotel = hotelRepository.save(hotel);
+        eventPublisher.publishEvent(new HotelChangedEvent(savedHotel.getId()));
+        return savedHotel;
     }
 
     @Override
@@ -56,6 +93,71 @@ public class HotelServiceImpl implements HotelService {
         return hotelRepository.findByCityAndMinimumRating(city, minRating, pageable);
     }
 
+    @Override
+    public Page<Hotel> findByAmenities(String amenities, String city, String country, Integer minRating,
+            Pageable pageable) {
+        OptionalLong amenityMask = amenityService.findMask(amenities);
+        if (amenityMask.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return hotelRepository.findByAmenityMaskAndFilters(amenityMask.getAsLong(), emptyToNull(city),
+                emptyToNull(country), minRating, pageable);
+    }
+
+    // Ranked by relevance, so the pageable's sort is not applied; results end at the top candidates
+    @Override
+    public Page<Hotel> searchByText(String query, String amenities, String city, String country, Integer minRating,
+            Pageable pageable) {
+        List<Long> ranked = textIndex.search(query);
+
+        if (amenities != null && !amenities.isEmpty()) {
+            OptionalLong amenityMask = amenityService.findMask(amenities);
+            Set<Long> withAmenities = amenityMask.isPresent()
+                    ? amenityService.findHotelIdsWithAmenities(amenityMask.getAsLong())
+                    : Set.of();
+            ranked.removeIf(hotelId -> !withAmenities.contains(hotelId));
+        }
+        if (ranked.size() > maxTextCandidates) {
+            ranked.subList(maxTextCandidates, ranked.size()).clear();
+        }
+        if (!ranked.isEmpty() && (emptyToNull(city) != null || emptyToNull(country) != null || minRating != null)) {
+            Set<Long> filtered = new HashSet<>(hotelRepository.findIdsByIdInAndFilters(ranked, emptyToNull(city),
+                    emptyToNull(country), minRating));
+            ranked.removeIf(hotelId -> !filtered.contains(hotelId));
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<Long> pageIds = ranked.subList(from, to);
+
+        Map<Long, Hotel> hotelsById = new HashMap<>();
+        for (Hotel hotel : hotelRepository.findAllById(pageIds)) {
+            hotelsById.put(hotel.getId(), hotel);
+        }
+        List<Hotel> content = new ArrayList<>(pageIds.size());
+        for (Long hotelId : pageIds) {
+            Hotel hotel = hotelsById.get(hotelId);
+            if (hotel != null) {
+                content.add(hotel);
+            }
+        }
+        return new PageImpl<>(content, pageable, ranked.size());
+    }
+
+    @Override
+    public List<NearbyHotelResponse> findNearby(double latitude, double longitude, double radiusKm,
+            LocalDate checkInDate, LocalDate checkOutDate, int guests, int limit) {
+        return toNearbyResponses(geoIndex.findWithinRadius(latitude, longitude, radiusKm),
+                checkInDate, checkOutDate, guests, limit);
+    }
+
+    @Override
+    public List<NearbyHotelResponse> findWithinBounds(double minLatitude, double minLongitude, double maxLatitude,
+            double maxLongitude, LocalDate checkInDate, LocalDate checkOutDate, int guests, int limit) {
+        return toNearbyResponses(geoIndex.findWithinBounds(minLatitude, minLongitude, maxLatitude, maxLongitude),
+                checkInDate, checkOutDate, guests, limit);
+    }
+
     @Override
     public List<Hotel> findAllActiveHotels() {
         return hotelRepository.findAllActiveHotels();
@@ -63,11 +165,73 @@ public class HotelServiceImpl implements HotelService {
 
     @Override
     public Hotel updateHotel(Hotel hotel) {
-        return hotelRepository.save(hotel);
+        hotel.setAmenityMask(amenityService.registerAmenities(hotel.getAmenities()));
+        Hotel savedHotel = hotelRepository.save(hotel);
+        eventPublisher.publishEvent(new HotelChangedEvent(savedHotel.getId()));
+        return savedHotel;
     }
 
     @Override
     public void deleteHotel(Long id) {
         hotelRepository.deleteById(id);
+        eventPublisher.publishEvent(new HotelChangedEvent(id));
+    }
+
+    // Keeps the geo order; with stay dates, hotels without a free room for the whole stay are dropped
+    private List<NearbyHotelResponse> toNearbyResponses(List<GeoMatch> matches, LocalDate checkInDate,
+            LocalDate checkOutDate, int guests, int limit) {
+        Map<Long, HotelAvailabilitySummary> availability = null;
+        if (checkInDate != null && checkOutDate != null) {
+            Set<Long> hotelIds = new HashSet<>();
+            for (GeoMatch match : matches) {
+                hotelIds.add(match.getHotelId());
+            }
+            availability = availabilityService.summarizeHotels(hotelIds, checkInDate, checkOutDate, guests);
+        }
+
+        List<GeoMatch> selected = new ArrayList<>(Math.min(limit, matches.size()));
+        for (GeoMatch match : matches) {
+            if (selected.size() == limit) {
+                break;
+            }
+            if (availability == null || availability.containsKey(match.getHotelId())) {
+                selected.add(match);
+            }
+        }
+
+        List<Long> selectedIds = new ArrayList<>(selected.size());
+        for (GeoMatch match : selected) {
+            selectedIds.add(match.getHotelId());
+        }
+        Map<Long, Hotel> hotelsById = new HashMap<>();
+        for (Hotel hotel : hotelRepository.findAllById(selectedIds)) {
+            hotelsById.put(hotel.getId(), hotel);
+        }
+
+        List<NearbyHotelResponse> responses = new ArrayList<>(selected.size());
+        for (GeoMatch match : selected) {
+            Hotel hotel = hotelsById.get(match.getHotelId());
+            if (hotel == null) {
+                continue;
+            }
+            HotelAvailabilitySummary summary = availability != null ? availability.get(hotel.getId()) : null;
+            responses.add(new NearbyHotelResponse(
+                    hotel.getId(),
+                    hotel.getName(),
+                    hotel.getAddress(),
+                    hotel.getCity(),
+                    hotel.getCountry(),
+                    hotel.getStarRating(),
+                    hotel.getLatitude(),
+                    hotel.getLongitude(),
+                    Math.round(match.getDistanceKm() * 100) / 100.0,
+                    summary != null ? summary.getAvailableRooms() : null,
+                    summary != null ? summary.getLowestPricePerNight() : null));
+        }
+        return responses;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
-}
\ No newline at end of file
+}
@@ -1,31 +1,85 @@
 package com.smartstay.hotelbooking.service.impl;
 
+import com.smartstay.hotelbooking.availability.RoomTypeInventoryLedger;
+import com.smartstay.hotelbooking.event.BookingChangedEvent;
 import com.smartstay.hotelbooking.model.entity.Booking;
 import com.smartstay.hotelbooking.model.entity.Payment;
+import com.smartstay.hotelbooking.payment.GatewayAuthorizationRequest;
+import com.smartstay.hotelbooking.payment.GatewayResult;
+import com.smartstay.hotelbooking.payment.PaymentGatewayClient;
+import com.smartstay.hotelbooking.payment.PaymentGatewayException;
+import com.smartstay.hotelbooking.repository.ArchivedBookingRepository;
 import com.smartstay.hotelbooking.repository.BookingRepository;
 import com.smartstay.hotelbooking.repository.PaymentRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.projection.PaymentDailyTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentHotelTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentMethodTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentReportLine;
+import com.smartstay.hotelbooking.repository.projection.PaymentTotal;
+import com.smartstay.hotelbooking.revenue.DailyRevenueLedger;
 import com.smartstay.hotelbooking.service.PaymentService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
 
     private final PaymentRepository paymentRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final BookingRepository bookingRepository;
-    private final Random random = new Random();
+    private final RoomTypeInventoryLedger inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RoomRepository roomRepository;
+    private final DailyRevenueLedger revenueLedger;
+    private final PaymentGatewayClient gatewayClient;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final List<Payment.PaymentStatus> CHARGEABLE =
+            List.of(Payment.PaymentStatus.PENDING, Payment.PaymentStatus.FAILED);
+    private static final List<Payment.PaymentStatus> UNSETTLED =
+            List.of(Payment.PaymentStatus.PROCESSING, Payment.PaymentStatus.UNKNOWN);
+
+    private static final String OUTCOME_UNKNOWN = "The payment gateway did not confirm the outcome; the payment "
+            + "will be reconciled with the gateway before it can be retried";
 
     @Autowired
-    public PaymentServiceImpl(PaymentRepository paymentRepository, BookingRepository bookingRepository) {
+    public PaymentServiceImpl(PaymentRepository paymentRepository,
+            ArchivedBookingRepository archivedBookingRepository, BookingRepository bookingRepository,
+            RoomTypeInventoryLedger inventoryLedger, ApplicationEventPublisher eventPublisher,
+            RoomRepository roomRepository, DailyRevenueLedger revenueLedger, PaymentGatewayClient gatewayClient,
+            PlatformTransactionManager transactionManager) {
         this.paymentRepository = paymentRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
         this.bookingRepository = bookingRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.eventPublisher = eventPublisher;
+        this.roomRepository = roomRepository;
+        this.revenueLedger = revenueLedger;
+        this.gatewayClient = gatewayClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
@@ -59,71 +113,414 @@ public class PaymentServiceImpl implements PaymentService {
         return paymentRepository.findByStatusAndDateRange(status, startDate, endDate);
     }
 
+    // The report covers archived payments too: each figure is summed from both tables and merged here
+    @Override
+    public PaymentTotal sumByStatusAndDateRange(Payment.PaymentStatus status, LocalDateTime startDate,
+            LocalDateTime endDate) {
+        ReportTotal total = new ReportTotal();
+        total.add(paymentRepository.sumByStatusAndDateRange(status, startDate, endDate));
+        total.add(archivedBookingRepository.sumPaymentsByStatusAndDateRange(status, startDate, endDate));
+        return total;
+    }
+
+    @Override
+    public List<PaymentDailyTotal> sumByDay(Payment.PaymentStatus status, LocalDateTime startDate,
+            LocalDateTime endDate) {
+        List<ReportTotal> totals = mergeTotals(paymentRepository.sumByDay(status, startDate, endDate),
+                archivedBookingRepository.sumPaymentsByDay(status, startDate, endDate), PaymentDailyTotal::getDay);
+        totals.sort(Comparator.comparing(ReportTotal::getDay));
+        return new ArrayList<>(totals);
+    }
+
+    @Override
+    public List<PaymentMethodTotal> sumByPaymentMethod(Payment.PaymentStatus status, LocalDateTime startDate,
+            LocalDateTime endDate) {
+        List<ReportTotal> totals = mergeTotals(paymentRepository.sumByPaymentMethod(status, startDate, endDate),
+                archivedBookingRepository.sumPaymentsByPaymentMethod(status, startDate, endDate),
+                PaymentMethodTotal::getPaymentMethod);
+        totals.sort(Comparator.comparing(ReportTotal::getTotalAmount).reversed());
+        return new ArrayList<>(totals);
+    }
+
+    @Override
+    public List<PaymentHotelTotal> sumByHotel(Payment.PaymentStatus status, LocalDateTime startDate,
+            LocalDateTime endDate) {
+        List<ReportTotal> totals = mergeTotals(paymentRepository.sumByHotel(status, startDate, endDate),
+                archivedBookingRepository.sumPaymentsByHotel(status, startDate, endDate),
+                PaymentHotelTotal::getHotelId);
+        totals.sort(Comparator.comparing(ReportTotal::getTotalAmount).reversed());
+        return new ArrayList<>(totals);
+    }
+
+    // Newest first across both tables: the requested page can only hold rows from the first
+    // (page + 1) * size of either side, so that many are read from each and merged
+    @Override
+    public Page<PaymentReportLine> findReportLines(Payment.PaymentStatus status, LocalDateTime startDate,
+            LocalDateTime endDate, Pageable pageable) {
+        int window = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        Page<PaymentReportLine> hot = paymentRepository.findReportLines(status, startDate, endDate,
+                PageRequest.of(0, window, pageable.getSort()));
+        Page<PaymentReportLine> archived = archivedBookingRepository.findPaymentReportLines(status, startDate,
+                endDate, PageRequest.of(0, window));
+
+        List<PaymentReportLine> merged = new ArrayList<>(hot.getNumberOfElements()
+                + archived.getNumberOfElements());
+        merged.addAll(hot.getContent());
+        merged.addAll(archived.getContent());
+        merged.sort(Comparator.comparing(PaymentReportLine::getPaymentDate, Comparator.reverseOrder())
+                .thenComparing(PaymentReportLine::getId, Comparator.reverseOrder()));
+
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        return new PageImpl<>(merged.subList(from, to), pageable,
+                hot.getTotalElements() + archived.getTotalElements());
+    }
+
     @Override
     public Payment updatePayment(Payment payment) {
         return paymentRepository.save(payment);
     }
 
     @Override
-    @Transactional
-    public Payment processPayment(Long bookingId, String paymentMethod, String cardNumber,
+    public CompletableFuture<Payment> processPayment(Long bookingId, String paymentMethod, String cardNumber,
             String cardHolderName, String expiryMonth, String expiryYear, String cvv) {
-        // Find the booking
+        // Claim the payment in a short transaction of its own, then talk to the gateway with no transaction open
+        GatewayClaim claim = transactionTemplate.execute(status ->
+                claimForCharge(bookingId, paymentMethod, cardNumber));
+        Long paymentId = claim.paymentId;
+
+        GatewayAuthorizationRequest request = new GatewayAuthorizationRequest(paymentId, claim.amount,
+                paymentMethod, cardNumber, cardHolderName, expiryMonth, expiryYear, cvv);
+        return gatewayClient.authorize(request)
+                .handle((authorization, error) -> {
+                    if (error != null) {
+                        // Nothing can have been captured yet, and an authorization lapses on its own
+                        releaseClaim(paymentId, Payment.PaymentStatus.PENDING);
+                        throw unwrap(error);
+                    }
+                    if (!authorization.isApproved()) {
+                        releaseClaim(paymentId, Payment.PaymentStatus.FAILED);
+                        throw new IllegalStateException("Payment declined: " + authorization.getDeclineReason());
+                    }
+                    return authorization.getReference();
+                })
+                .thenCompose(authorizationId -> gatewayClient.capture(authorizationId, claim.amount, claim.key)
+                        .handle((result, error) -> settleCapture(paymentId, result, error)));
+    }
+
+    private GatewayClaim claimForCharge(Long bookingId, String paymentMethod, String cardNumber) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new EntityNotFoundException("Booking not found with id: " + bookingId));
+        if (booking.getBookingStatus() == Booking.BookingStatus.CANCELLED) {
+            throw new IllegalStateException("Cannot pay for a cancelled booking");
+        }
 
-        // Get the payment associated with the booking or create a new one if not exists
         Payment payment = paymentRepository.findByBooking(booking)
                 .orElseThrow(() -> new EntityNotFoundException("Payment not found for booking id: " + bookingId));
 
-        // In a real application, you would integrate with a payment gateway here
-        // For this example, we'll simulate a successful payment
+        // Only one attempt at a time, and never a second charge for a completed payment or one that may have been
+        if (payment.getPaymentStatus() == Payment.PaymentStatus.UNKNOWN) {
+            throw new IllegalStateException("Payment for booking " + bookingId
+                    + " is awaiting reconciliation with the payment gateway, please try again later");
+        }
+        GatewayClaim claim = claim(payment, CHARGEABLE, Payment.GatewayOperation.CHARGE);
+        if (claim == null) {
+            throw new IllegalStateException("Payment for booking " + bookingId
+                    + " is already being processed or has been completed");
+        }
 
-        // Update payment details
-        payment.setPaymentMethod(paymentMethod);
-        payment.setPaymentStatus(Payment.PaymentStatus.COMPLETED);
-        payment.setPaymentDate(LocalDateTime.now());
+        // Store last 4 digits of the card for reference
+        String cardLastDigits = cardNumber != null && cardNumber.length() >= 4
+                ? cardNumber.substring(cardNumber.length() - 4)
+                : null;
+        paymentRepository.updateCardDetails(claim.paymentId, paymentMethod, cardLastDigits);
+        return claim;
+    }
 
-        // Generate a transaction ID
-        payment.setTransactionId("TXN" + System.currentTimeMillis() + random.nextInt(1000));
+    // A capture refused before it was sent can simply be tried again. Any other failure may have charged the
+    // card, so the payment waits for the reconciler instead of going back to PENDING
+    private Payment settleCapture(Long paymentId, GatewayResult result, Throwable error) {
+        if (error != null) {
+            RuntimeException cause = unwrap(error);
+            if (cause instanceof RejectedExecutionException) {
+                releaseClaim(paymentId, Payment.PaymentStatus.PENDING);
+                throw cause;
+            }
+            releaseClaim(paymentId, Payment.PaymentStatus.UNKNOWN);
+            throw new PaymentGatewayException(OUTCOME_UNKNOWN, cause);
+        }
+        if (!result.isApproved()) {
+            releaseClaim(paymentId, Payment.PaymentStatus.FAILED);
+            throw new IllegalStateException("Payment declined: " + result.getDeclineReason());
+        }
+        transactionTemplate.executeWithoutResult(status -> paymentRepository.recordTransactionId(paymentId,
+                result.getReference(), Payment.PaymentStatus.PROCESSING, LocalDateTime.now()));
+        return transactionTemplate.execute(status -> completeCharge(paymentId, result.getReference()));
+    }
 
-        // Store last 4 digits of the card for reference
-        if (cardNumber != null && cardNumber.length() >= 4) {
-            payment.setCardLastDigits(cardNumber.substring(cardNumber.length() - 4));
+    private Payment completeCharge(Long paymentId, String transactionId) {
+        LocalDateTime now = LocalDateTime.now();
+        // Whoever settles the payment first counts it; a late second settlement finds it already done
+        if (paymentRepository.transitionStatus(paymentId, UNSETTLED, Payment.PaymentStatus.COMPLETED, now) == 0) {
+            return paymentRepository.findById(paymentId)
+                    .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + paymentId));
         }
+        Payment payment = paymentRepository.findWithBookingAndUserById(paymentId)
+                .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + paymentId));
 
+        payment.setPaymentDate(now);
+        payment.setTransactionId(transactionId);
+
+        revenueLedger.record(hotelIdOf(payment.getBooking()), payment);
         return paymentRepository.save(payment);
     }
 
     @Override
-    @Transactional
-    public Payment refundPayment(Long paymentId) {
+    public CompletableFuture<Payment> refundPayment(Long paymentId) {
+        GatewayClaim claim = transactionTemplate.execute(status -> claimForRefund(paymentId));
+
+        return gatewayClient.refund(claim.transactionId, claim.amount, claim.key)
+                .handle((result, error) -> settleRefund(paymentId, result, error));
+    }
+
+    private GatewayClaim claimForRefund(Long paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + paymentId));
 
         // Check if payment is completed
-        if (payment.getPaymentStatus() != Payment.PaymentStatus.COMPLETED) {
+        GatewayClaim claim = payment.getPaymentStatus() == Payment.PaymentStatus.COMPLETED
+                ? claim(payment, List.of(Payment.PaymentStatus.COMPLETED), Payment.GatewayOperation.REFUND)
+                : null;
+        if (claim == null) {
             throw new IllegalStateException("Cannot refund a payment that is not completed");
         }
 
-        // In a real application, you would integrate with a payment gateway to process
-        // the refund
-        // For this example, we'll just update the status
+        // Out of completed revenue while the refund is in flight; it lands in refunded or comes back
+        revenueLedger.reverse(hotelIdOf(payment.getBooking()), payment);
+        return claim;
+    }
 
-        payment.setPaymentStatus(Payment.PaymentStatus.REFUNDED);
+    // A declined refund, or one refused before it was sent, leaves the payment completed; any other failure
+    // may have refunded it, so it waits for the reconciler with its revenue held out
+    private Payment settleRefund(Long paymentId, GatewayResult result, Throwable error) {
+        if (error != null) {
+            RuntimeException cause = unwrap(error);
+            if (cause instanceof RejectedExecutionException) {
+                transactionTemplate.executeWithoutResult(status -> restoreCompleted(paymentId));
+                throw cause;
+            }
+            releaseClaim(paymentId, Payment.PaymentStatus.UNKNOWN);
+            throw new PaymentGatewayException(OUTCOME_UNKNOWN, cause);
+        }
+        if (!result.isApproved()) {
+            transactionTemplate.executeWithoutResult(status -> restoreCompleted(paymentId));
+            throw new IllegalStateException("Refund declined: " + result.getDeclineReason());
+        }
+        return transactionTemplate.execute(status -> completeRefund(paymentId));
+    }
 
-        // Update the booking status if needed
+    private Payment completeRefund(Long paymentId) {
+        if (paymentRepository.transitionStatus(paymentId, UNSETTLED, Payment.PaymentStatus.REFUNDED,
+                LocalDateTime.now()) == 0) {
+            return paymentRepository.findById(paymentId)
+                    .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + paymentId));
+        }
+        Payment payment = paymentRepository.findWithBookingAndUserById(paymentId)
+                .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + paymentId));
+
+        // The refund stays on the day of the payment, counted as refunded revenue
         Booking booking = payment.getBooking();
-        if (booking != null && booking.getBookingStatus() != Booking.BookingStatus.CANCELLED) {
+        revenueLedger.record(hotelIdOf(booking), payment);
+
+        // Update the booking status if needed
+        if (booking.getBookingStatus() != Booking.BookingStatus.CANCELLED) {
+            Booking.BookingStatus previousStatus = booking.getBookingStatus();
             booking.setBookingStatus(Booking.BookingStatus.CANCELLED);
             bookingRepository.save(booking);
+            inventoryLedger.statusChanged(booking, previousStatus);
+            eventPublisher.publishEvent(BookingChangedEvent.of(booking));
         }
 
-        return paymentRepository.save(payment);
+        return payment;
+    }
+
+    private Payment restoreCompleted(Long paymentId) {
+        if (paymentRepository.transitionStatus(paymentId, UNSETTLED, Payment.PaymentStatus.COMPLETED,
+                LocalDateTime.now()) == 0) {
+            return paymentRepository.findById(paymentId)
+                    .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + paymentId));
+        }
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + paymentId));
+        revenueLedger.record(hotelIdOf(payment.getBooking()), payment);
+        return payment;
+    }
+
+    // Settles a payment left in PROCESSING or UNKNOWN by asking the gateway what became of the call it was
+    // claimed for. A call the gateway never received is undone, so the guest can pay again
+    @Override
+    public CompletableFuture<Payment> reconcilePayment(Long paymentId) {
+        Payment payment = transactionTemplate.execute(status -> paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + paymentId)));
+        if (!UNSETTLED.contains(payment.getPaymentStatus()) || payment.getGatewayOperation() == null) {
+            return CompletableFuture.completedFuture(payment);
+        }
+
+        boolean charge = payment.getGatewayOperation() == Payment.GatewayOperation.CHARGE;
+        if (charge && payment.getTransactionId() != null) {
+            // The capture was approved and recorded; only completing the payment was lost
+            return CompletableFuture.completedFuture(transactionTemplate.execute(status ->
+                    completeCharge(paymentId, payment.getTransactionId())));
+        }
+
+        return gatewayClient.lookup(gatewayKey(paymentId, payment.getGatewayOperation(), attemptsOf(payment)))
+                .thenApply(found -> transactionTemplate.execute(status -> {
+                    GatewayResult result = found.orElse(null);
+                    if (result != null && result.isApproved()) {
+                        return charge ? completeCharge(paymentId, result.getReference()) : completeRefund(paymentId);
+                    }
+                    if (!charge) {
+                        return restoreCompleted(paymentId);
+                    }
+                    paymentRepository.transitionStatus(paymentId, UNSETTLED,
+                            result != null ? Payment.PaymentStatus.FAILED : Payment.PaymentStatus.PENDING,
+                            LocalDateTime.now());
+                    return paymentRepository.findById(paymentId)
+                            .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: "
+                                    + paymentId));
+                }));
+    }
+
+    // Moves the payment into PROCESSING for the next attempt, or returns null when someone else holds it
+    private GatewayClaim claim(Payment payment, List<Payment.PaymentStatus> from, Payment.GatewayOperation operation) {
+        int attempt = attemptsOf(payment) + 1;
+        if (paymentRepository.claimForGateway(payment.getId(), from, Payment.PaymentStatus.PROCESSING, operation,
+                attempt, LocalDateTime.now()) == 0) {
+            return null;
+        }
+        return new GatewayClaim(payment.getId(), payment.getAmount(), payment.getTransactionId(),
+                gatewayKey(payment.getId(), operation, attempt));
+    }
+
+    private void releaseClaim(Long paymentId, Payment.PaymentStatus status) {
+        transactionTemplate.executeWithoutResult(tx -> paymentRepository.transitionStatus(paymentId,
+                List.of(Payment.PaymentStatus.PROCESSING), status, LocalDateTime.now()));
+    }
+
+    private static int attemptsOf(Payment payment) {
+        return payment.getGatewayAttempts() != null ? payment.getGatewayAttempts() : 0;
+    }
+
+    // Keyed by the payment, so the gateway recognises a repeat of the same capture or refund
+    private static String gatewayKey(Long paymentId, Payment.GatewayOperation operation, int attempt) {
+        return "PAY" + paymentId + "-" + operation + "-" + attempt;
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
     }
 
     @Override
     public void deletePayment(Long id) {
         paymentRepository.deleteById(id);
     }
-}
\ No newline at end of file
+
+    // Reads the id without loading the room or hotel
+    private Long hotelIdOf(Booking booking) {
+        Long roomId = booking.getRoom().getId();
+        return roomRepository.findHotelIdById(roomId)
+                .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + roomId));
+    }
+
+    // Adds up the groups both tables returned under the same key, keeping the first side's labels
+    private static <T extends PaymentTotal> List<ReportTotal> mergeTotals(List<T> hot, List<T> archived,
+            Function<T, Object> key) {
+        Map<Object, ReportTotal> byKey = new LinkedHashMap<>();
+        for (List<T> side : List.of(hot, archived)) {
+            for (T total : side) {
+                byKey.computeIfAbsent(key.apply(total), k -> ReportTotal.labelledLike(total)).add(total);
+            }
+        }
+        return new ArrayList<>(byKey.values());
+    }
+
+    // One merged report figure; only the label of the breakdown it belongs to is set
+    private static final class ReportTotal implements PaymentDailyTotal, PaymentMethodTotal, PaymentHotelTotal {
+        private LocalDate day;
+        private String paymentMethod;
+        private Long hotelId;
+        private String hotelName;
+        private long paymentCount;
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+
+        static ReportTotal labelledLike(PaymentTotal total) {
+            ReportTotal merged = new ReportTotal();
+            if (total instanceof PaymentDailyTotal daily) {
+                merged.day = daily.getDay();
+            }
+            if (total instanceof PaymentMethodTotal method) {
+                merged.paymentMethod = method.getPaymentMethod();
+            }
+            if (total instanceof PaymentHotelTotal hotel) {
+                merged.hotelId = hotel.getHotelId();
+                merged.hotelName = hotel.getHotelName();
+            }
+            return merged;
+        }
+
+        void add(PaymentTotal total) {
+            if (total.getPaymentCount() != null) {
+                paymentCount += total.getPaymentCount();
+            }
+            if (total.getTotalAmount() != null) {
+                totalAmount = totalAmount.add(total.getTotalAmount());
+            }
+        }
+
+        @Override
+        public LocalDate getDay() {
+            return day;
+        }
+
+        @Override
+        public String getPaymentMethod() {
+            return paymentMethod;
+        }
+
+        @Override
+        public Long getHotelId() {
+            return hotelId;
+        }
+
+        @Override
+        public String getHotelName() {
+            return hotelName;
+        }
+
+        @Override
+        public Long getPaymentCount() {
+            return paymentCount;
+        }
+
+        @Override
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+    }
+
+    // What the gateway call needs from a claimed payment, read before the claim moved it to PROCESSING
+    private static final class GatewayClaim {
+        private final Long paymentId;
+        private final BigDecimal amount;
+        private final String transactionId;
+        private final String key;
+
+        GatewayClaim(Long paymentId, BigDecimal amount, String transactionId, String key) {
+            this.paymentId = paymentId;
+            this.amount = amount;
+            this.transactionId = transactionId;
+            this.key = key;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.smartstay.hotelbooking.service.impl;
 
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
 import com.smartstay.hotelbooking.model.entity.Hotel;
 import com.smartstay.hotelbooking.model.entity.Room;
 import com.smartstay.hotelbooking.model.entity.RoomType;
 import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.projection.RoomPlacement;
 import com.smartstay.hotelbooking.service.RoomService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,15 +23,20 @@ import java.util.Optional;
 public class RoomServiceImpl implements RoomService {
 
     private final RoomRepository roomRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public RoomServiceImpl(RoomRepository roomRepository) {
+    public RoomServiceImpl(RoomRepository roomRepository, ApplicationEventPublisher eventPublisher) {
         this.roomRepository = roomRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public Room createRoom(Room room) {
-        return roomRepository.save(room);
+        Room savedRoom = roomRepository.save(room);
+        eventPublisher.publishEvent(new RoomChangedEvent(savedRoom.getId(),
+                savedRoom.getHotel().getId(), savedRoom.getRoomType().getId(), null, null));
+        return savedRoom;
     }
 
     @Override
@@ -67,8 +75,8 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
-    public List<Room> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return roomRepository.findByPriceRange(minPrice, maxPrice);
+    public List<Room> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        return roomRepository.findByPriceRange(minPrice, maxPrice, pageable);
     }
 
     @Override
@@ -83,7 +91,14 @@ public class RoomServiceImpl implements RoomService {
 
     @Override
     public Room updateRoom(Room room) {
-        return roomRepository.save(room);
+        Optional<RoomPlacement> previous = room.getId() == null
+                ? Optional.empty() : roomRepository.findPlacementById(room.getId());
+        Room savedRoom = roomRepository.save(room);
+        eventPublisher.publishEvent(new RoomChangedEvent(savedRoom.getId(),
+                savedRoom.getHotel().getId(), savedRoom.getRoomType().getId(),
+                previous.map(RoomPlacement::getHotelId).orElse(null),
+                previous.map(RoomPlacement::getRoomTypeId).orElse(null)));
+        return savedRoom;
     }
 
     @Override
@@ -91,11 +106,17 @@ public class RoomServiceImpl implements RoomService {
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + roomId));
         room.setStatus(status);
-        return roomRepository.save(room);
+        Room savedRoom = roomRepository.save(room);
+        eventPublisher.publishEvent(new RoomChangedEvent(savedRoom.getId()));
+        return savedRoom;
     }
 
     @Override
     public void deleteRoom(Long id) {
+        Optional<RoomPlacement> previous = roomRepository.findPlacementById(id);
         roomRepository.deleteById(id);
+        eventPublisher.publishEvent(new RoomChangedEvent(id, null, null,
+                previous.map(RoomPlacement::getHotelId).orElse(null),
+                previous.map(RoomPlacement::getRoomTypeId).orElse(null)));
     }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.smartstay.hotelbooking.service.impl;
 
+import com.smartstay.hotelbooking.event.RoomTypeChangedEvent;
 import com.smartstay.hotelbooking.model.entity.RoomType;
 import com.smartstay.hotelbooking.repository.RoomTypeRepository;
+import com.smartstay.hotelbooking.service.AmenityService;
 import com.smartstay.hotelbooking.service.RoomTypeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -14,15 +17,23 @@ import java.util.Optional;
 public class RoomTypeServiceImpl implements RoomTypeService {
 
     private final RoomTypeRepository roomTypeRepository;
+    private final AmenityService amenityService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public RoomTypeServiceImpl(RoomTypeRepository roomTypeRepository) {
+    public RoomTypeServiceImpl(RoomTypeRepository roomTypeRepository, AmenityService amenityService,
+            ApplicationEventPublisher eventPublisher) {
         this.roomTypeRepository = roomTypeRepository;
+        this.amenityService = amenityService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public RoomType createRoomType(RoomType roomType) {
-        return roomTypeRepository.save(roomType);
+        roomType.setAmenityMask(amenityService.registerAmenities(roomType.getAmenities()));
+        RoomType savedRoomType = roomTypeRepository.save(roomType);
+        eventPublisher.publishEvent(new RoomTypeChangedEvent(savedRoomType.getId()));
+        return savedRoomType;
     }
 
     @Override
@@ -52,11 +63,15 @@ public class RoomTypeServiceImpl implements RoomTypeService {
 
     @Override
     public RoomType updateRoomType(RoomType roomType) {
-        return roomTypeRepository.save(roomType);
+        roomType.setAmenityMask(amenityService.registerAmenities(roomType.getAmenities()));
+        RoomType savedRoomType = roomTypeRepository.save(roomType);
+        eventPublisher.publishEvent(new RoomTypeChangedEvent(savedRoomType.getId()));
+        return savedRoomType;
     }
 
     @Override
     public void deleteRoomType(Long id) {
         roomTypeRepository.deleteById(id);
+        eventPublisher.publishEvent(new RoomTypeChangedEvent(id));
     }
 }
\ No newline at end of file
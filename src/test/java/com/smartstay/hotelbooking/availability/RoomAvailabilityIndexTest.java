@@ -0,0 +1,78 @@
+package com.smartstay.hotelbooking.availability;
+
+import com.smartstay.hotelbooking.booking.RoomHoldRegistry;
+import com.smartstay.hotelbooking.event.BookingChangedEvent;
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
+import com.smartstay.hotelbooking.model.entity.Hotel;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.RoomType;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// A room is re-read from a table read taken before a booking of it commits, and the booking's event arrives
+// while the read is still in progress
+class RoomAvailabilityIndexTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.now().plusDays(10);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(3);
+
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final RoomAvailabilityIndex index =
+            new RoomAvailabilityIndex(roomRepository, bookingRepository, mock(RoomHoldRegistry.class));
+    private final Room room = room();
+
+    @BeforeEach
+    void buildIndex() {
+        ReflectionTestUtils.setField(index, "enabled", true);
+        when(roomRepository.findAllWithHotelAndRoomType()).thenReturn(List.of(room));
+        index.rebuild();
+    }
+
+    @Test
+    void bookingCommittedDuringRoomReloadSurvivesTheReload() {
+        when(roomRepository.findByIdWithHotelAndRoomType(1L)).thenReturn(Optional.of(room));
+        when(bookingRepository.findActiveStaysForRoomsEndingAfter(anyList(), any())).thenAnswer(invocation -> {
+            index.onBookingChanged(new BookingChangedEvent(7L, 1L, "Paris", CHECK_IN, CHECK_OUT, true));
+            return List.of();
+        });
+
+        index.onRoomChanged(new RoomChangedEvent(1L));
+
+        assertThat(index.findAvailableRooms("Paris", CHECK_IN, CHECK_OUT, 1, null, 0, null, 10)).isEmpty();
+        assertThat(index.findAvailableRooms("Paris", CHECK_OUT, CHECK_OUT.plusDays(1), 1, null, 0, null, 10))
+                .extracting(IndexedRoom::getRoomId).containsExactly(1L);
+    }
+
+    private static Room room() {
+        Hotel hotel = new Hotel();
+        hotel.setId(3L);
+        hotel.setName("Seine");
+        hotel.setCity("Paris");
+        RoomType roomType = new RoomType();
+        roomType.setId(5L);
+        roomType.setName("Double");
+        Room room = new Room();
+        room.setId(1L);
+        room.setRoomNumber("101");
+        room.setCapacity(2);
+        room.setPricePerNight(new BigDecimal("120.00"));
+        room.setHotel(hotel);
+        room.setRoomType(roomType);
+        return room;
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartstay.hotelbooking.availability;
+
+import com.smartstay.hotelbooking.event.BookingChangedEvent;
+import com.smartstay.hotelbooking.event.RoomChangedEvent;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.projection.BookedStay;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Each reload answers from a table read taken before a booking commits, and the booking's event arrives while
+// the read is still in progress
+class RoomStayIntervalIndexTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.now().plusDays(10);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(3);
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final RoomStayIntervalIndex index = new RoomStayIntervalIndex(bookingRepository);
+
+    @Test
+    void bookingCommittedDuringRebuildSurvivesTheSnapshot() {
+        when(bookingRepository.findActiveStaysEndingAfter(any())).thenAnswer(invocation -> {
+            index.onBookingChanged(booked(7L, 1L));
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertThat(index.overlaps(1L, CHECK_IN, CHECK_OUT)).isTrue();
+    }
+
+    @Test
+    void cancellationDuringRoomReloadSurvivesTheReload() {
+        List<BookedStay> stays = List.of(stay(7L, 1L));
+        when(bookingRepository.findActiveStaysEndingAfter(any())).thenReturn(stays);
+        index.rebuild();
+        when(bookingRepository.findActiveStaysForRoomsEndingAfter(anyList(), any())).thenAnswer(invocation -> {
+            index.onBookingChanged(new BookingChangedEvent(7L, 1L, "Paris", CHECK_IN, CHECK_OUT, false));
+            return stays;
+        });
+
+        index.onRoomChanged(new RoomChangedEvent(1L));
+
+        assertThat(index.overlaps(1L, CHECK_IN, CHECK_OUT)).isFalse();
+    }
+
+    private static BookingChangedEvent booked(Long bookingId, Long roomId) {
+        return new BookingChangedEvent(bookingId, roomId, "Paris", CHECK_IN, CHECK_OUT, true);
+    }
+
+    private static BookedStay stay(Long bookingId, Long roomId) {
+        BookedStay stay = mock(BookedStay.class);
+        when(stay.getBookingId()).thenReturn(bookingId);
+        when(stay.getRoomId()).thenReturn(roomId);
+        when(stay.getCheckInDate()).thenReturn(CHECK_IN);
+        when(stay.getCheckOutDate()).thenReturn(CHECK_OUT);
+        return stay;
+    }
+}
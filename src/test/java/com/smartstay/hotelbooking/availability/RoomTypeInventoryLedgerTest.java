@@ -0,0 +1,102 @@
+package com.smartstay.hotelbooking.availability;
+
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Hotel;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.RoomType;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.RoomTypeInventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+// Transactions are stood in for by bare synchronization scopes: the ledger only needs their completion callbacks
+class RoomTypeInventoryLedgerTest {
+
+    private final RoomTypeInventoryRepository inventoryRepository = mock(RoomTypeInventoryRepository.class);
+    private final RoomTypeInventoryLedger ledger = new RoomTypeInventoryLedger(inventoryRepository,
+            mock(RoomRepository.class), mock(BookingRepository.class));
+
+    @BeforeEach
+    void shortenTimeout() {
+        ReflectionTestUtils.setField(ledger, "lockTimeoutMillis", 100L);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void completeTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete();
+        }
+    }
+
+    @Test
+    void rebuildWaitsForOpenLedgerWrites() throws Exception {
+        ledger.release(booking());
+
+        assertThatThrownBy(() -> inOtherTransaction(ledger::rebuild))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("busy with bookings");
+
+        complete();
+        assertThat(inOtherTransaction(ledger::rebuild)).isZero();
+    }
+
+    @Test
+    void ledgerWritesWaitForARunningRebuild() throws Exception {
+        ledger.rebuild();
+
+        assertThatThrownBy(() -> inOtherTransaction(() -> {
+            ledger.release(booking());
+            return 0;
+        })).hasCauseInstanceOf(IllegalStateException.class).hasMessageContaining("being rebuilt");
+    }
+
+    private static <T> T inOtherTransaction(Supplier<T> work) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                return work.get();
+            } finally {
+                complete();
+            }
+        }).get();
+    }
+
+    private static void complete() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private static Booking booking() {
+        Hotel hotel = new Hotel();
+        hotel.setId(3L);
+        RoomType roomType = new RoomType();
+        roomType.setId(5L);
+        Room room = new Room();
+        room.setId(1L);
+        room.setHotel(hotel);
+        room.setRoomType(roomType);
+        Booking booking = new Booking();
+        booking.setRoom(room);
+        booking.setCheckInDate(LocalDate.now().plusDays(10));
+        booking.setCheckOutDate(LocalDate.now().plusDays(12));
+        return booking;
+    }
+}
@@ -0,0 +1,116 @@
+package com.smartstay.hotelbooking.benchmark;
+
+import com.smartstay.hotelbooking.HotelBookingApplication;
+import com.smartstay.hotelbooking.booking.AsyncBookingPipeline;
+import com.smartstay.hotelbooking.booking.QueuedBookingRequest;
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.UserRepository;
+import com.smartstay.hotelbooking.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Bookings through the async pipeline against the synchronous path, against the in-memory test database. Each
+// operation is one booking seen through to its outcome: the synchronous call returns it, the queued request is
+// waited on until its writer has committed it. Every operation books a night no other operation touches, so
+// both paths only ever succeed and the difference is the cost of the write itself.
+// Run with the command in the README's Testing section
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+public class AsyncBookingBenchmark {
+
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2040, 1, 1);
+
+    private final AtomicLong nights = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private AsyncBookingPipeline pipeline;
+    private User customer;
+    private List<Room> rooms;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(HotelBookingApplication.class)
+                .profiles("test", "dev")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        bookingService = context.getBean(BookingService.class);
+        pipeline = context.getBean(AsyncBookingPipeline.class);
+        customer = context.getBean(UserRepository.class).findByUsername("customer").orElseThrow();
+        rooms = context.getBean(RoomRepository.class).findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Booking synchronous() {
+        long night = nights.getAndIncrement();
+        Room room = roomFor(night);
+        LocalDate checkIn = checkInFor(night);
+        return bookingService.processBookingRequest(customer.getId(), room.getId(), checkIn, checkIn.plusDays(1),
+                1, 0, "");
+    }
+
+    @Benchmark
+    public QueuedBookingRequest queued() {
+        long night = nights.getAndIncrement();
+        Room room = roomFor(night);
+        LocalDate checkIn = checkInFor(night);
+        QueuedBookingRequest request = pipeline.submit(customer.getId(), customer.getUsername(), room.getId(),
+                checkIn, checkIn.plusDays(1), 1, 0, "");
+        while (!request.isDone()) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        if (request.getStatus() != QueuedBookingRequest.Status.CONFIRMED) {
+            throw new IllegalStateException("Queued booking was rejected: " + request.getError());
+        }
+        return request;
+    }
+
+    // Consecutive operations spread over the rooms first, then move on to the next night
+    private Room roomFor(long night) {
+        return rooms.get((int) (night % rooms.size()));
+    }
+
+    private LocalDate checkInFor(long night) {
+        return FIRST_NIGHT.plusDays(night / rooms.size());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AsyncBookingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
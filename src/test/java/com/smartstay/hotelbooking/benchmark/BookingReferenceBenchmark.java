@@ -0,0 +1,77 @@
+package com.smartstay.hotelbooking.benchmark;
+
+import com.smartstay.hotelbooking.booking.BookingReferenceGenerator;
+import com.smartstay.hotelbooking.booking.RandomBookingReferenceGenerator;
+import com.smartstay.hotelbooking.booking.SequenceBookingReferenceGenerator;
+import com.smartstay.hotelbooking.repository.ArchivedBookingRepository;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+// Both reference schemes against the generator they replaced: "BK" + 8 digits drawn one at a time from a shared
+// java.util.Random, which every booking thread contends on. The database is left out (an empty node seeds once),
+// so this measures only the cost of producing a reference.
+// Run with the command in the README's Testing section
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(4)
+public class BookingReferenceBenchmark {
+
+    private final Random random = new Random();
+    private BookingReferenceGenerator sequence;
+    private BookingReferenceGenerator randomWithCheckDigit;
+
+    // A fresh node every iteration, so the 10^7 references a node can issue are never used up
+    @Setup(Level.Iteration)
+    public void setUp() {
+        sequence = new SequenceBookingReferenceGenerator(mock(BookingRepository.class),
+                mock(ArchivedBookingRepository.class), "0");
+        sequence.nextReference();
+        randomWithCheckDigit = new RandomBookingReferenceGenerator();
+    }
+
+    @Benchmark
+    public String legacyRandom() {
+        StringBuilder sb = new StringBuilder("BK");
+        for (int i = 0; i < 8; i++) {
+            sb.append(random.nextInt(10));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String sequence() {
+        return sequence.nextReference();
+    }
+
+    @Benchmark
+    public String randomWithCheckDigit() {
+        return randomWithCheckDigit.nextReference();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BookingReferenceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
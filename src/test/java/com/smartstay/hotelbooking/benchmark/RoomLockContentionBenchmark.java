@@ -0,0 +1,105 @@
+package com.smartstay.hotelbooking.benchmark;
+
+import com.smartstay.hotelbooking.booking.RoomLockManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bookings racing through the per-room locks, against the single global lock they avoid. Each operation stands
+// for one booking: a transaction opens, the room is locked, some work runs under the lock, and the commit
+// releases it. The database is left out, so this measures only how the locking scales.
+// Throughput of disjointRooms should grow with the thread count up to the core count, while sameRoom and
+// globalLock stay flat. Run with the command in the README's Testing section; main repeats the run for
+// 1, 2, 4, ... threads up to the number of cores.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class RoomLockContentionBenchmark {
+
+    // Roughly the CPU time of the availability check and the insert that run under the lock
+    private static final long WORK_TOKENS = 10_000;
+
+    private final RoomLockManager lockManager = new RoomLockManager(256, 5_000);
+    private final ReentrantLock globalLock = new ReentrantLock();
+
+    @State(Scope.Thread)
+    public static class Guest {
+        private Long roomId;
+
+        // Rooms 1..52 all land on different stripes of a 256-stripe pool, so each thread has a stripe to itself
+        @Setup
+        public void pickRoom(ThreadParams threads) {
+            roomId = (long) threads.getThreadIndex() + 1;
+        }
+    }
+
+    @Benchmark
+    public void disjointRooms(Guest guest) {
+        book(() -> lockManager.lockRoom(guest.roomId));
+    }
+
+    @Benchmark
+    public void sameRoom() {
+        book(() -> lockManager.lockRoom(1L));
+    }
+
+    @Benchmark
+    public void globalLock() {
+        book(this::lockEverything);
+    }
+
+    private void book(Runnable lock) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lock.run();
+            Blackhole.consumeCPU(WORK_TOKENS);
+        } finally {
+            List<TransactionSynchronization> commit = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCompletion(commit, TransactionSynchronization.STATUS_COMMITTED);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Held until commit like the room locks, so the two differ only in what they serialize
+    private void lockEverything() {
+        globalLock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                globalLock.unlock();
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            new Runner(new OptionsBuilder()
+                    .include(RoomLockContentionBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.smartstay.hotelbooking.booking;
+
+import com.smartstay.hotelbooking.repository.ArchivedBookingRepository;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingReferenceGeneratorTest {
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final ArchivedBookingRepository archivedBookingRepository = mock(ArchivedBookingRepository.class);
+
+    @Test
+    void sequenceContinuesAfterHighestLiveOrArchivedReference() {
+        when(bookingRepository.findMaxBookingReference("BK3", 10)).thenReturn("BK30000041");
+        when(archivedBookingRepository.findMaxBookingReference("BK3", 10)).thenReturn("BK30000107");
+        SequenceBookingReferenceGenerator generator =
+                new SequenceBookingReferenceGenerator(bookingRepository, archivedBookingRepository, "3");
+
+        assertThat(generator.nextReference()).isEqualTo("BK30000108");
+        assertThat(generator.nextReference()).isEqualTo("BK30000109");
+        verify(archivedBookingRepository, times(1)).findMaxBookingReference("BK3", 10);
+    }
+
+    @Test
+    void sequenceStartsAtZeroOnAnEmptyNode() {
+        SequenceBookingReferenceGenerator generator =
+                new SequenceBookingReferenceGenerator(bookingRepository, archivedBookingRepository, "0");
+
+        assertThat(generator.nextReference()).isEqualTo("BK00000000");
+    }
+
+    @Test
+    void sequenceStopsOnceTheNodeIsExhausted() {
+        when(bookingRepository.findMaxBookingReference("BK4", 10)).thenReturn("BK49999998");
+        SequenceBookingReferenceGenerator generator =
+                new SequenceBookingReferenceGenerator(bookingRepository, archivedBookingRepository, "4");
+
+        assertThat(generator.nextReference()).isEqualTo("BK49999999");
+        assertThatThrownBy(generator::nextReference)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("exhausted");
+    }
+
+    @Test
+    void sequenceRejectsANodeIdThatIsNotASingleDigit() {
+        assertThatThrownBy(() ->
+                new SequenceBookingReferenceGenerator(bookingRepository, archivedBookingRepository, ""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("app.booking.reference.node-id");
+        assertThatThrownBy(() ->
+                new SequenceBookingReferenceGenerator(bookingRepository, archivedBookingRepository, "12"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void randomReferencesKeepEightDigitsWithAValidCheckDigit() {
+        RandomBookingReferenceGenerator generator = new RandomBookingReferenceGenerator();
+
+        Set<String> references = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String reference = generator.nextReference();
+            assertThat(reference).matches("BK\\d{8}");
+            assertThat(isLuhnValid(reference.substring(2))).isTrue();
+            references.add(reference);
+        }
+        assertThat(references).hasSizeGreaterThan(990);
+    }
+
+    private static boolean isLuhnValid(String digits) {
+        int sum = 0;
+        for (int i = digits.length() - 1, position = 0; i >= 0; i--, position++) {
+            int digit = digits.charAt(i) - '0';
+            if (position % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+}
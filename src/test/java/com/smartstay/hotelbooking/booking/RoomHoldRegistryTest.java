@@ -0,0 +1,49 @@
+package com.smartstay.hotelbooking.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class RoomHoldRegistryTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.now().plusDays(10);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(3);
+
+    private final RoomHoldRegistry registry =
+            new RoomHoldRegistry(mock(ApplicationEventPublisher.class), 600, 1000, 16, 2);
+
+    @AfterEach
+    void stopTicker() {
+        registry.shutdown();
+    }
+
+    @Test
+    void userCannotHoldMoreThanTheCap() {
+        assertThat(registry.tryHold(1L, 7L, "Paris", CHECK_IN, CHECK_OUT)).isPresent();
+        assertThat(registry.tryHold(2L, 7L, "Paris", CHECK_IN, CHECK_OUT)).isPresent();
+
+        assertThatThrownBy(() -> registry.tryHold(3L, 7L, "Paris", CHECK_IN, CHECK_OUT))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("maximum of 2");
+        assertThat(registry.tryHold(3L, 8L, "Paris", CHECK_IN, CHECK_OUT)).isPresent();
+    }
+
+    @Test
+    void releasedAndRefusedHoldsFreeTheirSlot() {
+        RoomHold first = registry.tryHold(1L, 7L, "Paris", CHECK_IN, CHECK_OUT).orElseThrow();
+        registry.tryHold(2L, 8L, "Paris", CHECK_IN, CHECK_OUT).orElseThrow();
+
+        // Room 2 is taken by another user, so this attempt must not use up one of user 7's slots
+        assertThat(registry.tryHold(2L, 7L, "Paris", CHECK_IN, CHECK_OUT)).isEmpty();
+        assertThat(registry.release(first.getId())).isTrue();
+
+        assertThat(registry.tryHold(3L, 7L, "Paris", CHECK_IN, CHECK_OUT)).isPresent();
+        assertThat(registry.tryHold(4L, 7L, "Paris", CHECK_IN, CHECK_OUT)).isPresent();
+    }
+}
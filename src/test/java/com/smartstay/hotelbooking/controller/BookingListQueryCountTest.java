@@ -0,0 +1,101 @@
+package com.smartstay.hotelbooking.controller;
+
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.UserRepository;
+import com.smartstay.hotelbooking.service.BookingService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A page of the current user's bookings costs one statement for the rows and one for the total, however many
+// bookings it holds and whether or not a status filter is given
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "dev"})
+@WithMockUser(username = "customer")
+class BookingListQueryCountTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private static boolean bookingsCreated;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    // More confirmed bookings than fit on a page, so the count statement is not skipped
+    @BeforeEach
+    void createBookings() {
+        if (bookingsCreated) {
+            return;
+        }
+        User customer = userRepository.findByUsername("customer").orElseThrow();
+        Room room = roomRepository.findAll().get(0);
+        LocalDate checkIn = LocalDate.of(2032, 1, 1);
+        for (int i = 0; i <= PAGE_SIZE; i++) {
+            bookingService.processBookingRequest(customer.getId(), room.getId(), checkIn.plusDays(i * 3L),
+                    checkIn.plusDays(i * 3L + 2), 1, 0, "");
+        }
+        bookingsCreated = true;
+    }
+
+    @Test
+    void pageWithoutStatusTakesTwoStatements() throws Exception {
+        Statistics statistics = statistics();
+
+        mockMvc.perform(get("/api/bookings").param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PAGE_SIZE))
+                .andExpect(jsonPath("$[0].room.hotel.name").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void pageWithStatusTakesTwoStatements() throws Exception {
+        Statistics statistics = statistics();
+
+        mockMvc.perform(get("/api/bookings").param("size", String.valueOf(PAGE_SIZE)).param("status", "confirmed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PAGE_SIZE))
+                .andExpect(jsonPath("$[*].status").value(everyItem(is("CONFIRMED"))));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
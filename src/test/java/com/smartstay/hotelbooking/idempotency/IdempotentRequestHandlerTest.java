@@ -0,0 +1,152 @@
+package com.smartstay.hotelbooking.idempotency;
+
+import com.smartstay.hotelbooking.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class IdempotentRequestHandlerTest {
+
+    private static final Map<String, Object> REQUEST = Map.of("bookingId", 1);
+
+    @Autowired
+    private IdempotentRequestHandler handler;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @AfterEach
+    void clearKeys() {
+        recordRepository.deleteAll();
+    }
+
+    @Test
+    void duplicateWaitsForClaimHeldByAnotherInstance() throws Exception {
+        // What another instance leaves behind while its request is running
+        LocalDateTime now = LocalDateTime.now();
+        String requestHash = claimElsewhere("key-remote", now.plusSeconds(30));
+
+        CompletableFuture<ResponseEntity<?>> duplicate = handler.handleAsync("payment", "customer", "key-remote",
+                REQUEST, this::execute);
+        AtomicReference<String> answeredOn = new AtomicReference<>();
+        duplicate.thenRun(() -> answeredOn.set(Thread.currentThread().getName()));
+        Thread.sleep(300);
+        assertThat(duplicate).isNotDone();
+
+        transaction().executeWithoutResult(status -> recordRepository.completeClaim("payment", "customer",
+                "key-remote", requestHash, 201, "{\"id\":7}", now.plusHours(1), now));
+
+        ResponseEntity<?> response = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(response.getStatusCode().value()).isEqualTo(201);
+        assertThat(response.getBody()).isEqualTo("{\"id\":7}");
+        assertThat(response.getHeaders().getFirst(IdempotentRequestHandler.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(executions).hasValue(0);
+        // The table is polled on the handler's own threads, not the common pool
+        assertThat(answeredOn.get()).startsWith("idempotency-poll-");
+    }
+
+    @Test
+    void slowActionKeepsItsClaimPastTheWaitTimeout() {
+        CompletableFuture<ResponseEntity<?>> pending = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> response = handler.handleAsync("payment", "customer", "key-slow",
+                REQUEST, () -> pending);
+
+        // Waiters give up after 30 seconds; the claim itself is leased for 5 minutes
+        assertThat(recordRepository.findByScopeAndUsernameAndIdempotencyKey("payment", "customer", "key-slow"))
+                .hasValueSatisfying(record -> assertThat(record.getExpiresAt())
+                        .isAfter(LocalDateTime.now().plusMinutes(4)));
+
+        pending.complete(ResponseEntity.ok(Map.of("id", 7)));
+        assertThat(response.join().getStatusCode().value()).isEqualTo(200);
+    }
+
+    @Test
+    void claimPastItsLeaseIsTakenOver() {
+        claimElsewhere("key-stale", LocalDateTime.now().minusSeconds(1));
+
+        ResponseEntity<?> response = handler.handle("payment", "customer", "key-stale", REQUEST,
+                () -> execute().join());
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(executions).hasValue(1);
+        assertThat(recordRepository.findByScopeAndUsernameAndIdempotencyKey("payment", "customer", "key-stale"))
+                .hasValueSatisfying(record -> assertThat(record.getStatusCode()).isEqualTo(200));
+    }
+
+    @Test
+    void failedRequestReleasesItsClaim() {
+        assertThatThrownBy(() -> handler.handle("payment", "customer", "key-failed", REQUEST, () -> {
+            throw new IllegalStateException("gateway down");
+        })).hasMessage("gateway down");
+        assertThat(recordRepository.findByScopeAndUsernameAndIdempotencyKey("payment", "customer", "key-failed"))
+                .isEmpty();
+
+        ResponseEntity<?> retry = handler.handle("payment", "customer", "key-failed", REQUEST,
+                () -> execute().join());
+        assertThat(retry.getStatusCode().value()).isEqualTo(200);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void replayAfterCompletionDoesNotExecuteAgain() {
+        handler.handle("payment", "customer", "key-done", REQUEST, () -> execute().join());
+        ResponseEntity<?> replay = handler.handle("payment", "customer", "key-done", REQUEST,
+                () -> execute().join());
+
+        assertThat(replay.getHeaders().getFirst(IdempotentRequestHandler.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(executions).hasValue(1);
+    }
+
+    private CompletableFuture<ResponseEntity<?>> execute() {
+        executions.incrementAndGet();
+        return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of("id", 7)));
+    }
+
+    // Inserts a running claim the way another instance would, returning its request hash
+    private String claimElsewhere(String idempotencyKey, LocalDateTime leaseEnd) {
+        // The handler's hash of REQUEST: SHA-256 of its JSON form
+        String requestHash = sha256("{\"bookingId\":1}");
+        transaction().executeWithoutResult(status -> recordRepository.insertClaim("payment", "customer",
+                idempotencyKey, requestHash, leaseEnd, LocalDateTime.now()));
+        return requestHash;
+    }
+
+    private TransactionTemplate transaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.smartstay.hotelbooking.service.impl;
+
+import com.smartstay.hotelbooking.model.entity.ArchivedBooking;
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Hotel;
+import com.smartstay.hotelbooking.model.entity.Payment;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.ArchivedBookingRepository;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.HotelRepository;
+import com.smartstay.hotelbooking.repository.PaymentRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.UserRepository;
+import com.smartstay.hotelbooking.repository.projection.BookingSummaryView;
+import com.smartstay.hotelbooking.repository.projection.PaymentDailyTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentHotelTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentMethodTotal;
+import com.smartstay.hotelbooking.repository.projection.PaymentReportLine;
+import com.smartstay.hotelbooking.repository.projection.PaymentTotal;
+import com.smartstay.hotelbooking.service.BookingService;
+import com.smartstay.hotelbooking.service.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// One hot payment and two archived ones in June 2020, a month no seeded payment falls in
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({"test", "dev"})
+class ArchivedPaymentReportTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 6, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2020, 6, 30, 23, 59);
+
+    private static boolean seeded;
+    private static Long hotPaymentId;
+    private static Room room;
+    private static Hotel hotel;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @BeforeEach
+    void seedOnce() {
+        if (seeded) {
+            return;
+        }
+        User customer = userRepository.findByUsername("customer").orElseThrow();
+        room = roomRepository.findAll().get(0);
+        hotel = hotelRepository.findById(room.getHotel().getId()).orElseThrow();
+
+        Booking booking = new Booking();
+        booking.setBookingReference("BKREPORT01");
+        booking.setCheckInDate(LocalDate.of(2020, 5, 20));
+        booking.setCheckOutDate(LocalDate.of(2020, 5, 22));
+        booking.setAdults(1);
+        booking.setChildren(0);
+        booking.setTotalPrice(new BigDecimal("200.00"));
+        booking.setBookingStatus(Booking.BookingStatus.CHECKED_OUT);
+        booking.setUser(customer);
+        booking.setRoom(room);
+        bookingRepository.save(booking);
+
+        Payment payment = new Payment();
+        payment.setAmount(new BigDecimal("200.00"));
+        payment.setPaymentMethod("Credit Card");
+        payment.setPaymentStatus(Payment.PaymentStatus.COMPLETED);
+        payment.setPaymentDate(LocalDateTime.of(2020, 6, 2, 10, 0));
+        payment.setBooking(booking);
+        hotPaymentId = paymentRepository.save(payment).getId();
+
+        archive(900001L, 800001L, customer, LocalDate.of(2020, 5, 1), new BigDecimal("100.00"), "PayPal",
+                LocalDateTime.of(2020, 6, 1, 9, 0));
+        archive(900002L, 800002L, customer, LocalDate.of(2020, 5, 25), new BigDecimal("50.00"), "Credit Card",
+                LocalDateTime.of(2020, 6, 2, 8, 0));
+        seeded = true;
+    }
+
+    @Test
+    void totalsAndBreakdownsIncludeArchivedPayments() {
+        PaymentTotal total = paymentService.sumByStatusAndDateRange(Payment.PaymentStatus.COMPLETED, START, END);
+        assertThat(total.getPaymentCount()).isEqualTo(3);
+        assertThat(total.getTotalAmount()).isEqualByComparingTo("350.00");
+
+        List<PaymentDailyTotal> byDay = paymentService.sumByDay(Payment.PaymentStatus.COMPLETED, START, END);
+        assertThat(byDay).extracting(PaymentDailyTotal::getDay)
+                .containsExactly(LocalDate.of(2020, 6, 1), LocalDate.of(2020, 6, 2));
+        assertThat(byDay.get(1).getPaymentCount()).isEqualTo(2);
+        assertThat(byDay.get(1).getTotalAmount()).isEqualByComparingTo("250.00");
+
+        List<PaymentMethodTotal> byMethod =
+                paymentService.sumByPaymentMethod(Payment.PaymentStatus.COMPLETED, START, END);
+        assertThat(byMethod).extracting(PaymentMethodTotal::getPaymentMethod)
+                .containsExactly("Credit Card", "PayPal");
+        assertThat(byMethod.get(0).getTotalAmount()).isEqualByComparingTo("250.00");
+
+        List<PaymentHotelTotal> byHotel = paymentService.sumByHotel(Payment.PaymentStatus.COMPLETED, START, END);
+        assertThat(byHotel).hasSize(1);
+        assertThat(byHotel.get(0).getHotelId()).isEqualTo(hotel.getId());
+        assertThat(byHotel.get(0).getPaymentCount()).isEqualTo(3);
+    }
+
+    @Test
+    void reportLinesPageAcrossBothTablesNewestFirst() {
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "paymentDate").and(Sort.by(Sort.Direction.DESC, "id"));
+
+        Page<PaymentReportLine> first = paymentService.findReportLines(Payment.PaymentStatus.COMPLETED, START, END,
+                PageRequest.of(0, 2, newestFirst));
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getContent()).extracting(PaymentReportLine::getId).containsExactly(hotPaymentId, 800002L);
+
+        Page<PaymentReportLine> second = paymentService.findReportLines(Payment.PaymentStatus.COMPLETED, START,
+                END, PageRequest.of(1, 2, newestFirst));
+        assertThat(second.getContent()).extracting(PaymentReportLine::getId).containsExactly(800001L);
+        assertThat(second.getContent().get(0).getEmail()).isNotNull();
+    }
+
+    @Test
+    void exportMergesArchivedBookingsInCheckInOrder() {
+        List<BookingSummaryView> exported = new ArrayList<>();
+        bookingService.exportByHotelAndDateRange(hotel.getId(), LocalDate.of(2020, 5, 1),
+                LocalDate.of(2020, 5, 31), exported::add);
+
+        assertThat(exported).extracting(BookingSummaryView::getBookingReference)
+                .containsExactly("BKARCH900001", "BKREPORT01", "BKARCH900002");
+        assertThat(exported.get(0).getPaymentId()).isEqualTo(800001L);
+        assertThat(exported.get(0).getRoomTypeName()).isNull();
+    }
+
+    private void archive(Long bookingId, Long paymentId, User customer, LocalDate checkIn, BigDecimal amount,
+            String paymentMethod, LocalDateTime paymentDate) {
+        ArchivedBooking archived = new ArchivedBooking();
+        archived.setId(bookingId);
+        archived.setBookingReference("BKARCH" + bookingId);
+        archived.setCheckInDate(checkIn);
+        archived.setCheckOutDate(checkIn.plusDays(2));
+        archived.setAdults(1);
+        archived.setTotalPrice(amount);
+        archived.setBookingStatus(Booking.BookingStatus.CHECKED_OUT);
+        archived.setUserId(customer.getId());
+        archived.setRoomId(room.getId());
+        archived.setRoomNumber(room.getRoomNumber());
+        archived.setHotelId(hotel.getId());
+        archived.setHotelName(hotel.getName());
+        archived.setPaymentId(paymentId);
+        archived.setPaymentAmount(amount);
+        archived.setPaymentMethod(paymentMethod);
+        archived.setPaymentStatus(Payment.PaymentStatus.COMPLETED);
+        archived.setPaymentDate(paymentDate);
+        archived.setCreatedAt(checkIn.atStartOfDay());
+        archived.setArchivedAt(LocalDateTime.now());
+        archivedBookingRepository.save(archived);
+    }
+}
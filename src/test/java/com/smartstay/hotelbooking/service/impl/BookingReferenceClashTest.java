@@ -0,0 +1,74 @@
+package com.smartstay.hotelbooking.service.impl;
+
+import com.smartstay.hotelbooking.booking.BookingReferenceGenerator;
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.UserRepository;
+import com.smartstay.hotelbooking.service.BookingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// BK12345678 belongs to a booking the dev seed data creates
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({"test", "dev"})
+class BookingReferenceClashTest {
+
+    private static final String TAKEN = "BK12345678";
+
+    @MockBean
+    private BookingReferenceGenerator referenceGenerator;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Test
+    void clashingReferenceIsRedrawnThroughTheUniqueConstraint() {
+        when(referenceGenerator.nextReference()).thenReturn(TAKEN, "BK00990001");
+
+        Booking booking = book(0, LocalDate.of(2034, 1, 1));
+
+        assertThat(booking.getBookingReference()).isEqualTo("BK00990001");
+        assertThat(bookingRepository.findByBookingReference("BK00990001")).isPresent();
+        verify(referenceGenerator, times(2)).nextReference();
+    }
+
+    @Test
+    void bookingFailsOnceEveryAttemptClashes() {
+        when(referenceGenerator.nextReference()).thenReturn(TAKEN);
+
+        assertThatThrownBy(() -> book(1, LocalDate.of(2034, 2, 1)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verify(referenceGenerator, times(3)).nextReference();
+    }
+
+    private Booking book(int roomIndex, LocalDate checkIn) {
+        User customer = userRepository.findByUsername("customer").orElseThrow();
+        Room room = roomRepository.findAll().get(roomIndex);
+        return bookingService.processBookingRequest(customer.getId(), room.getId(), checkIn, checkIn.plusDays(2),
+                1, 0, "");
+    }
+}
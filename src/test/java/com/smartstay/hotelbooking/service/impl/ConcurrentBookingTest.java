@@ -0,0 +1,114 @@
+package com.smartstay.hotelbooking.service.impl;
+
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.BookingRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.UserRepository;
+import com.smartstay.hotelbooking.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many guests racing for the same room and nights: exactly one booking may win
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({"test", "dev"})
+class ConcurrentBookingTest {
+
+    private static final int THREADS = 12;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private User customer;
+    private List<Room> rooms;
+
+    @BeforeEach
+    void loadFixtures() {
+        customer = userRepository.findByUsername("customer").orElseThrow();
+        rooms = roomRepository.findAll();
+    }
+
+    @Test
+    void sameRoomAndNightsIsBookedOnce() throws Exception {
+        Room room = rooms.get(0);
+        LocalDate checkIn = LocalDate.of(2031, 6, 1);
+        LocalDate checkOut = checkIn.plusDays(3);
+
+        List<Future<Booking>> attempts = race(THREADS, i -> room, checkIn, checkOut);
+
+        int booked = 0;
+        for (Future<Booking> attempt : attempts) {
+            try {
+                attempt.get();
+                booked++;
+            } catch (ExecutionException e) {
+                // Losers are turned away as unavailable, never with a second booking or a database error
+                assertThat(e.getCause())
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessage("Room is not available for the selected dates");
+            }
+        }
+        assertThat(booked).isEqualTo(1);
+        assertThat(bookingRepository.findActiveStaysForRoomsBetween(List.of(room.getId()), checkIn, checkOut))
+                .hasSize(1);
+    }
+
+    @Test
+    void differentRoomsDoNotBlockEachOther() throws Exception {
+        LocalDate checkIn = LocalDate.of(2031, 7, 1);
+        LocalDate checkOut = checkIn.plusDays(2);
+        int count = Math.min(rooms.size(), 3);
+
+        List<Future<Booking>> attempts = race(count, rooms::get, checkIn, checkOut);
+
+        for (Future<Booking> attempt : attempts) {
+            assertThat(attempt.get().getId()).isNotNull();
+        }
+    }
+
+    // Starts every attempt at the same moment, so they all pass the early availability check together
+    private List<Future<Booking>> race(int attempts, IntFunction<Room> roomFor,
+            LocalDate checkIn, LocalDate checkOut) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Booking>> futures = new ArrayList<>(attempts);
+        for (int i = 0; i < attempts; i++) {
+            Room room = roomFor.apply(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                return bookingService.processBookingRequest(customer.getId(), room.getId(), checkIn, checkOut,
+                        1, 0, "");
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        return futures;
+    }
+}
@@ -0,0 +1,218 @@
+package com.smartstay.hotelbooking.service.impl;
+
+import com.smartstay.hotelbooking.model.entity.Booking;
+import com.smartstay.hotelbooking.model.entity.Payment;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.payment.GatewayResult;
+import com.smartstay.hotelbooking.payment.PaymentGateway;
+import com.smartstay.hotelbooking.payment.PaymentGatewayException;
+import com.smartstay.hotelbooking.repository.PaymentRepository;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.UserRepository;
+import com.smartstay.hotelbooking.service.BookingService;
+import com.smartstay.hotelbooking.service.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// A gateway that never answers stands in for a timeout; the short timeout keeps the tests quick
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "app.payment.gateway.timeout-ms=200")
+@ActiveProfiles({"test", "dev"})
+class PaymentReconciliationTest {
+
+    @MockBean
+    private PaymentGateway gateway;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User customer;
+    private List<Room> rooms;
+
+    @BeforeEach
+    void loadFixtures() {
+        customer = userRepository.findByUsername("customer").orElseThrow();
+        rooms = roomRepository.findAll();
+        when(gateway.authorize(any())).thenReturn(CompletableFuture.completedFuture(GatewayResult.approved("AUTH1")));
+    }
+
+    @Test
+    void timedOutCaptureIsParkedAndSettledFromTheGatewayRecord() {
+        Long paymentId = bookAndGetPaymentId(0, LocalDate.of(2033, 1, 1));
+        when(gateway.capture(anyString(), any(), anyString())).thenReturn(new CompletableFuture<>());
+
+        assertThatThrownBy(() -> charge(paymentId).join())
+                .hasCauseInstanceOf(PaymentGatewayException.class);
+        assertThat(statusOf(paymentId)).isEqualTo(Payment.PaymentStatus.UNKNOWN);
+
+        // A retry must not reach the gateway while the first capture may have gone through
+        assertThatThrownBy(() -> charge(paymentId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("awaiting reconciliation");
+        verify(gateway, times(1)).capture(anyString(), any(), anyString());
+
+        when(gateway.lookup("PAY" + paymentId + "-CHARGE-1"))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(GatewayResult.approved("TXN-LATE"))));
+        // Nor may the booking be cancelled without a refund
+        Long bookingId = bookingIdOf(paymentId);
+        assertThatThrownBy(() -> bookingService.cancelBooking(bookingId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("still being settled");
+        verify(gateway, never()).refund(anyString(), any(), anyString());
+
+        Payment reconciled = paymentService.reconcilePayment(paymentId).join();
+
+        assertThat(reconciled.getPaymentStatus()).isEqualTo(Payment.PaymentStatus.COMPLETED);
+        assertThat(reconciled.getTransactionId()).isEqualTo("TXN-LATE");
+        when(gateway.refund(anyString(), any(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(GatewayResult.approved("RFD-LATE")));
+        assertThat(bookingService.cancelBooking(bookingId).join().getBookingStatus())
+                .isEqualTo(Booking.BookingStatus.CANCELLED);
+    }
+
+    @Test
+    void captureTheGatewayNeverReceivedIsReleasedForANewAttempt() {
+        Long paymentId = bookAndGetPaymentId(1, LocalDate.of(2033, 2, 1));
+        when(gateway.capture(anyString(), any(), anyString())).thenReturn(new CompletableFuture<>());
+        assertThatThrownBy(() -> charge(paymentId).join()).isInstanceOf(CompletionException.class);
+
+        when(gateway.lookup("PAY" + paymentId + "-CHARGE-1"))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        assertThat(paymentService.reconcilePayment(paymentId).join().getPaymentStatus())
+                .isEqualTo(Payment.PaymentStatus.PENDING);
+
+        // The next attempt goes out under a new key
+        when(gateway.capture(anyString(), any(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(GatewayResult.approved("TXN-SECOND")));
+        assertThat(charge(paymentId).join().getPaymentStatus()).isEqualTo(Payment.PaymentStatus.COMPLETED);
+        verify(gateway).capture(anyString(), any(), eq("PAY" + paymentId + "-CHARGE-2"));
+    }
+
+    @Test
+    void timedOutRefundIsNotRestoredToCompleted() {
+        Long paymentId = bookAndGetPaymentId(2, LocalDate.of(2033, 3, 1));
+        when(gateway.capture(anyString(), any(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(GatewayResult.approved("TXN-REFUND")));
+        charge(paymentId).join();
+
+        when(gateway.refund(anyString(), any(), anyString())).thenReturn(new CompletableFuture<>());
+        assertThatThrownBy(() -> paymentService.refundPayment(paymentId).join())
+                .hasCauseInstanceOf(PaymentGatewayException.class);
+        assertThat(statusOf(paymentId)).isEqualTo(Payment.PaymentStatus.UNKNOWN);
+
+        when(gateway.lookup("PAY" + paymentId + "-REFUND-2"))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(GatewayResult.approved("RFD1"))));
+        assertThat(paymentService.reconcilePayment(paymentId).join().getPaymentStatus())
+                .isEqualTo(Payment.PaymentStatus.REFUNDED);
+    }
+
+    @Test
+    void approvedCaptureLeftProcessingIsCompletedFromItsRecordedTransaction() {
+        Long paymentId = bookAndGetPaymentId(0, LocalDate.of(2033, 4, 1));
+        // What a crash right after the capture was recorded leaves behind
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            paymentRepository.claimForGateway(paymentId, List.of(Payment.PaymentStatus.PENDING),
+                    Payment.PaymentStatus.PROCESSING, Payment.GatewayOperation.CHARGE, 1, LocalDateTime.now());
+            paymentRepository.recordTransactionId(paymentId, "TXN-RECORDED", Payment.PaymentStatus.PROCESSING,
+                    LocalDateTime.now());
+        });
+
+        Payment reconciled = paymentService.reconcilePayment(paymentId).join();
+
+        assertThat(reconciled.getPaymentStatus()).isEqualTo(Payment.PaymentStatus.COMPLETED);
+        assertThat(reconciled.getTransactionId()).isEqualTo("TXN-RECORDED");
+        verify(gateway, never()).lookup(anyString());
+    }
+
+    @Test
+    void cancellingAPaidBookingRefundsItAtTheGateway() {
+        Long paymentId = bookAndGetPaymentId(1, LocalDate.of(2033, 5, 1));
+        when(gateway.capture(anyString(), any(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(GatewayResult.approved("TXN-CANCEL")));
+        charge(paymentId).join();
+        when(gateway.refund(anyString(), any(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(GatewayResult.approved("RFD-CANCEL")));
+
+        Booking cancelled = bookingService.cancelBooking(bookingIdOf(paymentId)).join();
+
+        assertThat(cancelled.getBookingStatus()).isEqualTo(Booking.BookingStatus.CANCELLED);
+        assertThat(statusOf(paymentId)).isEqualTo(Payment.PaymentStatus.REFUNDED);
+        verify(gateway).refund(eq("TXN-CANCEL"), any(), eq("PAY" + paymentId + "-REFUND-2"));
+    }
+
+    @Test
+    void declinedRefundLeavesThePaidBookingInPlace() {
+        Long paymentId = bookAndGetPaymentId(2, LocalDate.of(2033, 6, 1));
+        when(gateway.capture(anyString(), any(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(GatewayResult.approved("TXN-KEEP")));
+        charge(paymentId).join();
+        when(gateway.refund(anyString(), any(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(GatewayResult.declined("Card closed")));
+        Long bookingId = bookingIdOf(paymentId);
+
+        assertThatThrownBy(() -> bookingService.cancelBooking(bookingId).join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(statusOf(paymentId)).isEqualTo(Payment.PaymentStatus.COMPLETED);
+        assertThat(bookingService.findById(bookingId).orElseThrow().getBookingStatus())
+                .isEqualTo(Booking.BookingStatus.CONFIRMED);
+    }
+
+    private Long bookAndGetPaymentId(int roomIndex, LocalDate checkIn) {
+        Booking booking = bookingService.processBookingRequest(customer.getId(), rooms.get(roomIndex).getId(),
+                checkIn, checkIn.plusDays(2), 1, 0, "");
+        return paymentRepository.findByBooking(booking).orElseThrow().getId();
+    }
+
+    private CompletableFuture<Payment> charge(Long paymentId) {
+        Long bookingId = bookingIdOf(paymentId);
+        return paymentService.processPayment(bookingId, "Credit Card", "4111111111111111", "Guest", "12", "2035",
+                "123");
+    }
+
+    private Long bookingIdOf(Long paymentId) {
+        return paymentRepository.findWithBookingAndUserById(paymentId).orElseThrow().getBooking().getId();
+    }
+
+    private Payment.PaymentStatus statusOf(Long paymentId) {
+        return paymentRepository.findById(paymentId).orElseThrow().getPaymentStatus();
+    }
+}
@@ -0,0 +1,73 @@
+package com.smartstay.hotelbooking.service.impl;
+
+import com.smartstay.hotelbooking.booking.QueuedBookingRequest;
+import com.smartstay.hotelbooking.model.entity.Room;
+import com.smartstay.hotelbooking.model.entity.User;
+import com.smartstay.hotelbooking.repository.RoomRepository;
+import com.smartstay.hotelbooking.repository.UserRepository;
+import com.smartstay.hotelbooking.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against the dev seed data; stays are placed far in the future so they never meet seeded bookings
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({"test", "dev"})
+class QueuedBookingBatchTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private User customer;
+    private Room room;
+
+    @BeforeEach
+    void loadFixtures() {
+        customer = userRepository.findByUsername("customer").orElseThrow();
+        room = roomRepository.findAll().get(0);
+    }
+
+    @Test
+    void requestIsNotRejectedForClashingWithARequestThatWasItselfRejected() {
+        LocalDate checkIn = LocalDate.of(2031, 3, 1);
+        // Too many guests for the room: only found out once the room is locked
+        QueuedBookingRequest oversized = request(checkIn, checkIn.plusDays(3), room.getCapacity() + 1);
+        QueuedBookingRequest fitting = request(checkIn.plusDays(1), checkIn.plusDays(2), 1);
+
+        bookingService.processQueuedBookings(List.of(oversized, fitting));
+
+        assertThat(oversized.getStatus()).isEqualTo(QueuedBookingRequest.Status.REJECTED);
+        assertThat(fitting.getStatus()).isEqualTo(QueuedBookingRequest.Status.CONFIRMED);
+    }
+
+    @Test
+    void laterRequestForTheSameNightsLosesOnceTheBatchCommits() {
+        LocalDate checkIn = LocalDate.of(2031, 4, 1);
+        QueuedBookingRequest first = request(checkIn, checkIn.plusDays(2), 1);
+        QueuedBookingRequest second = request(checkIn.plusDays(1), checkIn.plusDays(3), 1);
+
+        bookingService.processQueuedBookings(List.of(first, second));
+
+        assertThat(first.getStatus()).isEqualTo(QueuedBookingRequest.Status.CONFIRMED);
+        assertThat(second.getStatus()).isEqualTo(QueuedBookingRequest.Status.REJECTED);
+        assertThat(second.getError()).isEqualTo("Room is not available for the selected dates");
+    }
+
+    private QueuedBookingRequest request(LocalDate checkIn, LocalDate checkOut, int adults) {
+        return new QueuedBookingRequest(customer.getId(), customer.getUsername(), room.getHotel().getId(),
+                room.getId(), checkIn, checkOut, adults, 0, "");
+    }
+}